@@ -0,0 +1,49 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the analysis_history id sequence past the existing rows at startup
+ *
+ * Ids used to be AUTO_INCREMENT. On MySQL, Hibernate emulates the new sequence with an
+ * analysis_history_seq table that ddl-auto starts at 1, which would collide with old ids.
+ * Runs after Hibernate has created the schema and before any insert.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AnalysisHistorySequenceAligner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisHistorySequenceAligner.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequence() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            // Real sequences elsewhere - created together with the table, nothing to catch up
+            return;
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM analysis_history", Long.class);
+
+        // The pooled optimizer hands out (next_val - allocationSize, next_val], so stay one pool ahead
+        long nextValue = maxId + AnalysisHistory.ID_ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update(
+                "UPDATE analysis_history_seq SET next_val = ? WHERE next_val < ?", nextValue, nextValue);
+
+        if (updated > 0) {
+            logger.info("Moved analysis_history_seq to {} (max existing id {})", nextValue, maxId);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for LLM-bound work
+ * Virtual threads by default (follows spring.threads.virtual.enabled), so thousands of
+ * analyses can wait on Groq at once without a platform thread each.
+ * Set app.ai.executor.virtual-threads=false to fall back to a fixed platform pool.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    @Value("${app.ai.executor.virtual-threads:${spring.threads.virtual.enabled:false}}")
+    private boolean virtualThreads;
+
+    @Value("${app.ai.executor.pool-size:50}")
+    private int poolSize;
+
+    @Value("${app.jobs.workers:4}")
+    private int jobWorkers;
+
+    @Value("${app.jobs.queue-capacity:100}")
+    private int jobQueueCapacity;
+
+    /**
+     * Executor used by the Groq HTTP client and for fanning out AI calls
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService aiExecutor() {
+        if (virtualThreads) {
+            logger.info("AI executor: virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-", 0).factory());
+        }
+
+        logger.info("AI executor: {} platform threads", poolSize);
+        return Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("ai-", 0).daemon().factory());
+    }
+
+    /**
+     * Worker pool for asynchronous analysis jobs (POST /api/jobs)
+     * Fixed number of workers over a bounded queue; execute() throws RejectedExecutionException
+     * when the queue is full, which the API turns into 429
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor jobExecutor() {
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("job-", 0).factory()
+                : Thread.ofPlatform().name("job-", 0).daemon().factory();
+
+        logger.info("Job executor: {} workers, queue capacity {}", jobWorkers, jobQueueCapacity);
+        return new ThreadPoolExecutor(jobWorkers, jobWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobQueueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,23 +1,44 @@
 package com.prodpulse.prodpulse_backend.config;
 
+import com.prodpulse.prodpulse_backend.service.llm.LlmCallGuard;
+import com.prodpulse.prodpulse_backend.service.llm.LlmProvider;
+import com.prodpulse.prodpulse_backend.service.llm.LlmRouter;
 import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Groq AI Configuration
- * Creates OpenAiChatModel bean for interacting with Groq API
- * Groq uses OpenAI-compatible API, so we use OpenAiChatModel
+ * Creates one OpenAiChatModel per configured LLM provider and the router that picks between them
+ * Groq (and the other providers) use OpenAI-compatible APIs, so we use OpenAiChatModel
  */
 @Configuration
+@EnableConfigurationProperties(LlmProvidersProperties.class)
 public class GroqConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(GroqConfig.class);
+
     @Value("${spring.ai.openai.api-key}")
     private String apiKey;
 
@@ -27,21 +48,92 @@ public class GroqConfig {
     @Value("${spring.ai.openai.chat.options.model:llama-3.3-70b-versatile}")
     private String modelName;
 
+    @Value("${app.ai.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.ai.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    // Attempts per call including the first - keep low, the circuit breaker in LlmCallGuard handles outages
+    @Value("${app.ai.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
     /**
-     * Create OpenAiChatModel bean configured for Groq
-     * This allows us to use Groq's LLaMA models via OpenAI-compatible API
+     * Create the LLM router over all enabled providers
+     * Without app.ai.providers, the only provider is Groq as configured by spring.ai.openai.*
+     *
+     * @param aiExecutor Executor for the HTTP clients (virtual threads by default, see ExecutorConfig)
+     * @param observationRegistry Actuator's registry - Spring AI then reports gen_ai.client.* call and token metrics
+     * @param properties Providers from app.ai.providers[n].*
+     * @param callGuard Source of the per-provider circuit breakers
      */
     @Bean
-    public OpenAiChatModel openAiChatModel() {
+    public LlmRouter llmRouter(@Qualifier("aiExecutor") ExecutorService aiExecutor,
+                               ObjectProvider<ObservationRegistry> observationRegistry,
+                               LlmProvidersProperties properties,
+                               LlmCallGuard callGuard) {
+        ObservationRegistry registry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+
+        List<LlmProvidersProperties.Provider> configured = properties.getProviders();
+        if (configured.isEmpty()) {
+            LlmProvidersProperties.Provider groq = new LlmProvidersProperties.Provider();
+            groq.setName("groq");
+            groq.setBaseUrl(baseUrl);
+            groq.setApiKey(apiKey);
+            groq.setModel(modelName);
+            configured = List.of(groq);
+        }
+
+        List<LlmProvider> providers = new ArrayList<>();
+        for (int i = 0; i < configured.size(); i++) {
+            LlmProvidersProperties.Provider provider = configured.get(i);
+            if (!provider.isEnabled()) {
+                continue;
+            }
+            String name = provider.getName() != null ? provider.getName() : "provider-" + i;
+            String model = provider.getModel() != null ? provider.getModel() : modelName;
+            providers.add(new LlmProvider(name, model,
+                    createChatModel(provider, model, aiExecutor, registry), callGuard.newCircuitBreaker()));
+            logger.info("LLM provider '{}': {} ({})", name,
+                    provider.getBaseUrl() != null ? provider.getBaseUrl() : baseUrl, model);
+        }
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("No enabled LLM provider in app.ai.providers");
+        }
+
+        return new LlmRouter(providers);
+    }
+
+    /**
+     * Create an OpenAiChatModel for one provider
+     * Unset base URL, API key, timeouts and retries fall back to the spring.ai.openai.* / app.ai.* values
+     */
+    private OpenAiChatModel createChatModel(LlmProvidersProperties.Provider provider, String model,
+                                            ExecutorService aiExecutor, ObservationRegistry observationRegistry) {
+        long connectTimeout = provider.getConnectTimeoutMs() != null ? provider.getConnectTimeoutMs() : connectTimeoutMs;
+        long readTimeout = provider.getReadTimeoutMs() != null ? provider.getReadTimeoutMs() : readTimeoutMs;
+        int maxAttempts = provider.getRetryMaxAttempts() != null ? provider.getRetryMaxAttempts() : retryMaxAttempts;
+
+        // One JDK HttpClient for blocking and streaming calls, running on the AI executor
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(aiExecutor)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+
         // Create OpenAiApi with base URL and API key
         OpenAiApi openAiApi = OpenAiApi.builder()
-                .baseUrl(baseUrl)
-                .apiKey(apiKey)
+                .baseUrl(provider.getBaseUrl() != null ? provider.getBaseUrl() : baseUrl)
+                .apiKey(provider.getApiKey() != null ? provider.getApiKey() : apiKey)
+                .restClientBuilder(RestClient.builder().requestFactory(requestFactory))
+                .webClientBuilder(WebClient.builder().clientConnector(new JdkClientHttpConnector(httpClient)))
                 .build();
 
-        // Create chat options with default model
+        // Create chat options with the provider's model
         OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .model(modelName)
+                .model(model)
                 .temperature(0.3)
                 .maxTokens(2000)
                 .build();
@@ -54,8 +146,8 @@ public class GroqConfig {
                 openAiApi,
                 options,
                 toolCallingManager,
-                RetryTemplate.builder().maxAttempts(3).build(),
-                ObservationRegistry.NOOP
+                RetryTemplate.builder().maxAttempts(maxAttempts).build(),
+                observationRegistry
         );
     }
-}
\ No newline at end of file
+}
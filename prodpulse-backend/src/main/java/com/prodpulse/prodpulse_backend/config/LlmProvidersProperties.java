@@ -0,0 +1,49 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OpenAI-compatible LLM endpoints the router can choose from (app.ai.providers[n].*)
+ * Bound with @ConfigurationProperties because @Value cannot bind a list of objects.
+ *
+ * Left empty, a single provider named "groq" is built from spring.ai.openai.*
+ */
+@Data
+@ConfigurationProperties(prefix = "app.ai")
+public class LlmProvidersProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+
+    @Data
+    public static class Provider {
+
+        /**
+         * Name used in logs and metric tags
+         */
+        private String name;
+
+        /**
+         * Base URL without /v1 (e.g. https://api.groq.com/openai)
+         */
+        private String baseUrl;
+
+        private String apiKey;
+
+        private String model;
+
+        /**
+         * Overrides of app.ai.connect-timeout-ms, app.ai.read-timeout-ms and app.ai.retry.max-attempts
+         */
+        private Long connectTimeoutMs;
+
+        private Long readTimeoutMs;
+
+        private Integer retryMaxAttempts;
+
+        private boolean enabled = true;
+    }
+}
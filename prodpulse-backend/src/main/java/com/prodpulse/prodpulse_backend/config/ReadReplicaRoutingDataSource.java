@@ -0,0 +1,54 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica, everything else to the primary
+ *
+ * The target is chosen when a connection is taken, so the transaction's read-only flag must
+ * already be set - use behind a LazyConnectionDataSourceProxy (see ReadReplicaConfig).
+ * A read-only call that joins a read-write transaction stays on the primary.
+ *
+ * Metrics: prodpulse.db.connections{target=primary|replica}, connections taken per target
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.<Object, Object>of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        primaryConnections = connectionCounter(PRIMARY, meterRegistry);
+        replicaConnections = connectionCounter(REPLICA, meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            replicaConnections.increment();
+            return REPLICA;
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    private static Counter connectionCounter(String target, MeterRegistry meterRegistry) {
+        return Counter.builder("prodpulse.db.connections")
+                .description("Database connections taken, by routing target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
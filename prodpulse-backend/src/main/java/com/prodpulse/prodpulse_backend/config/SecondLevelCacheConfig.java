@@ -0,0 +1,65 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for AnalysisHistory entities (Caffeine behind JCache)
+ *
+ * The region is created here, bounded by app.history.entity-cache.*, and the cache manager is
+ * handed to Hibernate - so no region can grow without limit from JCache defaults.
+ * Enabled with spring.jpa.properties.hibernate.cache.use_second_level_cache;
+ * hit and miss counts are published by SecondLevelCacheMetrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+
+    @Value("${app.history.entity-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.history.entity-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * Cache manager holding the entity regions
+     * One per application context (a JCache URI names a shared manager, and tests start several contexts)
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("prodpulse:hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+        region.setMaximumSize(OptionalLong.of(maxSize));
+        region.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(ttlMinutes)));
+        cacheManager.createCache(AnalysisHistory.CACHE_REGION, region);
+
+        logger.info("Second-level cache region '{}': max {} entities, {} min TTL",
+                AnalysisHistory.CACHE_REGION, maxSize, ttlMinutes);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -1,17 +1,37 @@
 package com.prodpulse.prodpulse_backend.controller;
 
+import com.prodpulse.prodpulse_backend.model.dto.BatchDiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.BatchLogRequest;
 import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryItem;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryPage;
+import com.prodpulse.prodpulse_backend.model.dto.JobRequest;
+import com.prodpulse.prodpulse_backend.model.dto.JobResponse;
 import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.dto.UploadDiagnosisResponse;
+import com.prodpulse.prodpulse_backend.service.AnalysisJobService;
+import com.prodpulse.prodpulse_backend.service.DiagnosisCache;
+import com.prodpulse.prodpulse_backend.service.HistoryService;
 import com.prodpulse.prodpulse_backend.service.LogAnalysisService;
+import com.prodpulse.prodpulse_backend.service.diagnosis.DiagnosisRenderer;
+import com.prodpulse.prodpulse_backend.service.persistence.AnalysisWriter;
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,18 +49,42 @@ public class LogAnalysisController {
     @Autowired
     private LogAnalysisService logAnalysisService;
 
+    @Autowired
+    private DiagnosisCache diagnosisCache;
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Autowired
+    private KnownErrorClassifier knownErrorClassifier;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private AnalysisWriter analysisWriter;
+
+    @Autowired
+    private DiagnosisRenderer diagnosisRenderer;
+
+    @Value("${app.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
+
     /**
      * Main endpoint for analyzing production logs
      *
-     * POST /api/analyze
+     * POST /api/analyze?format=html|json
      *
      * @param logRequest Request body containing error logs
+     * @param format "html" renders structured diagnoses into content, "json" returns only the typed fields
+     *               (default: app.diagnosis.default-format)
      * @param request HttpServletRequest to extract IP address
      * @return DiagnosisResponse with AI-generated diagnosis
      */
     @PostMapping("/analyze")
     public ResponseEntity<DiagnosisResponse> analyzeLogs(
             @Valid @RequestBody LogRequest logRequest,
+            @RequestParam(required = false) String format,
             HttpServletRequest request) {
 
         String ipAddress = getClientIpAddress(request);
@@ -48,9 +92,190 @@ public class LogAnalysisController {
 
         DiagnosisResponse response = logAnalysisService.analyzeLogs(logRequest, ipAddress);
 
+        return ResponseEntity.ok(diagnosisRenderer.applyFormat(response, format));
+    }
+
+    /**
+     * Streaming variant of /analyze - sends the diagnosis as Server-Sent Events
+     * while the AI generates it (events: meta, chunk, done)
+     *
+     * POST /api/analyze/stream
+     *
+     * @param logRequest Request body containing error logs
+     * @param request HttpServletRequest to extract IP address
+     * @return SSE emitter the diagnosis is streamed to
+     */
+    @PostMapping("/analyze/stream")
+    public SseEmitter analyzeLogsStream(
+            @Valid @RequestBody LogRequest logRequest,
+            HttpServletRequest request) {
+
+        String ipAddress = getClientIpAddress(request);
+        logger.info("Received streaming log analysis request from IP: {}", ipAddress);
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        logAnalysisService.streamAnalysis(logRequest, ipAddress, emitter);
+
+        return emitter;
+    }
+
+    /**
+     * Analyze several logs in one request (CI pipelines, log shippers)
+     * Identical logs are analyzed once; each log gets its own result, including failures
+     *
+     * POST /api/analyze/batch?format=html|json
+     *
+     * @param batchRequest Request body containing the error logs
+     * @param format Diagnosis format, as for /analyze
+     * @param request HttpServletRequest to extract IP address
+     * @return Per-log results
+     */
+    @PostMapping("/analyze/batch")
+    public ResponseEntity<BatchDiagnosisResponse> analyzeBatch(
+            @Valid @RequestBody BatchLogRequest batchRequest,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+
+        String ipAddress = getClientIpAddress(request);
+        logger.info("Received batch analysis request ({} logs) from IP: {}",
+                batchRequest.getLogs().size(), ipAddress);
+
+        BatchDiagnosisResponse response = logAnalysisService.analyzeBatch(batchRequest, ipAddress);
+        response.getResults().forEach(result -> diagnosisRenderer.applyFormat(result.getDiagnosis(), format));
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Analyze a large log file (up to app.ingest.max-size), sent as a multipart upload
+     * The log is condensed while it is read; see LogAnalysisService.analyzeUpload
+     *
+     * POST /api/analyze/upload?format=html|json (multipart/form-data, part "file")
+     *
+     * @param file Uploaded log file
+     * @param format Diagnosis format, as for /analyze
+     * @param request HttpServletRequest to extract IP address
+     * @return Diagnosis with reduction statistics
+     */
+    @PostMapping(value = "/analyze/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadDiagnosisResponse> analyzeUploadedFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+
+        String ipAddress = getClientIpAddress(request);
+        logger.info("Received log file upload ({} bytes) from IP: {}", file.getSize(), ipAddress);
+
+        try (InputStream in = file.getInputStream()) {
+            UploadDiagnosisResponse response = logAnalysisService.analyzeUpload(in, ipAddress);
+            diagnosisRenderer.applyFormat(response.getDiagnosis(), format);
+            return ResponseEntity.ok(response);
+        }
+    }
+
+    /**
+     * Analyze a large log sent as the raw request body (e.g. curl --data-binary @app.log,
+     * or a chunked stream from a log shipper) - read incrementally, never buffered whole
+     *
+     * POST /api/analyze/upload?format=html|json (text/plain or application/octet-stream)
+     *
+     * @param format Diagnosis format, as for /analyze
+     * @param request HttpServletRequest with the log as body
+     * @return Diagnosis with reduction statistics
+     */
+    @PostMapping(value = "/analyze/upload",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<UploadDiagnosisResponse> analyzeUploadedBody(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        String ipAddress = getClientIpAddress(request);
+        logger.info("Received streamed log upload from IP: {}", ipAddress);
+
+        UploadDiagnosisResponse response = logAnalysisService.analyzeUpload(request.getInputStream(), ipAddress);
+        diagnosisRenderer.applyFormat(response.getDiagnosis(), format);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Submit a log for asynchronous analysis - returns a job ID right away
+     * Poll GET /api/jobs/{jobId}, or pass a callbackUrl to receive the result as a POST
+     *
+     * POST /api/jobs
+     *
+     * @param jobRequest Request body containing error logs and optional callback URL
+     * @param request HttpServletRequest to extract IP address
+     * @return 202 Accepted with the queued job (429 if the queue is full)
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<JobResponse> submitJob(
+            @Valid @RequestBody JobRequest jobRequest,
+            HttpServletRequest request) {
+
+        String ipAddress = getClientIpAddress(request);
+        logger.info("Received analysis job from IP: {}", ipAddress);
+
+        JobResponse response = analysisJobService.submitJob(jobRequest, ipAddress);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + response.getJobId()))
+                .body(response);
+    }
+
+    /**
+     * Poll an asynchronous analysis job
+     *
+     * GET /api/jobs/{jobId}?format=html|json
+     *
+     * @param jobId Job ID returned by POST /api/jobs
+     * @param format Diagnosis format, as for /analyze
+     * @return Job status, with the diagnosis once completed
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobResponse> getJob(@PathVariable String jobId,
+                                              @RequestParam(required = false) String format) {
+        JobResponse response = analysisJobService.getJob(jobId);
+        diagnosisRenderer.applyFormat(response.getDiagnosis(), format);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Past analyses of the current user, newest first
+     * Without detail, only severity, title, source and timestamp are returned
+     *
+     * GET /api/history?limit=20&cursor=...&detail=false
+     *
+     * @param cursor nextCursor of the previous page (omit for the first page)
+     * @param limit Page size (default 20, max 100)
+     * @param detail Include log input and diagnosis
+     * @param request HttpServletRequest to extract IP address
+     * @return One page of history and the cursor of the next one
+     */
+    @GetMapping("/history")
+    public ResponseEntity<HistoryPage> getHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean detail,
+            HttpServletRequest request) {
+
+        String ipAddress = getClientIpAddress(request);
+        return ResponseEntity.ok(historyService.getHistory(ipAddress, cursor, limit, detail));
+    }
+
+    /**
+     * One past analysis of the current user, with log input and diagnosis
+     *
+     * GET /api/history/{analysisId}
+     *
+     * @param analysisId Analysis ID
+     * @param request HttpServletRequest to extract IP address
+     * @return The full record (404 if it belongs to another address)
+     */
+    @GetMapping("/history/{analysisId}")
+    public ResponseEntity<HistoryItem> getAnalysis(@PathVariable Long analysisId, HttpServletRequest request) {
+        String ipAddress = getClientIpAddress(request);
+        return ResponseEntity.ok(historyService.getAnalysis(ipAddress, analysisId));
+    }
+
     /**
      * Health check endpoint
      *
@@ -88,6 +313,42 @@ public class LogAnalysisController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Diagnosis cache statistics
+     *
+     * GET /api/cache-stats
+     *
+     * @return Hit/miss counters, hit rate and size
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(diagnosisCache.getStats());
+    }
+
+    /**
+     * Known-error rule statistics
+     *
+     * GET /api/rule-stats
+     *
+     * @return Checks, hits, hit rate and hits per rule
+     */
+    @GetMapping("/rule-stats")
+    public ResponseEntity<Map<String, Object>> getRuleStats() {
+        return ResponseEntity.ok(knownErrorClassifier.getStats());
+    }
+
+    /**
+     * Persistence statistics
+     *
+     * GET /api/persistence-stats
+     *
+     * @return Mode, and for write-behind the queue depth and write counters
+     */
+    @GetMapping("/persistence-stats")
+    public ResponseEntity<Map<String, Object>> getPersistenceStats() {
+        return ResponseEntity.ok(analysisWriter.getStats());
+    }
+
     /**
      * Root endpoint - API info
      *
@@ -101,10 +362,20 @@ public class LogAnalysisController {
         info.put("name", "ProdPulse.AI API");
         info.put("version", "1.0.0");
         info.put("description", "AI-powered production log analyzer");
-        info.put("endpoints", Map.of(
-                "POST /api/analyze", "Analyze production error logs",
-                "GET /api/health", "Health check",
-                "GET /api/rate-limit-status", "Check remaining requests"
+        info.put("endpoints", Map.ofEntries(
+                Map.entry("POST /api/analyze", "Analyze production error logs"),
+                Map.entry("POST /api/analyze/stream", "Analyze logs, streaming the diagnosis (SSE)"),
+                Map.entry("POST /api/analyze/batch", "Analyze several logs in one request"),
+                Map.entry("POST /api/analyze/upload", "Analyze a large log file (multipart or raw body)"),
+                Map.entry("POST /api/jobs", "Queue a log for asynchronous analysis"),
+                Map.entry("GET /api/jobs/{jobId}", "Poll an analysis job"),
+                Map.entry("GET /api/history", "Your past analyses, newest first (paginated)"),
+                Map.entry("GET /api/history/{analysisId}", "One past analysis with log and diagnosis"),
+                Map.entry("GET /api/health", "Health check"),
+                Map.entry("GET /api/rate-limit-status", "Check remaining requests"),
+                Map.entry("GET /api/cache-stats", "Diagnosis cache statistics"),
+                Map.entry("GET /api/rule-stats", "Known-error rule statistics"),
+                Map.entry("GET /api/persistence-stats", "Analysis write queue statistics")
         ));
 
         return ResponseEntity.ok(info);
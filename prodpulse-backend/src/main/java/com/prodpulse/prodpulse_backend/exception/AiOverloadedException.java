@@ -0,0 +1,12 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when the adaptive concurrency limit for AI calls is reached
+ * (load shedding - the client should retry shortly)
+ */
+public class AiOverloadedException extends RuntimeException {
+
+    public AiOverloadedException(String message) {
+        super(message);
+    }
+}
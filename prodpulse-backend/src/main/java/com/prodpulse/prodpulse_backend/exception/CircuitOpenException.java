@@ -0,0 +1,12 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when the AI circuit breaker is open and the call was not made
+ * Internal - AIService answers with the fallback diagnosis instead
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -4,12 +4,14 @@ import com.prodpulse.prodpulse_backend.model.dto.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -45,6 +47,149 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.TOO_MANY_REQUESTS);
     }
 
+    /**
+     * Handle a full job queue (backpressure)
+     */
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleJobQueueFullException(
+            JobQueueFullException ex,
+            HttpServletRequest request) {
+
+        logger.warn("Job queue full, rejected job from IP: {}", request.getRemoteAddr());
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message(ex.getMessage())
+                .details("Too many jobs are waiting. Please retry in a few seconds.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+
+    /**
+     * Handle AI calls shed by the adaptive concurrency limit
+     */
+    @ExceptionHandler(AiOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleAiOverloadedException(
+            AiOverloadedException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .details("The AI provider is slow right now, so fewer analyses run at once. This request did not count against your limit.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+
+    /**
+     * Handle unknown job IDs
+     */
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleJobNotFoundException(
+            JobNotFoundException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .details("Jobs are identified by the jobId returned from POST /api/jobs.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handle unknown (or foreign) analysis IDs
+     */
+    @ExceptionHandler(HistoryNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleHistoryNotFoundException(
+            HistoryNotFoundException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .details("Only analyses made from your own address can be retrieved.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handle history cursors that were not issued by GET /api/history
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(
+            InvalidCursorException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .details("Use the nextCursor value of the previous page, or omit cursor for the first page.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handle job callback URLs to hosts that are not allowed
+     */
+    @ExceptionHandler(InvalidCallbackException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCallbackException(
+            InvalidCallbackException ex,
+            HttpServletRequest request) {
+
+        logger.warn("Rejected job callback from IP: {}: {}", request.getRemoteAddr(), ex.getMessage());
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .details("Omit callbackUrl and poll /api/jobs/{jobId} instead.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handle uploads over the size limit (streamed body or multipart file)
+     */
+    @ExceptionHandler({LogTooLargeException.class, MaxUploadSizeExceededException.class})
+    public ResponseEntity<ErrorResponse> handleLogTooLargeException(
+            RuntimeException ex,
+            HttpServletRequest request) {
+
+        logger.warn("Oversized log upload from IP: {}", request.getRemoteAddr());
+
+        ErrorResponse error = ErrorResponse.builder()
+                .status(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                .message(ex instanceof LogTooLargeException ? ex.getMessage() : "Uploaded log is too large")
+                .details("Trim the log to the time around the incident and upload it again.")
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     /**
      * Handle invalid log input
      */
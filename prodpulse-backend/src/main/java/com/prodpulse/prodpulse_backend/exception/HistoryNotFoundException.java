@@ -0,0 +1,11 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when an analysis does not exist or belongs to another client
+ */
+public class HistoryNotFoundException extends RuntimeException {
+
+    public HistoryNotFoundException(Long analysisId) {
+        super(String.format("Analysis %d not found", analysisId));
+    }
+}
@@ -0,0 +1,12 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when a job callback URL points to a host that is not allowed
+ * (or callbacks are disabled - see app.jobs.callback-allowed-hosts)
+ */
+public class InvalidCallbackException extends RuntimeException {
+
+    public InvalidCallbackException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when a history page cursor cannot be decoded
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super(String.format("Invalid history cursor: %s", cursor));
+    }
+}
@@ -0,0 +1,16 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when a structured diagnosis from the AI is not valid JSON or breaks the schema
+ * Internal - AIService answers with the fallback diagnosis instead
+ */
+public class InvalidDiagnosisException extends RuntimeException {
+
+    public InvalidDiagnosisException(String message) {
+        super(message);
+    }
+
+    public InvalidDiagnosisException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
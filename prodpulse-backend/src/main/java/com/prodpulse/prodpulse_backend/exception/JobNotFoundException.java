@@ -0,0 +1,11 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when a job ID is unknown
+ */
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String jobId) {
+        super(String.format("Job %s not found", jobId));
+    }
+}
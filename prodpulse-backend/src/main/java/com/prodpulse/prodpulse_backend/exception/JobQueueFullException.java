@@ -0,0 +1,12 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when the job queue has no room for another job
+ * (backpressure - the client should retry later)
+ */
+public class JobQueueFullException extends RuntimeException {
+
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+}
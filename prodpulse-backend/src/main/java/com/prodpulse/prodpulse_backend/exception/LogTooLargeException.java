@@ -0,0 +1,11 @@
+package com.prodpulse.prodpulse_backend.exception;
+
+/**
+ * Exception thrown when an uploaded log exceeds the upload size limit
+ */
+public class LogTooLargeException extends RuntimeException {
+
+    public LogTooLargeException(String message) {
+        super(message);
+    }
+}
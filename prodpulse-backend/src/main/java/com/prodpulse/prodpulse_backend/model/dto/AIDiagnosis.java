@@ -0,0 +1,28 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of an AIService call
+ * Internal only - tells the pipeline whether the content is a real diagnosis or the fallback
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AIDiagnosis {
+
+    /**
+     * Diagnosis content (HTML formatted)
+     */
+    private String content;
+
+    /**
+     * True if the AI call failed and content is the generic fallback response
+     */
+    private boolean fallback;
+
+}
@@ -0,0 +1,40 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for batch analysis
+ * One result per submitted log, in submission order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchDiagnosisResponse {
+
+    /**
+     * Number of logs submitted
+     */
+    private int total;
+
+    /**
+     * Number of logs that got a diagnosis
+     */
+    private int succeeded;
+
+    /**
+     * Number of logs that failed (validation, rate limit, analysis error)
+     */
+    private int failed;
+
+    /**
+     * Per-log results, same order as the request
+     */
+    private List<BatchItemResult> results;
+
+}
@@ -0,0 +1,43 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result for one log of a batch analysis
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemResult {
+
+    /**
+     * Position of the log in the submitted batch
+     */
+    private int index;
+
+    /**
+     * "success" or "failed"
+     */
+    private String status;
+
+    /**
+     * Diagnosis (null if the item failed)
+     */
+    private DiagnosisResponse diagnosis;
+
+    /**
+     * Why the item failed (null on success)
+     */
+    private String error;
+
+    /**
+     * Index of the earlier log with the same fingerprint whose analysis was reused
+     * (null if this log was analyzed itself)
+     */
+    private Integer duplicateOf;
+
+}
@@ -0,0 +1,25 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for batch log analysis
+ * CI pipelines and log shippers send several error logs at once via this request
+ * Each log is validated on its own - an invalid log fails only its own item
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLogRequest {
+
+    @NotEmpty(message = "Batch cannot be empty")
+    @Size(max = 50, message = "A batch can contain at most 50 logs")
+    private List<String> logs;
+
+}
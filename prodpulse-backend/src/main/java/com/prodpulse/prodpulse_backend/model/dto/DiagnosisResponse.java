@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Response DTO for diagnosis results
  * AI-generated diagnosis is returned via this response
@@ -28,9 +30,30 @@ public class DiagnosisResponse {
     /**
      * Full diagnosis content from AI (HTML formatted)
      * Contains: What happened, How to fix, Prevention tips
+     * For a structured diagnosis only present when the client asks for HTML (format=html)
      */
     private String content;
 
+    /**
+     * Root cause in simple terms (structured diagnoses only, see app.ai.output.structured)
+     */
+    private String rootCause;
+
+    /**
+     * Steps to fix the issue, in order (structured diagnoses only)
+     */
+    private List<String> fixSteps;
+
+    /**
+     * Prevention tips (structured diagnoses only)
+     */
+    private List<String> preventionTips;
+
+    /**
+     * Model's confidence from 0.0 to 1.0 (structured diagnoses only)
+     */
+    private Double confidence;
+
     /**
      * Timestamp of analysis
      */
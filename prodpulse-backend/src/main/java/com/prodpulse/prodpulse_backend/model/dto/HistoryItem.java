@@ -0,0 +1,52 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One past analysis (GET /api/history, GET /api/history/{id})
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HistoryItem {
+
+    /**
+     * Analysis ID (GET /api/history/{id} returns the full record)
+     */
+    private Long analysisId;
+
+    /**
+     * Severity level: "critical", "warning", "info"
+     */
+    private String severity;
+
+    /**
+     * Brief title of the issue
+     */
+    private String title;
+
+    /**
+     * Where the diagnosis came from: "AI", "FALLBACK", "CACHE", "SIMILAR" or "RULE"
+     */
+    private String source;
+
+    /**
+     * Timestamp of analysis
+     */
+    private String timestamp;
+
+    /**
+     * Submitted log (only with detail=true, or for a single record)
+     */
+    private String logInput;
+
+    /**
+     * Diagnosis HTML (only with detail=true, or for a single record)
+     */
+    private String content;
+
+}
@@ -0,0 +1,29 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of analysis history, newest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HistoryPage {
+
+    /**
+     * Analyses on this page
+     */
+    private List<HistoryItem> items;
+
+    /**
+     * Pass as "cursor" to get the next (older) page; null on the last page
+     */
+    private String nextCursor;
+
+}
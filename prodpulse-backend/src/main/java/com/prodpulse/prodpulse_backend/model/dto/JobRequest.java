@@ -0,0 +1,31 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for an asynchronous analysis job
+ * Same log rules as LogRequest, plus an optional webhook
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRequest {
+
+    @NotBlank(message = "Logs cannot be empty")
+    @Size(max = 2000, message = "Logs must be less than 2000 characters (approximately 150 words)")
+    private String logs;
+
+    /**
+     * Optional URL that receives the finished job (JobResponse) as a JSON POST
+     * Its host must be in app.jobs.callback-allowed-hosts (see AnalysisJobService)
+     */
+    @Size(max = 512, message = "Callback URL must be less than 512 characters")
+    @Pattern(regexp = "^https?://\\S+$", message = "Callback URL must be an http(s) URL")
+    private String callbackUrl;
+
+}
@@ -0,0 +1,43 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for asynchronous analysis jobs
+ * Returned on submit, on polling and as the webhook payload
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobResponse {
+
+    /**
+     * Job ID (poll GET /api/jobs/{jobId})
+     */
+    private String jobId;
+
+    /**
+     * "QUEUED", "RUNNING", "COMPLETED" or "FAILED"
+     */
+    private String status;
+
+    /**
+     * Diagnosis (only when COMPLETED)
+     */
+    private DiagnosisResponse diagnosis;
+
+    /**
+     * Failure reason (only when FAILED)
+     */
+    private String error;
+
+    /**
+     * Timestamp when the job was submitted
+     */
+    private String submittedAt;
+
+}
@@ -0,0 +1,40 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Diagnosis in structured form (app.ai.output.structured)
+ * Internal only - the model answers with this as compact JSON, which is what gets stored and cached
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StructuredDiagnosis {
+
+    /**
+     * Explanation of the root cause in simple terms
+     */
+    private String rootCause;
+
+    /**
+     * Steps to fix the issue, in order
+     */
+    private List<String> fixSteps;
+
+    /**
+     * Best practices that prevent it next time (may be empty)
+     */
+    private List<String> preventionTips;
+
+    /**
+     * Model's confidence in the diagnosis, 0.0 to 1.0
+     */
+    private double confidence;
+
+}
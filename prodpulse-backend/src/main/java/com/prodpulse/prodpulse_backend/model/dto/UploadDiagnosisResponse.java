@@ -0,0 +1,53 @@
+package com.prodpulse.prodpulse_backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for large-log uploads
+ * The diagnosis plus how much of the upload was condensed away before analysis
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadDiagnosisResponse {
+
+    /**
+     * Diagnosis of the condensed log
+     */
+    private DiagnosisResponse diagnosis;
+
+    /**
+     * Characters read from the upload
+     */
+    private long inputChars;
+
+    /**
+     * Lines read from the upload
+     */
+    private long inputLines;
+
+    /**
+     * Lines left after reduction (what the AI saw)
+     */
+    private long keptLines;
+
+    /**
+     * Repeated lines folded into their first occurrence
+     */
+    private long repeatedLines;
+
+    /**
+     * Stack frames cut from long traces
+     */
+    private long collapsedFrames;
+
+    /**
+     * Error sections kept (error lines with surrounding context)
+     */
+    private int errorWindows;
+
+}
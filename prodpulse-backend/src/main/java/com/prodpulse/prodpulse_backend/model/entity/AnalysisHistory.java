@@ -1,28 +1,60 @@
 package com.prodpulse.prodpulse_backend.model.entity;
 
+import com.prodpulse.prodpulse_backend.service.storage.CompressedTextConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
 
 import java.time.LocalDateTime;
 
 /**
  * Entity for storing analysis history in database
  * Tracks all log analyses for rate limiting and history
+ *
+ * Indexes (created by ddl-auto=update like the columns):
+ * - ip_address, created_at, source: rate-limit counts and per-IP history; covers both COUNT queries
+ * - created_at: startup rebuild of rate-limit windows and rolling archival (see AnalysisHistoryArchiver)
+ * - log_fingerprint, created_at: diagnosis cache lookups
+ *
+ * Rows are never updated after insert (only archived or deleted), so loads by id go through
+ * a read-only second-level cache (region CACHE_REGION, see SecondLevelCacheConfig)
  */
 @Entity
-@Table(name = "analysis_history")
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = AnalysisHistory.CACHE_REGION)
+@Table(name = "analysis_history", indexes = {
+        @Index(name = "idx_analysis_history_ip_created", columnList = "ip_address, created_at, source"),
+        @Index(name = "idx_analysis_history_created", columnList = "created_at"),
+        @Index(name = "idx_analysis_history_fingerprint", columnList = "log_fingerprint, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class AnalysisHistory {
 
+    /**
+     * Ids come from a pooled sequence (a table on MySQL) rather than IDENTITY,
+     * so Hibernate can batch inserts - IDENTITY forces one INSERT round trip per row
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Second-level cache region of AnalysisHistory entities
+     */
+    public static final String CACHE_REGION = "analysis-history";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_history_seq")
+    @SequenceGenerator(name = "analysis_history_seq", sequenceName = "analysis_history_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -33,13 +65,24 @@ public class AnalysisHistory {
 
     /**
      * Original log input from user
+     * Stored compressed above app.storage.compression.threshold (see TextCompressor)
      */
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "log_input", columnDefinition = "TEXT", nullable = false)
     private String logInput;
 
     /**
-     * AI-generated diagnosis
+     * SHA-256 of the normalized log (see LogNormalizer)
+     * Lets an identical error reuse a stored diagnosis instead of calling the AI
      */
+    @Column(name = "log_fingerprint", length = 64)
+    private String logFingerprint;
+
+    /**
+     * AI-generated diagnosis (HTML)
+     * Stored compressed above app.storage.compression.threshold (see TextCompressor)
+     */
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "diagnosis", columnDefinition = "TEXT")
     private String diagnosis;
 
@@ -55,6 +98,14 @@ public class AnalysisHistory {
     @Column(name = "title", length = 255)
     private String title;
 
+    /**
+     * Where the diagnosis came from: AI, FALLBACK, CACHE, SIMILAR or RULE
+     * Null for rows written before this column existed (treated as AI)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", length = 20)
+    private DiagnosisSource source;
+
     /**
      * Timestamp when analysis was created
      */
@@ -0,0 +1,76 @@
+package com.prodpulse.prodpulse_backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity for asynchronous analysis jobs (POST /api/jobs)
+ * Persisted so queued jobs survive a restart; the result itself lives in analysis_history
+ */
+@Entity
+@Table(name = "analysis_job", indexes = {
+        @Index(name = "idx_analysis_job_status", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisJob {
+
+    /**
+     * Random UUID - also the polling handle, so it must not be guessable
+     */
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /**
+     * IP address of the submitter (rate limiting is charged when the job runs)
+     */
+    @Column(name = "ip_address", nullable = false, length = 45)
+    private String ipAddress;
+
+    /**
+     * Original log input
+     */
+    @Column(name = "log_input", columnDefinition = "TEXT", nullable = false)
+    private String logInput;
+
+    /**
+     * Optional URL that receives the job result as a JSON POST when it finishes
+     */
+    @Column(name = "callback_url", length = 512)
+    private String callbackUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private JobStatus status;
+
+    /**
+     * analysis_history row with the diagnosis (set when COMPLETED)
+     */
+    @Column(name = "analysis_id")
+    private Long analysisId;
+
+    /**
+     * Failure reason (set when FAILED)
+     */
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+}
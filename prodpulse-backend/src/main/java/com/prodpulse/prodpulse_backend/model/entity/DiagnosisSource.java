@@ -0,0 +1,43 @@
+package com.prodpulse.prodpulse_backend.model.entity;
+
+/**
+ * Where a stored diagnosis came from
+ * AI, FALLBACK and SIMILAR answers cost a full request against the rate limit
+ */
+public enum DiagnosisSource {
+
+    /**
+     * Generated by the LLM
+     */
+    AI,
+
+    /**
+     * Static response used when the LLM call failed (never cached)
+     */
+    FALLBACK,
+
+    /**
+     * Served from the diagnosis cache for an identical normalized log
+     */
+    CACHE,
+
+    /**
+     * Diagnosis of a near-identical past incident (see SimilarIncidentService), no AI call
+     * Charged as a full request: a small edit to the log would otherwise make every request free
+     */
+    SIMILAR,
+
+    /**
+     * Canned diagnosis from a known-error rule (see KnownErrorClassifier), no AI call
+     */
+    RULE;
+
+    /**
+     * True if the diagnosis was produced without an AI call
+     * (charged at the cache-hit discount by the rate limiter)
+     */
+    public boolean isLocal() {
+        return this == CACHE || this == RULE;
+    }
+
+}
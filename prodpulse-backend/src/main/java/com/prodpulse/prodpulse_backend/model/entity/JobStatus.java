@@ -0,0 +1,28 @@
+package com.prodpulse.prodpulse_backend.model.entity;
+
+/**
+ * Lifecycle of an asynchronous analysis job
+ */
+public enum JobStatus {
+
+    /**
+     * Accepted and waiting for a worker (also after a restart)
+     */
+    QUEUED,
+
+    /**
+     * A worker is analyzing the log
+     */
+    RUNNING,
+
+    /**
+     * Diagnosis stored in analysis_history (see analysisId)
+     */
+    COMPLETED,
+
+    /**
+     * Analysis failed - see error
+     */
+    FAILED
+
+}
@@ -0,0 +1,23 @@
+package com.prodpulse.prodpulse_backend.model.projection;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of AnalysisHistory
+ * One row of the history list (no TEXT columns)
+ */
+public interface HistorySummary {
+
+    Long getId();
+
+    String getSeverity();
+
+    String getTitle();
+
+    DiagnosisSource getSource();
+
+    LocalDateTime getCreatedAt();
+
+}
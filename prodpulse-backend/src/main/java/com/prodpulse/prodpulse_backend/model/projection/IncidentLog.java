@@ -0,0 +1,13 @@
+package com.prodpulse.prodpulse_backend.model.projection;
+
+/**
+ * Lightweight projection of AnalysisHistory
+ * Just the log and its fingerprint (used to rebuild the similar-incident index)
+ */
+public interface IncidentLog {
+
+    String getLogInput();
+
+    String getLogFingerprint();
+
+}
@@ -0,0 +1,21 @@
+package com.prodpulse.prodpulse_backend.model.projection;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of AnalysisHistory
+ * Only the columns needed to rebuild rate-limit windows (no TEXT columns)
+ */
+public interface RequestTimestamp {
+
+    Long getId();
+
+    String getIpAddress();
+
+    LocalDateTime getCreatedAt();
+
+    DiagnosisSource getSource();
+
+}
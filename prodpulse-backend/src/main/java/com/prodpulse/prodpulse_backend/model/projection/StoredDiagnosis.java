@@ -0,0 +1,13 @@
+package com.prodpulse.prodpulse_backend.model.projection;
+
+/**
+ * Lightweight projection of AnalysisHistory
+ * Just the diagnosis of a fingerprinted log (used to fill the diagnosis cache)
+ */
+public interface StoredDiagnosis {
+
+    String getLogFingerprint();
+
+    String getDiagnosis();
+
+}
@@ -1,18 +1,28 @@
 package com.prodpulse.prodpulse_backend.repository;
 
 import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.model.projection.HistorySummary;
+import com.prodpulse.prodpulse_backend.model.projection.IncidentLog;
+import com.prodpulse.prodpulse_backend.model.projection.RequestTimestamp;
+import com.prodpulse.prodpulse_backend.model.projection.StoredDiagnosis;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for AnalysisHistory entity
  * Spring Data JPA automatically implements these methods!
+ * findById and findAllCachedById are served from the second-level cache when the row is cached
  */
 @Repository
-public interface AnalysisHistoryRepository extends JpaRepository<AnalysisHistory, Long> {
+public interface AnalysisHistoryRepository extends JpaRepository<AnalysisHistory, Long>, AnalysisHistoryRepositoryCustom {
 
     /**
      * Count analyses by IP address within a time window (for rate limiting)
@@ -24,13 +34,68 @@ public interface AnalysisHistoryRepository extends JpaRepository<AnalysisHistory
     Long countByIpAddressAndCreatedAtAfter(String ipAddress, LocalDateTime since);
 
     /**
-     * Find all analyses by IP address (for history)
+     * Count analyses from some sources by IP address within a time window
+     * (cache and rule hits are charged at a discount by the rate limiter)
+     *
+     * @param ipAddress User's IP address
+     * @param since Start time for counting
+     * @param sources Diagnosis sources
+     * @return Number of analyses from those sources in the time window
+     */
+    Long countByIpAddressAndCreatedAtAfterAndSourceIn(String ipAddress, LocalDateTime since,
+                                                       Collection<DiagnosisSource> sources);
+
+    /**
+     * Count analyses by IP address within a time window, except those from some sources
+     * (one query instead of two when cache and rule hits are free; rows without a source count)
+     *
+     * @param ipAddress User's IP address
+     * @param since Start time for counting
+     * @param sources Diagnosis sources not to count
+     * @return Number of other analyses in the time window
+     */
+    @Query("SELECT COUNT(h) FROM AnalysisHistory h " +
+            "WHERE h.ipAddress = :ipAddress AND h.createdAt > :since " +
+            "AND (h.source IS NULL OR h.source NOT IN :sources)")
+    Long countByIpAddressAndCreatedAtAfterExcludingSources(String ipAddress, LocalDateTime since,
+                                                           Collection<DiagnosisSource> sources);
+
+    /**
+     * Find all analyses by IP address
+     * Unbounded, with the TEXT columns - API history goes through findHistoryPageBefore instead
      *
      * @param ipAddress User's IP address
      * @return List of all analyses by this IP
      */
     List<AnalysisHistory> findByIpAddressOrderByCreatedAtDesc(String ipAddress);
 
+    /**
+     * First page of an IP's history, newest first (uses idx_analysis_history_ip_created)
+     * Projection only - the TEXT columns are not loaded
+     *
+     * @param ipAddress User's IP address
+     * @param pageable Page size (page number is always 0)
+     * @return Newest analyses
+     */
+    List<HistorySummary> findByIpAddressOrderByCreatedAtDescIdDesc(String ipAddress, Pageable pageable);
+
+    /**
+     * Next page of an IP's history: analyses older than the last one already returned
+     * Keyset (seek) pagination on (created_at, id), so deep pages cost the same as the first
+     *
+     * @param ipAddress User's IP address
+     * @param createdAt Creation time of the last analysis of the previous page
+     * @param id ID of the last analysis of the previous page
+     * @param pageable Page size (page number is always 0)
+     * @return Analyses before that one, newest first
+     */
+    @Query("SELECT h.id AS id, h.severity AS severity, h.title AS title, h.source AS source, " +
+            "h.createdAt AS createdAt FROM AnalysisHistory h " +
+            "WHERE h.ipAddress = :ipAddress " +
+            "AND (h.createdAt < :createdAt OR (h.createdAt = :createdAt AND h.id < :id)) " +
+            "ORDER BY h.createdAt DESC, h.id DESC")
+    List<HistorySummary> findHistoryPageBefore(String ipAddress, LocalDateTime createdAt, Long id, Pageable pageable);
+
     /**
      * Find recent analyses by IP (for debugging)
      *
@@ -40,4 +105,67 @@ public interface AnalysisHistoryRepository extends JpaRepository<AnalysisHistory
      */
     List<AnalysisHistory> findByIpAddressAndCreatedAtAfter(String ipAddress, LocalDateTime since);
 
+    /**
+     * First page of request timestamps of all IPs since a given time (for rebuilding rate-limit windows)
+     * Projection only - the TEXT columns are not loaded
+     *
+     * @param since Start time
+     * @param pageable Page size (page number is always 0)
+     * @return ID, IP address, creation time and source of each analysis, oldest first
+     */
+    List<RequestTimestamp> findByCreatedAtAfterOrderByCreatedAtAscIdAsc(LocalDateTime since, Pageable pageable);
+
+    /**
+     * Next page of request timestamps: analyses after the last one already returned
+     * Keyset pagination on (created_at, id), like findHistoryPageBefore
+     *
+     * @param since Start time
+     * @param createdAt Creation time of the last analysis of the previous page
+     * @param id ID of the last analysis of the previous page
+     * @param pageable Page size (page number is always 0)
+     * @return Analyses after that one, oldest first
+     */
+    @Query("SELECT h.id AS id, h.ipAddress AS ipAddress, h.createdAt AS createdAt, h.source AS source " +
+            "FROM AnalysisHistory h WHERE h.createdAt > :since " +
+            "AND (h.createdAt > :createdAt OR (h.createdAt = :createdAt AND h.id > :id)) " +
+            "ORDER BY h.createdAt ASC, h.id ASC")
+    List<RequestTimestamp> findRequestTimestampsAfter(LocalDateTime since, LocalDateTime createdAt, Long id,
+                                                      Pageable pageable);
+
+    /**
+     * Find the most recent diagnosis for a log fingerprint (uses idx_analysis_history_fingerprint)
+     *
+     * @param logFingerprint Normalized log fingerprint
+     * @param sources Sources whose diagnosis can be reused (never FALLBACK)
+     * @param since Oldest acceptable analysis
+     * @return Latest matching diagnosis, if any
+     */
+    Optional<StoredDiagnosis> findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(
+            String logFingerprint, Collection<DiagnosisSource> sources, LocalDateTime since);
+
+    /**
+     * Find the most frequently analyzed fingerprints since a given time (for cache warm-up)
+     *
+     * @param sources Sources whose diagnosis can be reused (never FALLBACK)
+     * @param since Start time
+     * @param pageable Limits the number of fingerprints returned
+     * @return Fingerprints, most frequent first
+     */
+    @Query("SELECT h.logFingerprint FROM AnalysisHistory h " +
+            "WHERE h.logFingerprint IS NOT NULL AND h.source IN :sources AND h.createdAt > :since " +
+            "GROUP BY h.logFingerprint ORDER BY COUNT(h) DESC")
+    List<String> findMostFrequentFingerprints(Collection<DiagnosisSource> sources, LocalDateTime since, Pageable pageable);
+
+    /**
+     * Find recent fingerprinted logs with a reusable diagnosis (for rebuilding the similar-incident index)
+     * Projection only - the diagnosis is not loaded
+     *
+     * @param sources Sources whose diagnosis can be reused (never FALLBACK)
+     * @param since Start time
+     * @param pageable Limits the number of logs returned
+     * @return Logs and fingerprints, newest first
+     */
+    List<IncidentLog> findBySourceInAndCreatedAtAfterAndLogFingerprintIsNotNullOrderByCreatedAtDesc(
+            Collection<DiagnosisSource> sources, LocalDateTime since, Pageable pageable);
+
 }
\ No newline at end of file
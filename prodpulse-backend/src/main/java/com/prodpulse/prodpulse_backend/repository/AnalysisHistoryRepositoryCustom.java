@@ -0,0 +1,22 @@
+package com.prodpulse.prodpulse_backend.repository;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+
+import java.util.List;
+
+/**
+ * AnalysisHistory queries Spring Data cannot derive (implemented in AnalysisHistoryRepositoryCustomImpl)
+ */
+public interface AnalysisHistoryRepositoryCustom {
+
+    /**
+     * Find analyses by id through the second-level cache
+     * findAllById always runs one IN query; here cached rows are not read again
+     * and only the missing ones are loaded (in one query)
+     *
+     * @param ids Analysis IDs
+     * @return The analyses that exist, in the order of the IDs
+     */
+    List<AnalysisHistory> findAllCachedById(List<Long> ids);
+
+}
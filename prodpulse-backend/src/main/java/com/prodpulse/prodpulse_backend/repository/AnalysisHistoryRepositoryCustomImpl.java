@@ -0,0 +1,30 @@
+package com.prodpulse.prodpulse_backend.repository;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hibernate-specific part of AnalysisHistoryRepository
+ */
+public class AnalysisHistoryRepositoryCustomImpl implements AnalysisHistoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AnalysisHistory> findAllCachedById(List<Long> ids) {
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(AnalysisHistory.class)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
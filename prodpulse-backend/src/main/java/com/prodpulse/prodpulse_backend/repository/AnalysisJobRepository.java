@@ -0,0 +1,39 @@
+package com.prodpulse.prodpulse_backend.repository;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisJob;
+import com.prodpulse.prodpulse_backend.model.entity.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for AnalysisJob entity
+ */
+@Repository
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, String> {
+
+    /**
+     * Find a job - always on the primary database
+     * Jobs are polled right after they are submitted and picked up by workers at once,
+     * so a read-only (replica) read could miss them
+     *
+     * @param id Job ID
+     * @return The job, if it exists
+     */
+    @Override
+    @Transactional
+    Optional<AnalysisJob> findById(String id);
+
+    /**
+     * Find unfinished jobs, oldest first (to resume them after a restart)
+     *
+     * @param statuses Job states to look for
+     * @return Matching jobs
+     */
+    List<AnalysisJob> findByStatusInOrderByCreatedAtAsc(Collection<JobStatus> statuses);
+
+}
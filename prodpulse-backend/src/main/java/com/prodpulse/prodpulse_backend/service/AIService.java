@@ -1,17 +1,27 @@
 package com.prodpulse.prodpulse_backend.service;
 
+import com.prodpulse.prodpulse_backend.exception.AiOverloadedException;
+import com.prodpulse.prodpulse_backend.exception.CircuitOpenException;
+import com.prodpulse.prodpulse_backend.exception.InvalidDiagnosisException;
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.service.diagnosis.StructuredDiagnosisParser;
+import com.prodpulse.prodpulse_backend.service.llm.LlmCallGuard;
+import com.prodpulse.prodpulse_backend.service.llm.LlmRouter;
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import com.prodpulse.prodpulse_backend.service.prompt.PromptBuilder;
+import com.prodpulse.prodpulse_backend.service.scan.LogScanner;
+import com.prodpulse.prodpulse_backend.service.similar.SimilarIncident;
+import com.prodpulse.prodpulse_backend.service.similar.SimilarIncidentService;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.messages.AssistantMessage;
-import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -25,7 +35,25 @@ public class AIService {
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
 
     @Autowired
-    private OpenAiChatModel chatModel;
+    private LlmRouter llmRouter;
+
+    @Autowired
+    private LogScanner logScanner;
+
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    @Autowired
+    private LlmCallGuard callGuard;
+
+    @Autowired
+    private PromptBuilder promptBuilder;
+
+    @Autowired
+    private StructuredDiagnosisParser structuredDiagnosisParser;
+
+    @Autowired
+    private SimilarIncidentService similarIncidentService;
 
     @Value("${spring.ai.openai.api-key}")
     private String apiKey;
@@ -39,6 +67,13 @@ public class AIService {
     @Value("${spring.ai.openai.chat.options.max-tokens:2000}")
     private Integer maxTokens;
 
+    // Structured output: the model answers with compact JSON, rendered to HTML only on request
+    @Value("${app.ai.output.structured:false}")
+    private boolean structuredOutput;
+
+    @Value("${app.ai.output.structured-max-tokens:800}")
+    private int structuredMaxTokens;
+
     @PostConstruct
     public void init() {
         logger.info("=== GROQ API CONFIGURATION ===");
@@ -47,102 +82,142 @@ public class AIService {
         logger.info("Model: {}", modelName);
         logger.info("Temperature: {}", temperature);
         logger.info("Max Tokens: {}", maxTokens);
-        logger.info("Base URL: https://api.groq.com/openai/v1");
+        logger.info("Output: {}", structuredOutput ? "structured JSON" : "HTML");
+        logger.info("Providers: {}", llmRouter.getProviderNames());
         logger.info("Starts with gsk_: {}", (apiKey != null && apiKey.startsWith("gsk_")));
         logger.info("==============================");
     }
 
-    /**
-     * System prompt for Groq - defines how AI should analyze logs
-     */
-    private static final String SYSTEM_PROMPT = """
-            You are ProdPulse.AI, an expert production error diagnostic system.
-            You specialize in analyzing error logs from production environments,
-            particularly Railway, Docker, Node.js, MySQL, PostgreSQL, and common web frameworks.
-            
-            Your role:
-            1. Analyze the error log provided
-            2. Identify the root cause
-            3. Provide clear, actionable solutions
-            4. Suggest prevention strategies
-            
-            Format your response as HTML with these sections:
-            
-            <div class="diagnosis">
-                <h3>🔍 What Happened:</h3>
-                <p>Brief explanation of the root cause in simple terms</p>
-                
-                <h3>🔧 How to Fix:</h3>
-                <ul>
-                    <li>Step 1: Specific action</li>
-                    <li>Step 2: Another action</li>
-                    <li>Step 3: Final action</li>
-                </ul>
-                
-                <h3>💡 Prevention Tips:</h3>
-                <ul>
-                    <li>Best practice 1</li>
-                    <li>Best practice 2</li>
-                </ul>
-            </div>
-            
-            Focus on:
-            - Railway deployment issues
-            - Environment variable problems
-            - Database connection errors
-            - Memory/CPU issues (OOM)
-            - Port binding problems
-            - Docker container issues
-            - Common Node.js/Java/Python errors
-            
-            Keep explanations clear and actionable. Avoid jargon when possible.
-            """;
+    // Summaries only need a few bullet points
+    private static final int SUMMARY_MAX_TOKENS = 400;
 
     /**
      * Analyze production error logs using Groq AI
+     * While the circuit breaker is open the fallback is returned without calling Groq
+     *
+     * In structured mode the answer is validated (StructuredDiagnosisParser); an invalid one gets the fallback
+     * The diagnosis of a similar past incident, if one is indexed, goes into the prompt as context
      *
      * @param errorLog The error log text to analyze
-     * @return AI-generated diagnosis in HTML format
+     * @return AI-generated diagnosis in HTML format, or compact JSON in structured mode
+     *         (or the fallback, flagged as such)
+     * @throws AiOverloadedException if the AI concurrency limit is reached
      */
-    public String analyzeLog(String errorLog) {
+    public AIDiagnosis analyzeLog(String errorLog) {
         logger.info("Starting log analysis with Groq AI ({})", modelName);
 
-        try {
-            // Create the full prompt with system instructions and user input
-            String fullPrompt = SYSTEM_PROMPT + "\n\nAnalyze this production error log and provide diagnosis:\n\n"
-                    + errorLog
-                    + "\n\nRemember to format your response as HTML as specified in the system instructions.";
-
-            // Create user message
-            UserMessage userMessage = new UserMessage(fullPrompt);
+        SimilarIncident similar = similarIncidentService.findContext(errorLog).orElse(null);
 
-            // Create chat options for Groq
-            OpenAiChatOptions chatOptions = OpenAiChatOptions.builder()
-                    .model(modelName)
-                    .temperature(temperature)
-                    .maxTokens(maxTokens)
-                    .build();
+        LlmCallGuard.Permit permit;
+        try {
+            permit = callGuard.acquire();
+        } catch (CircuitOpenException e) {
+            logger.warn("Groq circuit breaker is open, skipping the API call");
+            return new AIDiagnosis(generateFallbackResponse(errorLog), true);
+        }
 
-            // Create prompt with options
-            Prompt prompt = new Prompt(List.of(userMessage), chatOptions);
+        ChatResponse response;
+        String diagnosis;
+        try {
+            List<Message> messages = structuredOutput
+                    ? promptBuilder.structuredDiagnosisMessages(errorLog, similar)
+                    : promptBuilder.diagnosisMessages(errorLog, similar);
 
-            // Call Groq API (via OpenAI-compatible endpoint)
+            // Call Groq API (via OpenAI-compatible endpoint) - or whichever provider the router picks
             logger.debug("Calling Groq API with model: {}", modelName);
-            ChatResponse response = chatModel.call(prompt);
+            response = structuredOutput
+                    ? llmRouter.call(messages, structuredMaxTokens, true)
+                    : llmRouter.call(messages, maxTokens);
 
             // For Spring AI 1.1.2: Access the content field directly
             AssistantMessage message = response.getResult().getOutput();
-            String diagnosis = message.getText();
-
-            logger.info("Successfully received diagnosis from Groq AI");
-            return diagnosis;
-
+            diagnosis = message.getText();
         } catch (Exception e) {
+            permit.onError();
             logger.error("Error calling Groq API: {}", e.getMessage(), e);
 
             // Fallback response if AI fails
-            return generateFallbackResponse(errorLog);
+            return new AIDiagnosis(generateFallbackResponse(errorLog), true);
+        }
+        // Reported only once the answer has been read; nothing below counts against the provider
+        permit.onSuccess();
+        metrics.recordTokens(response.getMetadata().getUsage());
+
+        if (structuredOutput) {
+            try {
+                diagnosis = structuredDiagnosisParser.toJson(structuredDiagnosisParser.parse(diagnosis));
+            } catch (InvalidDiagnosisException e) {
+                // The provider answered - a schema violation says nothing about its health
+                logger.warn("Groq returned an invalid structured diagnosis: {}", e.getMessage());
+                metrics.recordInvalidStructuredOutput();
+                return new AIDiagnosis(generateFallbackResponse(errorLog), true);
+            }
+        }
+
+        logger.info("Successfully received diagnosis from Groq AI");
+        return new AIDiagnosis(diagnosis, false);
+    }
+
+    /**
+     * Summarize one part of a large log (map step of large-log analysis)
+     * Errors are NOT replaced by the fallback here - the caller decides what to use instead
+     *
+     * @param logPart Part of the condensed log
+     * @param part Number of this part (1-based)
+     * @param parts Total number of parts
+     * @return Plain-text summary of the errors in this part
+     * @throws CircuitOpenException if the circuit breaker is open
+     * @throws AiOverloadedException if the AI concurrency limit is reached
+     */
+    public String summarizeChunk(String logPart, int part, int parts) {
+        logger.debug("Summarizing log part {}/{} with Groq AI ({})", part, parts, modelName);
+
+        List<Message> messages = promptBuilder.summaryMessages(logPart, part, parts);
+
+        LlmCallGuard.Permit permit = callGuard.acquire();
+        ChatResponse response;
+        try {
+            response = llmRouter.call(messages, SUMMARY_MAX_TOKENS);
+            permit.onSuccess();
+        } catch (RuntimeException e) {
+            permit.onError();
+            throw e;
         }
+        metrics.recordTokens(response.getMetadata().getUsage());
+        return response.getResult().getOutput().getText();
+    }
+
+    /**
+     * Stream a diagnosis from Groq AI as it is generated
+     * Errors are NOT replaced by the fallback here - the caller decides what to send
+     * The circuit breaker and concurrency limit are checked on subscribe; refusals arrive as the error signal
+     * HTML mode only - a structured answer is validated as a whole, so it is not streamed (see isStructuredOutput)
+     *
+     * @param errorLog The error log text to analyze
+     * @return HTML chunks of the diagnosis, in order
+     */
+    public Flux<String> streamLog(String errorLog) {
+        logger.info("Starting streaming log analysis with Groq AI ({})", modelName);
+
+        return Flux.defer(() -> {
+            SimilarIncident similar = similarIncidentService.findContext(errorLog).orElse(null);
+            LlmCallGuard.Permit permit = callGuard.acquire();
+            return Flux.defer(() -> llmRouter.stream(promptBuilder.diagnosisMessages(errorLog, similar), maxTokens))
+                    .doOnComplete(permit::onSuccess)
+                    .doOnError(error -> permit.onError())
+                    .doOnCancel(permit::release);
+        })
+                .filter(response -> response.getResult() != null && response.getResult().getOutput() != null)
+                // The last chunk carries only the finish reason: no text
+                .mapNotNull(response -> response.getResult().getOutput().getText())
+                .filter(text -> !text.isEmpty());
+    }
+
+    /**
+     * Whether diagnoses are requested and stored as structured JSON (app.ai.output.structured)
+     */
+    public boolean isStructuredOutput() {
+        return structuredOutput;
     }
 
     /**
@@ -152,28 +227,7 @@ public class AIService {
      * @return Severity level: "critical", "warning", or "info"
      */
     public String determineSeverity(String errorLog) {
-        String logLower = errorLog.toLowerCase();
-
-        // Critical errors
-        if (logLower.contains("fatal") ||
-                logLower.contains("outofmemoryerror") ||
-                logLower.contains("cannot connect") ||
-                logLower.contains("connection refused") ||
-                logLower.contains("segmentation fault") ||
-                logLower.contains("core dumped")) {
-            return "critical";
-        }
-
-        // Warning level
-        if (logLower.contains("error") ||
-                logLower.contains("exception") ||
-                logLower.contains("failed") ||
-                logLower.contains("timeout")) {
-            return "warning";
-        }
-
-        // Info level
-        return "info";
+        return logScanner.scan(errorLog).getSeverity();
     }
 
     /**
@@ -183,33 +237,7 @@ public class AIService {
      * @return Brief title for the error
      */
     public String extractTitle(String errorLog) {
-        String[] lines = errorLog.split("\n");
-
-        // Find first line with "Error" or "Exception"
-        for (String line : lines) {
-            if (line.toLowerCase().contains("error") ||
-                    line.toLowerCase().contains("exception")) {
-                // Clean up and limit length
-                String title = line.trim();
-                if (title.length() > 100) {
-                    title = title.substring(0, 97) + "...";
-                }
-                return title;
-            }
-        }
-
-        // Fallback: use first non-empty line
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty()) {
-                if (trimmed.length() > 100) {
-                    trimmed = trimmed.substring(0, 97) + "...";
-                }
-                return trimmed;
-            }
-        }
-
-        return "Production Error Analysis";
+        return logScanner.scan(errorLog).getTitle(errorLog);
     }
 
     /**
@@ -218,7 +246,7 @@ public class AIService {
      * @param errorLog The error log text
      * @return Basic HTML diagnosis
      */
-    private String generateFallbackResponse(String errorLog) {
+    public String generateFallbackResponse(String errorLog) {
         logger.warn("Generating fallback response (AI service unavailable)");
 
         return """
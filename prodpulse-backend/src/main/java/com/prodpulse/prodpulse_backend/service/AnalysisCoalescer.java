@@ -0,0 +1,103 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight AI calls, keyed by normalized log fingerprint
+ *
+ * During an outage many users paste the same error within seconds. The first request for a
+ * fingerprint calls the AI on its own thread; requests for the same fingerprint that arrive
+ * while that call is in flight wait for its CompletableFuture instead of calling again.
+ * Callers keep their own rate-limit slot and history row - only the AI call is shared.
+ *
+ * A successful diagnosis is put in the DiagnosisCache before the flight ends, so a request
+ * arriving right after it finds the cache instead of starting a new call.
+ * Exceptions (e.g. AiOverloadedException) and Errors are rethrown to every waiting caller.
+ */
+@Component
+public class AnalysisCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCoalescer.class);
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    private DiagnosisCache diagnosisCache;
+
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    @Value("${app.coalescing.enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentMap<String, CompletableFuture<AIDiagnosis>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Diagnose a log, sharing the AI call with concurrent requests for the same fingerprint
+     *
+     * @param fingerprint Normalized log fingerprint (LogNormalizer)
+     * @param logs The error log text to analyze
+     * @return AI diagnosis (or the fallback, flagged as such)
+     */
+    public AIDiagnosis analyze(String fingerprint, String logs) {
+        if (!enabled) {
+            return aiService.analyzeLog(logs);
+        }
+
+        CompletableFuture<AIDiagnosis> flight = new CompletableFuture<>();
+        CompletableFuture<AIDiagnosis> existing = inFlight.putIfAbsent(fingerprint, flight);
+        if (existing != null) {
+            metrics.recordCoalesced();
+            logger.debug("Joining in-flight analysis for fingerprint {}", fingerprint);
+            return await(existing);
+        }
+
+        try {
+            AIDiagnosis diagnosis = aiService.analyzeLog(logs);
+            if (!diagnosis.isFallback()) {
+                diagnosisCache.put(fingerprint, diagnosis.getContent());
+            }
+            flight.complete(diagnosis);
+            return diagnosis;
+        } catch (Throwable e) {
+            // Any throwable, not just RuntimeException: waiters must never be left on join()
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fingerprint, flight);
+        }
+    }
+
+    /**
+     * Analyses currently in flight (distinct fingerprints)
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private static AIDiagnosis await(CompletableFuture<AIDiagnosis> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.exception.InvalidCallbackException;
+import com.prodpulse.prodpulse_backend.exception.InvalidLogException;
+import com.prodpulse.prodpulse_backend.exception.JobNotFoundException;
+import com.prodpulse.prodpulse_backend.exception.JobQueueFullException;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.JobRequest;
+import com.prodpulse.prodpulse_backend.model.dto.JobResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisJob;
+import com.prodpulse.prodpulse_backend.model.entity.JobStatus;
+import com.prodpulse.prodpulse_backend.repository.AnalysisJobRepository;
+import com.prodpulse.prodpulse_backend.service.diagnosis.DiagnosisRenderer;
+import com.prodpulse.prodpulse_backend.service.persistence.AnalysisWriter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Asynchronous analysis jobs (submit-and-poll)
+ * Jobs are stored in analysis_job and run on the bounded jobExecutor through the normal
+ * LogAnalysisService pipeline (validation, cache, rate limit, AI, persistence)
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private AnalysisJobRepository analysisJobRepository;
+
+    @Autowired
+    private AnalysisWriter analysisWriter;
+
+    @Autowired
+    private LogAnalysisService logAnalysisService;
+
+    @Autowired
+    private DiagnosisRenderer diagnosisRenderer;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ThreadPoolExecutor jobExecutor;
+
+    @Value("${app.jobs.callback-timeout-ms:10000}")
+    private long callbackTimeoutMs;
+
+    /**
+     * Hosts job callbacks may be sent to; empty disables callbacks
+     * An allowlist rather than a blocklist: the server must not POST to internal addresses for anyone
+     */
+    @Value("${app.jobs.callback-allowed-hosts:}")
+    private List<String> callbackAllowedHosts;
+
+    private RestClient callbackClient;
+
+    @PostConstruct
+    public void init() {
+        // Redirects are not followed, so an allowed host cannot bounce the callback elsewhere
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(callbackTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(callbackTimeoutMs));
+
+        callbackClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        callbackAllowedHosts = callbackAllowedHosts.stream().map(String::trim).filter(host -> !host.isEmpty()).toList();
+    }
+
+    /**
+     * Queue a log for analysis and return right away
+     *
+     * @param jobRequest Request containing error logs and an optional callback URL
+     * @param ipAddress User's IP address (rate limit is charged when the job runs)
+     * @return The queued job
+     * @throws InvalidLogException if log input is invalid
+     * @throws InvalidCallbackException if the callback URL's host is not allowed
+     * @throws JobQueueFullException if the queue has no room
+     */
+    public JobResponse submitJob(JobRequest jobRequest, String ipAddress) {
+        // 1. Validate input now, so a bad log is a 400 rather than a failed job
+        logAnalysisService.validateLogInput(jobRequest.getLogs());
+        if (jobRequest.getCallbackUrl() != null && !jobRequest.getCallbackUrl().isBlank()) {
+            validateCallbackUrl(jobRequest.getCallbackUrl());
+        }
+
+        // 2. Reject before writing anything if the queue is already full
+        if (jobExecutor.getQueue().remainingCapacity() == 0) {
+            throw queueFull();
+        }
+
+        // 3. Persist, then hand to a worker
+        AnalysisJob job = analysisJobRepository.save(AnalysisJob.builder()
+                .id(UUID.randomUUID().toString())
+                .ipAddress(ipAddress)
+                .logInput(jobRequest.getLogs())
+                .callbackUrl(jobRequest.getCallbackUrl())
+                .status(JobStatus.QUEUED)
+                .build());
+
+        try {
+            enqueue(job.getId());
+        } catch (RejectedExecutionException e) {
+            // Lost the race for the last slot
+            analysisJobRepository.deleteById(job.getId());
+            throw queueFull();
+        }
+
+        logger.info("Queued job {} for IP: {}", job.getId(), ipAddress);
+        return toResponse(job);
+    }
+
+    /**
+     * Get the current state of a job
+     *
+     * @param jobId Job ID returned on submit
+     * @return Job state, with the diagnosis once completed
+     * @throws JobNotFoundException if the ID is unknown
+     */
+    public JobResponse getJob(String jobId) {
+        AnalysisJob job = analysisJobRepository.findById(jobId)
+                .orElseThrow(() -> new JobNotFoundException(jobId));
+        return toResponse(job);
+    }
+
+    /**
+     * Re-queue jobs that were queued or running when the application stopped
+     * Jobs that no longer fit in the queue are marked FAILED
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingJobs() {
+        List<AnalysisJob> pending = analysisJobRepository
+                .findByStatusInOrderByCreatedAtAsc(List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int resumed = 0;
+        for (AnalysisJob job : pending) {
+            job.setStatus(JobStatus.QUEUED);
+            analysisJobRepository.save(job);
+            try {
+                enqueue(job.getId());
+                resumed++;
+            } catch (RejectedExecutionException e) {
+                job.setStatus(JobStatus.FAILED);
+                job.setError("Job queue was full when resuming after a restart");
+                analysisJobRepository.save(job);
+            }
+        }
+
+        logger.info("Resumed {} of {} pending jobs", resumed, pending.size());
+    }
+
+    private void enqueue(String jobId) {
+        jobExecutor.execute(() -> runJob(jobId));
+    }
+
+    /**
+     * Worker: run one job through the normal analysis pipeline and record the outcome
+     */
+    private void runJob(String jobId) {
+        AnalysisJob job = analysisJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() == JobStatus.COMPLETED || job.getStatus() == JobStatus.FAILED) {
+            return;
+        }
+
+        job.setStatus(JobStatus.RUNNING);
+        job = analysisJobRepository.save(job);
+
+        DiagnosisResponse diagnosis = null;
+        try {
+            diagnosis = logAnalysisService.analyzeLogs(new LogRequest(job.getLogInput()), job.getIpAddress());
+            job.setStatus(JobStatus.COMPLETED);
+            job.setAnalysisId(diagnosis.getAnalysisId());
+        } catch (RuntimeException e) {
+            logger.warn("Job {} failed: {}", jobId, e.getMessage());
+            job.setStatus(JobStatus.FAILED);
+            job.setError(truncate(e.getMessage()));
+        }
+        job = analysisJobRepository.save(job);
+
+        logger.info("Job {} finished with status {}", jobId, job.getStatus());
+
+        if (job.getCallbackUrl() != null && !job.getCallbackUrl().isBlank()) {
+            sendCallback(job, diagnosis);
+        }
+    }
+
+    /**
+     * Accept a callback URL only if its host is in app.jobs.callback-allowed-hosts
+     *
+     * @param callbackUrl http(s) URL (format already checked on the request)
+     * @throws InvalidCallbackException if callbacks are disabled or the host is not allowed
+     */
+    private void validateCallbackUrl(String callbackUrl) {
+        if (callbackAllowedHosts.isEmpty()) {
+            throw new InvalidCallbackException("Callbacks are disabled on this server");
+        }
+        if (!isCallbackAllowed(callbackUrl)) {
+            throw new InvalidCallbackException("Callback host is not allowed: " + callbackUrl);
+        }
+    }
+
+    private boolean isCallbackAllowed(String callbackUrl) {
+        String host;
+        try {
+            host = new URI(callbackUrl).getHost();
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        return host != null && callbackAllowedHosts.stream().anyMatch(host::equalsIgnoreCase);
+    }
+
+    /**
+     * POST the finished job to its callback URL (best effort, no retries)
+     * The diagnosis is sent in app.diagnosis.default-format - a callback cannot ask for one
+     */
+    private void sendCallback(AnalysisJob job, DiagnosisResponse diagnosis) {
+        // Jobs queued before the allowlist changed are checked again
+        if (!isCallbackAllowed(job.getCallbackUrl())) {
+            logger.warn("Skipped callback for job {}: host not allowed", job.getId());
+            return;
+        }
+        diagnosisRenderer.applyFormat(diagnosis, null);
+        try {
+            callbackClient.post()
+                    .uri(job.getCallbackUrl())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(toResponse(job, diagnosis))
+                    .retrieve()
+                    .toBodilessEntity();
+            logger.debug("Delivered callback for job {}", job.getId());
+        } catch (RestClientException e) {
+            logger.warn("Callback for job {} to {} failed: {}", job.getId(), job.getCallbackUrl(), e.getMessage());
+        }
+    }
+
+    private JobResponse toResponse(AnalysisJob job) {
+        DiagnosisResponse diagnosis = null;
+        if (job.getStatus() == JobStatus.COMPLETED && job.getAnalysisId() != null) {
+            // Also finds an analysis still queued by write-behind persistence
+            diagnosis = analysisWriter.findById(job.getAnalysisId())
+                    .map(logAnalysisService::buildResponse)
+                    .orElse(null);
+        }
+        return toResponse(job, diagnosis);
+    }
+
+    private JobResponse toResponse(AnalysisJob job, DiagnosisResponse diagnosis) {
+        return JobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .diagnosis(diagnosis)
+                .error(job.getError())
+                .submittedAt(job.getCreatedAt() != null
+                        ? job.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        : null)
+                .build();
+    }
+
+    private JobQueueFullException queueFull() {
+        return new JobQueueFullException(
+                String.format("Job queue is full (%d jobs waiting)", jobExecutor.getQueue().size()));
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return "Analysis failed";
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH - 3) + "..." : message;
+    }
+}
@@ -0,0 +1,199 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.model.projection.StoredDiagnosis;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of AI diagnoses, keyed by normalized log fingerprint
+ * Size- and TTL-based eviction, with hit/miss counters
+ * Fallback responses are never stored
+ *
+ * Backed by the log_fingerprint index on analysis_history: an in-memory miss falls
+ * through to one indexed query, and the most frequent fingerprints are preloaded at
+ * startup so a fresh deploy does not start cold. Fingerprints the database has no
+ * diagnosis for are remembered for negative-ttl-seconds, so repeated misses cost no query.
+ */
+@Component
+public class DiagnosisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosisCache.class);
+
+    /**
+     * Stored diagnoses that may be served again
+     */
+    private static final List<DiagnosisSource> REUSABLE_SOURCES = List.of(DiagnosisSource.AI, DiagnosisSource.CACHE);
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.diagnosis-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.diagnosis-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.diagnosis-cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.diagnosis-cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.diagnosis-cache.warmup-days:7}")
+    private int warmupDays;
+
+    @Value("${app.diagnosis-cache.warmup-limit:500}")
+    private int warmupLimit;
+
+    private Cache<String, String> cache;
+
+    /**
+     * Fingerprints recently looked up in the database without a result
+     */
+    private Cache<String, Boolean> knownMisses;
+
+    /**
+     * Time source for expiry (Ticker.systemTicker() outside tests)
+     */
+    private Ticker ticker = Ticker.systemTicker();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(enabled ? maxSize : 0)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        knownMisses = Caffeine.newBuilder()
+                .maximumSize(enabled && negativeTtlSeconds > 0 ? maxSize : 0)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(negativeTtlSeconds, 0)))
+                .ticker(ticker)
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size with cache="diagnosis"
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "diagnosis");
+
+        logger.info("Diagnosis cache {} (max size: {}, TTL: {} min)",
+                enabled ? "enabled" : "disabled", maxSize, ttlMinutes);
+    }
+
+    /**
+     * Preload the most frequent fingerprints of the last warmup-days days
+     * Bounded by warmup-limit (one indexed query per fingerprint)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || warmupLimit <= 0) {
+            return;
+        }
+
+        List<String> fingerprints = analysisHistoryRepository.findMostFrequentFingerprints(
+                REUSABLE_SOURCES, LocalDateTime.now().minusDays(warmupDays), PageRequest.of(0, warmupLimit));
+
+        int loaded = 0;
+        for (String fingerprint : fingerprints) {
+            String diagnosis = loadFromDatabase(fingerprint);
+            if (diagnosis != null) {
+                cache.put(fingerprint, diagnosis);
+                loaded++;
+            }
+        }
+
+        logger.info("Diagnosis cache warmed up with {} of the most frequent errors from the last {} days",
+                loaded, warmupDays);
+    }
+
+    /**
+     * Look up a diagnosis, falling back to the most recent stored one for the fingerprint
+     *
+     * @param fingerprint Normalized log fingerprint
+     * @return Cached diagnosis, or null on a miss
+     */
+    public String get(String fingerprint) {
+        if (!enabled) {
+            return null;
+        }
+
+        String diagnosis = cache.getIfPresent(fingerprint);
+        if (diagnosis == null && knownMisses.getIfPresent(fingerprint) == null) {
+            // Loaded outside the cache's compute lock: a JDBC call inside it would pin virtual threads
+            diagnosis = loadFromDatabase(fingerprint);
+            if (diagnosis != null) {
+                cache.put(fingerprint, diagnosis);
+            } else {
+                knownMisses.put(fingerprint, Boolean.TRUE);
+            }
+        }
+        return diagnosis;
+    }
+
+    /**
+     * Store a diagnosis
+     *
+     * @param fingerprint Normalized log fingerprint
+     * @param diagnosis AI diagnosis (never a fallback response)
+     */
+    public void put(String fingerprint, String diagnosis) {
+        if (enabled) {
+            cache.put(fingerprint, diagnosis);
+            knownMisses.invalidate(fingerprint);
+        }
+    }
+
+    /**
+     * Most recent reusable diagnosis for a fingerprint, no older than the cache TTL
+     *
+     * @param fingerprint Normalized log fingerprint
+     * @return Stored diagnosis, or null if none
+     */
+    private String loadFromDatabase(String fingerprint) {
+        return analysisHistoryRepository
+                .findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(
+                        fingerprint, REUSABLE_SOURCES, LocalDateTime.now().minusMinutes(ttlMinutes))
+                .map(StoredDiagnosis::getDiagnosis)
+                .orElse(null);
+    }
+
+    /**
+     * Cache statistics (for the /api/cache-stats endpoint)
+     *
+     * @return Hit/miss counters, hit rate, evictions and current size
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,172 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.exception.HistoryNotFoundException;
+import com.prodpulse.prodpulse_backend.exception.InvalidCursorException;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryItem;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryPage;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.model.projection.HistorySummary;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.diagnosis.DiagnosisRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Analysis history of a client (keyed by IP, like the rate limit)
+ * Pages are seeked by (created_at, id) and read through a projection without the TEXT
+ * columns; log and diagnosis are only loaded when detail is asked for
+ * Structured diagnoses are returned rendered, so history content is always HTML
+ *
+ * Read-only transactions: with app.datasource.replica.url set, history is read from the replica
+ * (an analysis made a moment ago may be missing until the replica catches up), and full records
+ * come from the second-level cache when they are in it
+ */
+@Service
+public class HistoryService {
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Autowired
+    private DiagnosisRenderer diagnosisRenderer;
+
+    @Value("${app.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.history.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Get one page of history, newest first
+     *
+     * @param ipAddress User's IP address
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Page size (null = default, capped at app.history.max-page-size)
+     * @param detail Include log input and diagnosis
+     * @return The page and the cursor of the next one
+     * @throws InvalidCursorException if the cursor cannot be decoded
+     */
+    @Transactional(readOnly = true)
+    public HistoryPage getHistory(String ipAddress, String cursor, Integer limit, boolean detail) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        // One extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<HistorySummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = analysisHistoryRepository.findByIpAddressOrderByCreatedAtDescIdDesc(ipAddress, page);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = analysisHistoryRepository.findHistoryPageBefore(ipAddress, position.createdAt, position.id, page);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<Long, AnalysisHistory> details = detail && !rows.isEmpty()
+                ? analysisHistoryRepository.findAllCachedById(rows.stream().map(HistorySummary::getId).toList()).stream()
+                        .collect(Collectors.toMap(AnalysisHistory::getId, Function.identity()))
+                : Map.of();
+
+        List<HistoryItem> items = rows.stream()
+                .map(row -> toItem(row, details.get(row.getId())))
+                .toList();
+
+        HistorySummary last = hasMore ? rows.get(rows.size() - 1) : null;
+        return HistoryPage.builder()
+                .items(items)
+                .nextCursor(last != null ? encodeCursor(last.getCreatedAt(), last.getId()) : null)
+                .build();
+    }
+
+    /**
+     * Get one analysis with log input and diagnosis
+     *
+     * @param ipAddress User's IP address
+     * @param analysisId Analysis ID
+     * @return The full record
+     * @throws HistoryNotFoundException if it does not exist or belongs to another IP
+     */
+    @Transactional(readOnly = true)
+    public HistoryItem getAnalysis(String ipAddress, Long analysisId) {
+        // By id (cacheable), then checked - other clients' analyses are not visible
+        AnalysisHistory history = analysisHistoryRepository.findById(analysisId)
+                .filter(found -> found.getIpAddress().equals(ipAddress))
+                .orElseThrow(() -> new HistoryNotFoundException(analysisId));
+
+        return HistoryItem.builder()
+                .analysisId(history.getId())
+                .severity(history.getSeverity())
+                .title(history.getTitle())
+                .source(history.getSource() != null ? history.getSource().name() : null)
+                .timestamp(format(history.getCreatedAt()))
+                .logInput(history.getLogInput())
+                .content(diagnosisRenderer.toHtml(history.getDiagnosis()))
+                .build();
+    }
+
+    private HistoryItem toItem(HistorySummary row, AnalysisHistory detail) {
+        return HistoryItem.builder()
+                .analysisId(row.getId())
+                .severity(row.getSeverity())
+                .title(row.getTitle())
+                .source(row.getSource() != null ? row.getSource().name() : null)
+                .timestamp(format(row.getCreatedAt()))
+                .logInput(detail != null ? detail.getLogInput() : null)
+                .content(detail != null ? diagnosisRenderer.toHtml(detail.getDiagnosis()) : null)
+                .build();
+    }
+
+    private String format(LocalDateTime time) {
+        return time != null ? time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+    }
+
+    /**
+     * Opaque cursor: Base64 of "createdAt|id" of the last row returned
+     */
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String position = createdAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new Cursor(
+                    LocalDateTime.parse(position.substring(0, separator), DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    /**
+     * Position of the last row of a page
+     */
+    private static class Cursor {
+
+        private final LocalDateTime createdAt;
+        private final long id;
+
+        private Cursor(LocalDateTime createdAt, long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
@@ -2,19 +2,58 @@ package com.prodpulse.prodpulse_backend.service;
 
 import com.prodpulse.prodpulse_backend.exception.InvalidLogException;
 import com.prodpulse.prodpulse_backend.exception.RateLimitException;
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.BatchDiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.BatchItemResult;
+import com.prodpulse.prodpulse_backend.model.dto.BatchLogRequest;
 import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
 import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.dto.StructuredDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.UploadDiagnosisResponse;
 import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
-import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.service.diagnosis.DiagnosisRenderer;
+import com.prodpulse.prodpulse_backend.service.diagnosis.StructuredDiagnosisParser;
+import com.prodpulse.prodpulse_backend.service.ingest.LargeLogAnalyzer;
+import com.prodpulse.prodpulse_backend.service.ingest.LogReducer;
+import com.prodpulse.prodpulse_backend.service.ingest.LogReduction;
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import com.prodpulse.prodpulse_backend.service.persistence.AnalysisWriter;
+import com.prodpulse.prodpulse_backend.service.ratelimit.RateLimiter;
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorRule;
+import com.prodpulse.prodpulse_backend.service.scan.LogScan;
+import com.prodpulse.prodpulse_backend.service.scan.LogScanner;
+import com.prodpulse.prodpulse_backend.service.similar.SimilarIncident;
+import com.prodpulse.prodpulse_backend.service.similar.SimilarIncidentService;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main service for log analysis
@@ -25,11 +64,60 @@ public class LogAnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(LogAnalysisService.class);
 
+    private static final String ITEM_SUCCESS = "success";
+    private static final String ITEM_FAILED = "failed";
+
+    // Same limit as LogRequest's @Size
+    private static final int MAX_LOG_LENGTH = 2000;
+
+    // Condensed uploads are stored up to this length (TEXT column holds 64 KB)
+    private static final int MAX_STORED_UPLOAD_LENGTH = 16000;
+
     @Autowired
     private AIService aiService;
 
     @Autowired
-    private AnalysisHistoryRepository analysisHistoryRepository;
+    private AnalysisCoalescer analysisCoalescer;
+
+    @Autowired
+    private AnalysisWriter analysisWriter;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private LogNormalizer logNormalizer;
+
+    @Autowired
+    private DiagnosisCache diagnosisCache;
+
+    @Autowired
+    private KnownErrorClassifier knownErrorClassifier;
+
+    @Autowired
+    private LogScanner logScanner;
+
+    @Autowired
+    private LogReducer logReducer;
+
+    @Autowired
+    private LargeLogAnalyzer largeLogAnalyzer;
+
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    @Autowired
+    private StructuredDiagnosisParser structuredDiagnosisParser;
+
+    @Autowired
+    private DiagnosisRenderer diagnosisRenderer;
+
+    @Autowired
+    private SimilarIncidentService similarIncidentService;
+
+    @Autowired
+    @Qualifier("aiExecutor")
+    private ExecutorService aiExecutor;
 
     // Rate limit configuration from application.properties
     @Value("${app.rate-limit.max-requests:10}")
@@ -38,111 +126,754 @@ public class LogAnalysisService {
     @Value("${app.rate-limit.window-hours:24}")
     private int windowHours;
 
+    // Max concurrent AI calls per batch
+    @Value("${app.batch.parallelism:4}")
+    private int batchParallelism;
+
     /**
      * Analyze production error logs
      *
+     * Deliberately NOT @Transactional: the AI call takes seconds, and a surrounding
+     * transaction would pin a pooled DB connection for its whole duration.
+     * Each database access (rate-limit check in database mode, persist) runs in its own short transaction.
+     *
      * @param logRequest Request containing error logs
      * @param ipAddress User's IP address (for rate limiting)
      * @return Diagnosis response from AI
      * @throws RateLimitException if user exceeded rate limit
      * @throws InvalidLogException if log input is invalid
      */
-    @Transactional
     public DiagnosisResponse analyzeLogs(LogRequest logRequest, String ipAddress) {
         logger.info("Analyzing logs from IP: {}", ipAddress);
 
+        // 1. Validate input (the scan also yields severity, title and known-error rule)
+        LogScan scan = metrics.time(AnalysisMetrics.STAGE_VALIDATION, () -> validateLogInput(logRequest.getLogs()));
+
+        // 2. Textbook errors get a canned diagnosis, repeats and near-repeats are answered without an AI call
+        String fingerprint = logNormalizer.fingerprint(logRequest.getLogs());
+        Optional<KnownErrorRule> knownError = knownErrorClassifier.classify(scan);
+        if (knownError.isPresent()) {
+            return serveFromRule(logRequest.getLogs(), ipAddress, fingerprint, knownError.get());
+        }
+        String cachedDiagnosis = diagnosisCache.get(fingerprint);
+        if (cachedDiagnosis != null) {
+            return serveFromCache(logRequest.getLogs(), scan, ipAddress, fingerprint, cachedDiagnosis);
+        }
+        Optional<SimilarIncident> similar = similarIncidentService.findDiagnosis(logRequest.getLogs());
+        if (similar.isPresent()) {
+            return serveFromSimilar(logRequest.getLogs(), scan, ipAddress, fingerprint, similar.get().getDiagnosis());
+        }
+
+        // 3. Check rate limit and reserve a slot
+        metrics.time(AnalysisMetrics.STAGE_RATE_LIMIT, () -> checkRateLimit(ipAddress));
+
+        AnalysisHistory history;
+        AIDiagnosis diagnosis;
+        String severity;
+        String title;
+        try {
+            // 4. Analyze with AI (no transaction, no connection held) - shared with identical requests in flight
+            diagnosis = metrics.time(AnalysisMetrics.STAGE_LLM,
+                    () -> analysisCoalescer.analyze(fingerprint, logRequest.getLogs()));
+            Timer.Sample extraction = metrics.start();
+            severity = scan.getSeverity();
+            title = scan.getTitle(logRequest.getLogs());
+            metrics.stop(extraction, AnalysisMetrics.STAGE_EXTRACTION);
+
+            // 5. Save to database (short write transaction)
+            DiagnosisSource source = diagnosis.isFallback() ? DiagnosisSource.FALLBACK : DiagnosisSource.AI;
+            history = saveAnalysis(ipAddress, logRequest.getLogs(), fingerprint,
+                    diagnosis.getContent(), severity, title, source);
+        } catch (RuntimeException e) {
+            rateLimiter.release(ipAddress);
+            throw e;
+        }
+        rateLimiter.commit(ipAddress);
+
+        if (!diagnosis.isFallback()) {
+            diagnosisCache.put(fingerprint, diagnosis.getContent());
+            similarIncidentService.add(logRequest.getLogs(), fingerprint);
+        }
+
+        // 6. Build response
+        DiagnosisResponse response = buildResponse(history);
+
+        logger.info("Analysis completed successfully. ID: {}", history.getId());
+        return response;
+    }
+
+    /**
+     * Analyze production error logs, streaming the diagnosis as Server-Sent Events
+     *
+     * Events: "meta" (severity, title) right away, "chunk" ({"text": ...}) as the AI
+     * generates, then "done" with the full DiagnosisResponse once it is persisted.
+     * Validation and rate-limit errors are thrown before anything is sent,
+     * so they reach the client as normal error responses.
+     * In structured mode the diagnosis arrives as one chunk once it has been validated.
+     *
+     * @param logRequest Request containing error logs
+     * @param ipAddress User's IP address (for rate limiting)
+     * @param emitter SSE emitter to write events to
+     * @throws RateLimitException if user exceeded rate limit
+     * @throws InvalidLogException if log input is invalid
+     */
+    public void streamAnalysis(LogRequest logRequest, String ipAddress, SseEmitter emitter) {
+        logger.info("Streaming log analysis for IP: {}", ipAddress);
+        String logs = logRequest.getLogs();
+
+        // Structured output is only usable once the whole answer is validated: analyze as usual,
+        // so the stored and cached diagnosis is JSON, then send it rendered as a single chunk
+        if (aiService.isStructuredOutput()) {
+            sendComplete(emitter, analyzeLogs(logRequest, ipAddress));
+            return;
+        }
+
         // 1. Validate input
-        validateLogInput(logRequest.getLogs());
+        LogScan scan = validateLogInput(logs);
+
+        // 2. Known error, cache hit or near-identical incident: send the whole diagnosis as a single chunk
+        String fingerprint = logNormalizer.fingerprint(logs);
+        Optional<KnownErrorRule> knownError = knownErrorClassifier.classify(scan);
+        if (knownError.isPresent()) {
+            sendComplete(emitter, serveFromRule(logs, ipAddress, fingerprint, knownError.get()));
+            return;
+        }
+        String cachedDiagnosis = diagnosisCache.get(fingerprint);
+        if (cachedDiagnosis != null) {
+            sendComplete(emitter, serveFromCache(logs, scan, ipAddress, fingerprint, cachedDiagnosis));
+            return;
+        }
+        Optional<SimilarIncident> similar = similarIncidentService.findDiagnosis(logs);
+        if (similar.isPresent()) {
+            sendComplete(emitter, serveFromSimilar(logs, scan, ipAddress, fingerprint, similar.get().getDiagnosis()));
+            return;
+        }
 
-        // 2. Check rate limit
+        // 3. Check rate limit and reserve a slot
         checkRateLimit(ipAddress);
 
-        // 3. Analyze with AI
-        String diagnosis = aiService.analyzeLog(logRequest.getLogs());
-        String severity = aiService.determineSeverity(logRequest.getLogs());
-        String title = aiService.extractTitle(logRequest.getLogs());
+        String severity = scan.getSeverity();
+        String title = scan.getTitle(logs);
+        StringBuilder assembled = new StringBuilder();
+        // Set once the reservation is committed or released - whichever of finishing, failing,
+        // timing out or the client disconnecting comes first
+        AtomicBoolean settled = new AtomicBoolean();
+
+        try {
+            sendEvent(emitter, "meta", Map.of("severity", severity, "title", title));
+        } catch (UncheckedIOException e) {
+            releaseStream(settled, ipAddress);
+            return;
+        }
+
+        // 4. Relay chunks as they arrive, persist once the stream completes
+        Disposable subscription = aiService.streamLog(logs).subscribe(
+                chunk -> {
+                    assembled.append(chunk);
+                    sendEvent(emitter, "chunk", Map.of("text", chunk));
+                },
+                error -> {
+                    if (error instanceof UncheckedIOException) {
+                        // Client went away - nothing to deliver, give the slot back
+                        logger.info("Client disconnected during streaming analysis (IP: {})", ipAddress);
+                        releaseStream(settled, ipAddress);
+                        return;
+                    }
+                    logger.error("Error streaming from Groq API: {}", error.getMessage(), error);
+                    finishStream(emitter, settled, ipAddress, logs, fingerprint,
+                            new AIDiagnosis(aiService.generateFallbackResponse(logs), true), severity, title);
+                },
+                () -> finishStream(emitter, settled, ipAddress, logs, fingerprint,
+                        new AIDiagnosis(assembled.toString(), false), severity, title));
+
+        // Disposing the subscription calls neither callback above, so the slot is given back here
+        emitter.onTimeout(() -> {
+            logger.info("Streaming analysis timed out (IP: {})", ipAddress);
+            subscription.dispose();
+            releaseStream(settled, ipAddress);
+        });
+        emitter.onError(error -> {
+            subscription.dispose();
+            releaseStream(settled, ipAddress);
+        });
+        emitter.onCompletion(() -> releaseStream(settled, ipAddress));
+    }
+
+    /**
+     * Give back a streamed analysis' reservation, unless it was already committed or released
+     */
+    private void releaseStream(AtomicBoolean settled, String ipAddress) {
+        if (settled.compareAndSet(false, true)) {
+            rateLimiter.release(ipAddress);
+        }
+    }
+
+    /**
+     * Analyze a batch of error logs
+     *
+     * Logs with the same fingerprint are analyzed once; later copies reuse the first result.
+     * Unique logs that match no known-error rule and miss the cache go to the AI in parallel
+     * (at most app.batch.parallelism at a time), and all results are persisted with a single batched insert.
+     * A log that fails validation, the rate limit or the AI call fails only its own item.
+     *
+     * @param batchRequest Request containing the error logs
+     * @param ipAddress User's IP address (for rate limiting)
+     * @return One result per submitted log, in order
+     */
+    public BatchDiagnosisResponse analyzeBatch(BatchLogRequest batchRequest, String ipAddress) {
+        List<String> logs = batchRequest.getLogs();
+        logger.info("Analyzing batch of {} logs from IP: {}", logs.size(), ipAddress);
+
+        BatchItemResult[] results = new BatchItemResult[logs.size()];
+        Map<String, BatchEntry> entries = new LinkedHashMap<>();
+        Map<Integer, BatchEntry> duplicates = new LinkedHashMap<>();
+
+        // 1. Validate each log and group identical fingerprints
+        for (int i = 0; i < logs.size(); i++) {
+            String log = logs.get(i);
+            LogScan scan;
+            try {
+                scan = validateBatchItem(log);
+            } catch (InvalidLogException e) {
+                results[i] = failedItem(i, e.getMessage());
+                continue;
+            }
+
+            String fingerprint = logNormalizer.fingerprint(log);
+            BatchEntry first = entries.get(fingerprint);
+            if (first != null) {
+                duplicates.put(i, first);
+            } else {
+                entries.put(fingerprint, new BatchEntry(i, log, fingerprint, scan));
+            }
+        }
+
+        // 2. Serve from rules or cache, or reserve a rate-limit slot and start the AI call
+        Semaphore permits = new Semaphore(batchParallelism);
+        for (BatchEntry entry : entries.values()) {
+            Optional<KnownErrorRule> knownError = knownErrorClassifier.classify(entry.scan);
+            if (knownError.isPresent()) {
+                if (rateLimiter.tryAcquireCached(ipAddress)) {
+                    entry.rule = knownError.get();
+                    entry.diagnosis = CompletableFuture.completedFuture(new AIDiagnosis(entry.rule.getDiagnosis(), false));
+                    entry.source = DiagnosisSource.RULE;
+                } else {
+                    entry.error = rateLimitRejection();
+                }
+                continue;
+            }
+
+            String cachedDiagnosis = diagnosisCache.get(entry.fingerprint);
+            if (cachedDiagnosis != null) {
+                if (rateLimiter.tryAcquireCached(ipAddress)) {
+                    entry.diagnosis = CompletableFuture.completedFuture(new AIDiagnosis(cachedDiagnosis, false));
+                    entry.source = DiagnosisSource.CACHE;
+                } else {
+                    entry.error = rateLimitRejection();
+                }
+                continue;
+            }
+
+            if (!rateLimiter.tryAcquire(ipAddress)) {
+                entry.error = rateLimitRejection();
+                continue;
+            }
+            entry.reserved = true;
+
+            // A near-identical past incident answers without the AI, but costs a full request
+            Optional<SimilarIncident> similar = similarIncidentService.findDiagnosis(entry.logs);
+            if (similar.isPresent()) {
+                entry.diagnosis = CompletableFuture.completedFuture(new AIDiagnosis(similar.get().getDiagnosis(), false));
+                entry.source = DiagnosisSource.SIMILAR;
+                continue;
+            }
+            entry.diagnosis = CompletableFuture.supplyAsync(
+                    () -> analyzeWithPermit(entry.fingerprint, entry.logs, permits), aiExecutor);
+        }
+
+        // 3. Wait for the AI and build the rows to insert
+        List<BatchEntry> analyzed = new ArrayList<>();
+        List<AnalysisHistory> rows = new ArrayList<>();
+        for (BatchEntry entry : entries.values()) {
+            if (entry.error != null) {
+                continue;
+            }
+
+            AIDiagnosis diagnosis;
+            try {
+                diagnosis = entry.diagnosis.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.error("Batch item {} failed: {}", entry.index, cause.getMessage(), cause);
+                entry.error = "Analysis failed: " + cause.getMessage();
+                releaseReservation(entry, ipAddress);
+                continue;
+            }
+
+            if (entry.source == null) {
+                entry.source = diagnosis.isFallback() ? DiagnosisSource.FALLBACK : DiagnosisSource.AI;
+            }
+            entry.content = diagnosis.getContent();
+            analyzed.add(entry);
+            rows.add(AnalysisHistory.builder()
+                    .ipAddress(ipAddress)
+                    .logInput(entry.logs)
+                    .logFingerprint(entry.fingerprint)
+                    .diagnosis(diagnosis.getContent())
+                    .severity(entry.rule != null ? entry.rule.getSeverity() : entry.scan.getSeverity())
+                    .title(entry.rule != null ? entry.rule.getTitle() : entry.scan.getTitle(entry.logs))
+                    .source(entry.source)
+                    .build());
+        }
+
+        // 4. Save all rows in one transaction (JDBC batch insert, see hibernate.jdbc.batch_size)
+        List<AnalysisHistory> saved;
+        try {
+            saved = analysisWriter.saveAll(rows);
+        } catch (RuntimeException e) {
+            analyzed.forEach(entry -> releaseReservation(entry, ipAddress));
+            throw e;
+        }
+
+        for (int i = 0; i < analyzed.size(); i++) {
+            BatchEntry entry = analyzed.get(i);
+            entry.response = buildResponse(saved.get(i));
+            metrics.recordAnalysis(entry.source);
+            if (entry.reserved) {
+                rateLimiter.commit(ipAddress);
+            }
+            if (entry.source == DiagnosisSource.AI) {
+                diagnosisCache.put(entry.fingerprint, entry.content);
+                similarIncidentService.add(entry.logs, entry.fingerprint);
+            }
+        }
+
+        // 5. Build per-item results (duplicates share the first item's analysis)
+        for (BatchEntry entry : entries.values()) {
+            results[entry.index] = entryResult(entry, null);
+        }
+        duplicates.forEach((index, first) -> results[index] = entryResult(first, index));
+
+        int succeeded = (int) Arrays.stream(results).filter(r -> ITEM_SUCCESS.equals(r.getStatus())).count();
+        logger.info("Batch completed: {} of {} logs analyzed ({} unique)", succeeded, results.length, entries.size());
+
+        return BatchDiagnosisResponse.builder()
+                .total(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Analyze a large log upload (megabytes of raw output)
+     *
+     * The upload is read as a stream and condensed by LogReducer (error windows with
+     * context, repeats and long stack traces collapsed), so memory use does not grow
+     * with its size. A condensed log that does not fit one prompt is summarized chunk
+     * by chunk and the summaries are diagnosed together (see LargeLogAnalyzer).
+     * Counts as one request for the rate limit. Known-error rules and the cache are
+     * skipped: a long log mentions many errors, and a signature match is no proof of the cause.
+     *
+     * @param upload Log upload (UTF-8)
+     * @param ipAddress User's IP address (for rate limiting)
+     * @return Diagnosis with reduction statistics
+     * @throws RateLimitException if user exceeded rate limit
+     * @throws InvalidLogException if the upload is empty or cannot be read
+     */
+    public UploadDiagnosisResponse analyzeUpload(InputStream upload, String ipAddress) {
+        logger.info("Analyzing log upload from IP: {}", ipAddress);
+
+        // 1. Reserve a rate-limit slot before reading anything
+        checkRateLimit(ipAddress);
+
+        LogReduction reduction;
+        AnalysisHistory history;
+        try {
+            // 2. Stream the upload through the reducer
+            try {
+                reduction = logReducer.reduce(upload);
+            } catch (IOException e) {
+                throw new InvalidLogException("Could not read the uploaded log: " + e.getMessage(), e);
+            }
+
+            // 3. Analyze with AI (map-reduce if needed)
+            AIDiagnosis diagnosis = largeLogAnalyzer.analyze(reduction);
+
+            // 4. Save the condensed log (short write transaction)
+            String condensed = reduction.getText();
+            LogScan scan = logScanner.scan(condensed);
+            String stored = condensed.length() > MAX_STORED_UPLOAD_LENGTH
+                    ? condensed.substring(0, MAX_STORED_UPLOAD_LENGTH) + "\n... [truncated]"
+                    : condensed;
+            DiagnosisSource source = diagnosis.isFallback() ? DiagnosisSource.FALLBACK : DiagnosisSource.AI;
+            history = saveAnalysis(ipAddress, stored, logNormalizer.fingerprint(condensed),
+                    diagnosis.getContent(), scan.getSeverity(), scan.getTitle(condensed), source);
+        } catch (RuntimeException e) {
+            rateLimiter.release(ipAddress);
+            throw e;
+        }
+        rateLimiter.commit(ipAddress);
 
-        // 4. Save to database
-        AnalysisHistory history = saveAnalysis(ipAddress, logRequest.getLogs(), diagnosis, severity, title);
+        logger.info("Upload analysis completed. ID: {} ({} lines condensed to {})",
+                history.getId(), reduction.getInputLines(), reduction.getKeptLines());
 
         // 5. Build response
-        DiagnosisResponse response = DiagnosisResponse.builder()
-                .severity(severity)
-                .title(title)
-                .content(diagnosis)
-                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-                .analysisId(history.getId())
+        return UploadDiagnosisResponse.builder()
+                .diagnosis(buildResponse(history))
+                .inputChars(reduction.getInputChars())
+                .inputLines(reduction.getInputLines())
+                .keptLines(reduction.getKeptLines())
+                .repeatedLines(reduction.getRepeatedLines())
+                .collapsedFrames(reduction.getCollapsedFrames())
+                .errorWindows(reduction.getErrorWindows())
                 .build();
+    }
 
-        logger.info("Analysis completed successfully. ID: {}", history.getId());
-        return response;
+    /**
+     * Call the AI once a parallelism permit is free
+     */
+    private AIDiagnosis analyzeWithPermit(String fingerprint, String logs, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            return analysisCoalescer.analyze(fingerprint, logs);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Error message for a batch item refused by the rate limiter
+     */
+    private String rateLimitRejection() {
+        metrics.recordRateLimitRejection();
+        return new RateLimitException(maxRequests, windowHours).getMessage();
+    }
+
+    private void releaseReservation(BatchEntry entry, String ipAddress) {
+        if (entry.reserved) {
+            rateLimiter.release(ipAddress);
+            entry.reserved = false;
+        }
+    }
+
+    /**
+     * Result for an analyzed (or failed) unique log, optionally reported at a duplicate's index
+     */
+    private BatchItemResult entryResult(BatchEntry entry, Integer duplicateIndex) {
+        int index = duplicateIndex != null ? duplicateIndex : entry.index;
+        Integer duplicateOf = duplicateIndex != null ? entry.index : null;
+
+        if (entry.response == null) {
+            BatchItemResult failed = failedItem(index, entry.error);
+            failed.setDuplicateOf(duplicateOf);
+            return failed;
+        }
+
+        return BatchItemResult.builder()
+                .index(index)
+                .status(ITEM_SUCCESS)
+                .diagnosis(entry.response)
+                .duplicateOf(duplicateOf)
+                .build();
+    }
+
+    private BatchItemResult failedItem(int index, String error) {
+        return BatchItemResult.builder()
+                .index(index)
+                .status(ITEM_FAILED)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Validate one log of a batch
+     * Same rules as a single analysis, plus the per-log size limit that LogRequest enforces
+     *
+     * @return Scan of the log
+     * @throws InvalidLogException if validation fails
+     */
+    private LogScan validateBatchItem(String logs) {
+        if (logs != null && logs.length() > MAX_LOG_LENGTH) {
+            throw new InvalidLogException(
+                    String.format("Logs must be less than %d characters (approximately 150 words)", MAX_LOG_LENGTH));
+        }
+        return validateLogInput(logs);
+    }
+
+    /**
+     * Working state for one unique log of a batch
+     */
+    private static class BatchEntry {
+
+        private final int index;
+        private final String logs;
+        private final String fingerprint;
+        private final LogScan scan;
+
+        private CompletableFuture<AIDiagnosis> diagnosis;
+        private DiagnosisSource source;
+        private KnownErrorRule rule;
+        private boolean reserved;
+        private String content;
+        private DiagnosisResponse response;
+        private String error;
+
+        private BatchEntry(int index, String logs, String fingerprint, LogScan scan) {
+            this.index = index;
+            this.logs = logs;
+            this.fingerprint = fingerprint;
+            this.scan = scan;
+        }
+    }
+
+    /**
+     * Persist a streamed analysis and send the final "done" event
+     * The "done" event carries the full content, so a fallback replaces any partial output
+     */
+    private void finishStream(SseEmitter emitter, AtomicBoolean settled, String ipAddress, String logs,
+                              String fingerprint, AIDiagnosis diagnosis, String severity, String title) {
+        if (!settled.compareAndSet(false, true)) {
+            // Timed out or disconnected first: the slot is already back and nobody is listening
+            return;
+        }
+
+        AnalysisHistory history;
+        try {
+            DiagnosisSource source = diagnosis.isFallback() ? DiagnosisSource.FALLBACK : DiagnosisSource.AI;
+            history = saveAnalysis(ipAddress, logs, fingerprint, diagnosis.getContent(), severity, title, source);
+        } catch (RuntimeException e) {
+            rateLimiter.release(ipAddress);
+            logger.error("Failed to save streamed analysis: {}", e.getMessage(), e);
+            emitter.completeWithError(e);
+            return;
+        }
+        rateLimiter.commit(ipAddress);
+
+        if (!diagnosis.isFallback()) {
+            diagnosisCache.put(fingerprint, diagnosis.getContent());
+            similarIncidentService.add(logs, fingerprint);
+        }
+
+        try {
+            sendEvent(emitter, "done", buildResponse(history));
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            logger.debug("Client disconnected before the final event. ID: {}", history.getId());
+        }
+
+        logger.info("Streaming analysis completed. ID: {}", history.getId());
+    }
+
+    /**
+     * Send an already complete diagnosis as meta, a single chunk and done
+     * Stream clients display HTML, so a structured diagnosis is rendered
+     */
+    private void sendComplete(SseEmitter emitter, DiagnosisResponse response) {
+        diagnosisRenderer.applyFormat(response, DiagnosisRenderer.FORMAT_HTML);
+        try {
+            sendEvent(emitter, "meta", Map.of("severity", response.getSeverity(), "title", response.getTitle()));
+            sendEvent(emitter, "chunk", Map.of("text", response.getContent()));
+            sendEvent(emitter, "done", response);
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            logger.debug("Client disconnected before the diagnosis was sent. ID: {}", response.getAnalysisId());
+        }
     }
 
     /**
-     * Validate log input
+     * Send one SSE event with a JSON payload (JSON keeps newlines in HTML chunks intact)
+     *
+     * @throws UncheckedIOException if the client has disconnected
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answer with the cached diagnosis of an identical (normalized) log
+     * Severity and title are still derived from this request's log
+     *
+     * @param logs The log text
+     * @param scan Scan of the log
+     * @param ipAddress User's IP address
+     * @param fingerprint Normalized log fingerprint
+     * @param diagnosis Cached diagnosis
+     * @return Diagnosis response
+     * @throws RateLimitException if the discounted cache-hit quota is exhausted
+     */
+    private DiagnosisResponse serveFromCache(String logs, LogScan scan, String ipAddress, String fingerprint,
+                                             String diagnosis) {
+        if (!rateLimiter.tryAcquireCached(ipAddress)) {
+            logger.warn("Rate limit exceeded for IP: {}", ipAddress);
+            metrics.recordRateLimitRejection();
+            throw new RateLimitException(maxRequests, windowHours);
+        }
+
+        AnalysisHistory history = saveAnalysis(ipAddress, logs, fingerprint, diagnosis,
+                scan.getSeverity(), scan.getTitle(logs), DiagnosisSource.CACHE);
+
+        logger.info("Served analysis from cache. ID: {}", history.getId());
+        return buildResponse(history);
+    }
+
+    /**
+     * Answer with the diagnosis of a near-identical past incident (see SimilarIncidentService)
+     * Charged as a full request, unlike a cache hit: an edited log is a different request
+     *
+     * @param logs The log text
+     * @param scan Scan of the log
+     * @param ipAddress User's IP address
+     * @param fingerprint Normalized log fingerprint
+     * @param diagnosis Diagnosis of the similar incident
+     * @return Diagnosis response
+     * @throws RateLimitException if user exceeded rate limit
+     */
+    private DiagnosisResponse serveFromSimilar(String logs, LogScan scan, String ipAddress, String fingerprint,
+                                               String diagnosis) {
+        checkRateLimit(ipAddress);
+
+        AnalysisHistory history;
+        try {
+            history = saveAnalysis(ipAddress, logs, fingerprint, diagnosis,
+                    scan.getSeverity(), scan.getTitle(logs), DiagnosisSource.SIMILAR);
+        } catch (RuntimeException e) {
+            rateLimiter.release(ipAddress);
+            throw e;
+        }
+        rateLimiter.commit(ipAddress);
+
+        logger.info("Served analysis from a similar incident. ID: {}", history.getId());
+        return buildResponse(history);
+    }
+
+    /**
+     * Answer with the canned diagnosis of a known-error rule
+     * Charged like a cache hit, since no AI call is made
+     *
+     * @param logs The log text
+     * @param ipAddress User's IP address
+     * @param fingerprint Normalized log fingerprint
+     * @param rule Matching known-error rule
+     * @return Diagnosis response
+     * @throws RateLimitException if the discounted cache-hit quota is exhausted
+     */
+    private DiagnosisResponse serveFromRule(String logs, String ipAddress, String fingerprint, KnownErrorRule rule) {
+        if (!rateLimiter.tryAcquireCached(ipAddress)) {
+            logger.warn("Rate limit exceeded for IP: {}", ipAddress);
+            metrics.recordRateLimitRejection();
+            throw new RateLimitException(maxRequests, windowHours);
+        }
+
+        AnalysisHistory history = saveAnalysis(ipAddress, logs, fingerprint, rule.getDiagnosis(),
+                rule.getSeverity(), rule.getTitle(), DiagnosisSource.RULE);
+
+        logger.info("Served analysis from known-error rule '{}'. ID: {}", rule.getId(), history.getId());
+        return buildResponse(history);
+    }
+
+    /**
+     * Build the API response for a stored analysis (also used by AnalysisJobService)
+     * A structured diagnosis fills the typed fields and leaves content empty -
+     * DiagnosisRenderer.applyFormat adds the HTML if the client asks for it
+     */
+    DiagnosisResponse buildResponse(AnalysisHistory history) {
+        DiagnosisResponse.DiagnosisResponseBuilder response = DiagnosisResponse.builder()
+                .severity(history.getSeverity())
+                .title(history.getTitle())
+                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .analysisId(history.getId());
+
+        Optional<StructuredDiagnosis> structured = structuredDiagnosisParser.read(history.getDiagnosis());
+        if (structured.isPresent()) {
+            StructuredDiagnosis diagnosis = structured.get();
+            return response
+                    .rootCause(diagnosis.getRootCause())
+                    .fixSteps(diagnosis.getFixSteps())
+                    .preventionTips(diagnosis.getPreventionTips())
+                    .confidence(diagnosis.getConfidence())
+                    .build();
+        }
+        return response.content(history.getDiagnosis()).build();
+    }
+
+    /**
+     * Validate log input (also used by AnalysisJobService before queueing)
+     * Scans the log once; the scan is reused for severity, title and known-error rules
      *
      * @param logs The log text to validate
+     * @return Scan of the log
      * @throws InvalidLogException if validation fails
      */
-    private void validateLogInput(String logs) {
-        if (logs == null || logs.trim().isEmpty()) {
+    LogScan validateLogInput(String logs) {
+        if (logs == null) {
+            throw new InvalidLogException("Logs cannot be empty");
+        }
+
+        LogScan scan = logScanner.scan(logs);
+        if (scan.getContentLength() == 0) {
             throw new InvalidLogException("Logs cannot be empty");
         }
 
-        if (logs.trim().length() < 10) {
+        if (scan.getContentLength() < 10) {
             throw new InvalidLogException("Logs are too short. Please provide more context (at least 10 characters)");
         }
 
         // Count words (approximate)
-        int wordCount = logs.trim().split("\\s+").length;
+        int wordCount = scan.getWordCount();
         if (wordCount > 200) {
             throw new InvalidLogException(
                     String.format("Logs are too long (%d words). Please limit to 150 words or less", wordCount));
         }
+        return scan;
     }
 
     /**
-     * Check if user has exceeded rate limit
+     * Check if user has exceeded rate limit and reserve a slot for this request
      *
      * @param ipAddress User's IP address
      * @throws RateLimitException if rate limit exceeded
      */
     private void checkRateLimit(String ipAddress) {
-        LocalDateTime windowStart = LocalDateTime.now().minusHours(windowHours);
-
-        Long requestCount = analysisHistoryRepository
-                .countByIpAddressAndCreatedAtAfter(ipAddress, windowStart);
-
-        logger.debug("IP {} has made {} requests in last {} hours",
-                ipAddress, requestCount, windowHours);
-
-        if (requestCount >= maxRequests) {
+        if (!rateLimiter.tryAcquire(ipAddress)) {
             logger.warn("Rate limit exceeded for IP: {}", ipAddress);
+            metrics.recordRateLimitRejection();
             throw new RateLimitException(maxRequests, windowHours);
         }
     }
 
     /**
      * Save analysis to database
+     * Runs in its own short transaction, or is queued in write-behind mode (see AnalysisWriter)
      *
      * @param ipAddress User's IP
      * @param logInput Original log input
+     * @param logFingerprint Normalized log fingerprint
      * @param diagnosis AI diagnosis
      * @param severity Severity level
      * @param title Error title
+     * @param source Where the diagnosis came from
      * @return Saved AnalysisHistory entity
      */
-    private AnalysisHistory saveAnalysis(String ipAddress, String logInput,
-                                         String diagnosis, String severity, String title) {
+    private AnalysisHistory saveAnalysis(String ipAddress, String logInput, String logFingerprint, String diagnosis,
+                                         String severity, String title, DiagnosisSource source) {
         AnalysisHistory history = AnalysisHistory.builder()
                 .ipAddress(ipAddress)
                 .logInput(logInput)
+                .logFingerprint(logFingerprint)
                 .diagnosis(diagnosis)
                 .severity(severity)
                 .title(title)
+                .source(source)
                 .build();
 
-        return analysisHistoryRepository.save(history);
+        AnalysisHistory saved = metrics.time(AnalysisMetrics.STAGE_PERSISTENCE, () -> analysisWriter.save(history));
+        metrics.recordAnalysis(source);
+        return saved;
     }
 
     /**
@@ -152,11 +883,6 @@ public class LogAnalysisService {
      * @return Number of requests remaining
      */
     public int getRemainingRequests(String ipAddress) {
-        LocalDateTime windowStart = LocalDateTime.now().minusHours(windowHours);
-
-        Long requestCount = analysisHistoryRepository
-                .countByIpAddressAndCreatedAtAfter(ipAddress, windowStart);
-
-        return Math.max(0, maxRequests - requestCount.intValue());
+        return rateLimiter.getRemaining(ipAddress);
     }
 }
\ No newline at end of file
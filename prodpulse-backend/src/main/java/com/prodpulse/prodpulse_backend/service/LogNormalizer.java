@@ -0,0 +1,79 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes error logs so that repeats of the same failure look identical
+ * Strips volatile parts (timestamps, UUIDs, hex addresses, IPs, ports, line numbers)
+ * and hashes the result into a fingerprint used as the diagnosis cache key
+ */
+@Component
+public class LogNormalizer {
+
+    // Order matters: timestamps before ports (10:23:45), UUIDs before hex, line numbers before ports
+
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d+)?(?:Z|[+-]\\d{2}:?\\d{2})?"    // ISO-8601, logback
+                    + "|\\d{1,2}/\\w{3}/\\d{4}:\\d{2}:\\d{2}:\\d{2}(?: [+-]\\d{4})?"                // nginx/apache
+                    + "|\\b\\d{4}[-/]\\d{2}[-/]\\d{2}\\b"                                           // bare date
+                    + "|\\b\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d+)?\\b"                                    // bare time
+                    + "|\\b1\\d{9}(?:\\d{3})?\\b");                                                 // epoch s/ms
+
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+
+    private static final Pattern HEX = Pattern.compile(
+            "\\b0x[0-9a-fA-F]+\\b"          // memory addresses
+                    + "|@[0-9a-fA-F]{4,}\\b"        // Object@1b6d3586
+                    + "|\\b[0-9a-f]{12,}\\b");      // container ids, commit hashes
+
+    private static final Pattern IP_ADDRESS = Pattern.compile("\\b\\d{1,3}(?:\\.\\d{1,3}){3}\\b");
+
+    private static final Pattern LINE_NUMBER = Pattern.compile(
+            "(\\.(?:java|kt|scala|groovy|js|mjs|cjs|ts|py|go|rb|php|cs)):\\d+(?::\\d+)?"   // Foo.java:42, app.js:10:5
+                    + "|\\b(line) \\d+");                                                 // Python: line 42
+
+    private static final Pattern PORT = Pattern.compile("(?<=[\\w>\\]]):\\d{2,5}\\b");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Normalize a log so that repeated occurrences of the same error compare equal
+     *
+     * @param log Raw log text
+     * @return Normalized log text
+     */
+    public String normalize(String log) {
+        String normalized = TIMESTAMP.matcher(log).replaceAll("<ts>");
+        normalized = UUID.matcher(normalized).replaceAll("<uuid>");
+        normalized = HEX.matcher(normalized).replaceAll("<hex>");
+        normalized = IP_ADDRESS.matcher(normalized).replaceAll("<ip>");
+        normalized = LINE_NUMBER.matcher(normalized)
+                .replaceAll(match -> match.group(1) != null ? match.group(1) + ":<n>" : "line <n>");
+        normalized = PORT.matcher(normalized).replaceAll(":<port>");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Fingerprint of the normalized log
+     *
+     * @param log Raw log text
+     * @return SHA-256 of the normalized log (64 hex characters)
+     */
+    public String fingerprint(String log) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalize(log).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
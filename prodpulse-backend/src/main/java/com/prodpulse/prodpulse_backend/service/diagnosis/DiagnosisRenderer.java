@@ -0,0 +1,139 @@
+package com.prodpulse.prodpulse_backend.service.diagnosis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.StructuredDiagnosis;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders structured diagnoses as HTML, only for clients that ask for it
+ *
+ * The template is compiled once at startup (HtmlTemplate) and produces the same markup the
+ * model writes in HTML mode, so the frontend shows both alike. Rendered HTML is cached per
+ * diagnosis - popular diagnoses are served from DiagnosisCache again and again.
+ * Diagnoses stored as HTML (known-error rules, the fallback, HTML mode) pass through unchanged.
+ */
+@Component
+public class DiagnosisRenderer {
+
+    public static final String FORMAT_HTML = "html";
+    public static final String FORMAT_JSON = "json";
+
+    static final String TEMPLATE = """
+            <div class="diagnosis">
+                <h3>🔍 What Happened:</h3>
+                <p>{{rootCause}}</p>
+
+                <h3>🔧 How to Fix:</h3>
+                <ul>
+            {{fixSteps}}    </ul>
+
+                <h3>💡 Prevention Tips:</h3>
+                <ul>
+            {{preventionTips}}    </ul>
+
+                <p class="confidence">Confidence: {{confidence}}%</p>
+            </div>
+            """;
+
+    @Autowired
+    private StructuredDiagnosisParser parser;
+
+    // Format when the client does not say: html keeps clients written before structured output working
+    @Value("${app.diagnosis.default-format:html}")
+    private String defaultFormat;
+
+    @Value("${app.diagnosis.render-cache.max-size:1000}")
+    private long renderCacheMaxSize;
+
+    private HtmlTemplate template;
+
+    private Cache<StructuredDiagnosis, String> rendered;
+
+    @PostConstruct
+    public void init() {
+        template = HtmlTemplate.compile(TEMPLATE);
+        rendered = Caffeine.newBuilder()
+                .maximumSize(renderCacheMaxSize)
+                .build();
+    }
+
+    /**
+     * Fill in the content of a response for the requested format
+     * A structured diagnosis gets rendered HTML for "html" and no content for "json";
+     * an HTML diagnosis keeps its content either way
+     *
+     * @param response Response from LogAnalysisService.buildResponse
+     * @param format "html" or "json" (anything else: app.diagnosis.default-format)
+     * @return The same response
+     */
+    public DiagnosisResponse applyFormat(DiagnosisResponse response, String format) {
+        if (response == null || response.getRootCause() == null) {
+            return response;
+        }
+        if (wantsHtml(format)) {
+            response.setContent(render(StructuredDiagnosis.builder()
+                    .rootCause(response.getRootCause())
+                    .fixSteps(response.getFixSteps())
+                    .preventionTips(response.getPreventionTips())
+                    .confidence(response.getConfidence())
+                    .build()));
+        } else {
+            response.setContent(null);
+        }
+        return response;
+    }
+
+    /**
+     * HTML for stored diagnosis content (history, streaming)
+     *
+     * @param stored Stored content - structured JSON or HTML
+     * @return Rendered HTML, or the content itself if it already is HTML
+     */
+    public String toHtml(String stored) {
+        return parser.read(stored).map(this::render).orElse(stored);
+    }
+
+    /**
+     * Render a structured diagnosis (cached)
+     */
+    public String render(StructuredDiagnosis diagnosis) {
+        return rendered.get(diagnosis, this::renderNow);
+    }
+
+    private boolean wantsHtml(String format) {
+        if (FORMAT_JSON.equalsIgnoreCase(format)) {
+            return false;
+        }
+        if (FORMAT_HTML.equalsIgnoreCase(format)) {
+            return true;
+        }
+        return !FORMAT_JSON.equalsIgnoreCase(defaultFormat);
+    }
+
+    private String renderNow(StructuredDiagnosis diagnosis) {
+        return template.render(Map.of(
+                "rootCause", HtmlUtils.htmlEscape(diagnosis.getRootCause()),
+                "fixSteps", listItems(diagnosis.getFixSteps()),
+                "preventionTips", listItems(diagnosis.getPreventionTips()),
+                "confidence", String.valueOf(Math.round(diagnosis.getConfidence() * 100))));
+    }
+
+    private String listItems(List<String> items) {
+        StringBuilder out = new StringBuilder();
+        if (items != null) {
+            for (String item : items) {
+                out.append("        <li>").append(HtmlUtils.htmlEscape(item)).append("</li>\n");
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.prodpulse.prodpulse_backend.service.diagnosis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal HTML template with {{name}} placeholders, compiled once into literal and slot parts
+ *
+ * Rendering is a single pass over the parts into one StringBuilder - no parsing, no regex.
+ * Values are inserted as they are; escaping is up to the caller (see DiagnosisRenderer).
+ */
+public final class HtmlTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // Even indexes are literals, odd indexes are placeholder names
+    private final String[] parts;
+
+    private final int literalLength;
+
+    private HtmlTemplate(String[] parts, int literalLength) {
+        this.parts = parts;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Compile a template
+     *
+     * @param source Template text with {{name}} placeholders
+     * @return The compiled template
+     * @throws IllegalArgumentException if a placeholder is not closed
+     */
+    public static HtmlTemplate compile(String source) {
+        List<String> parts = new ArrayList<>();
+        int literalLength = 0;
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, pos);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            parts.add(source.substring(pos, open));
+            parts.add(source.substring(open + OPEN.length(), close).trim());
+            literalLength += open - pos;
+            pos = close + CLOSE.length();
+        }
+        parts.add(source.substring(pos));
+        literalLength += source.length() - pos;
+
+        return new HtmlTemplate(parts.toArray(new String[0]), literalLength);
+    }
+
+    /**
+     * Render the template
+     *
+     * @param values Value per placeholder name (missing names render as empty)
+     * @return The rendered text
+     */
+    public String render(Map<String, String> values) {
+        int capacity = literalLength;
+        for (String value : values.values()) {
+            capacity += value.length();
+        }
+
+        StringBuilder out = new StringBuilder(capacity);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 0) {
+                out.append(parts[i]);
+            } else {
+                out.append(values.getOrDefault(parts[i], ""));
+            }
+        }
+        return out.toString();
+    }
+}
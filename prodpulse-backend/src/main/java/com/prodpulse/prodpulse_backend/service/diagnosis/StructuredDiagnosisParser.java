@@ -0,0 +1,146 @@
+package com.prodpulse.prodpulse_backend.service.diagnosis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodpulse.prodpulse_backend.exception.InvalidDiagnosisException;
+import com.prodpulse.prodpulse_backend.model.dto.StructuredDiagnosis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parses and validates structured diagnoses (the JSON the model answers with in structured mode)
+ *
+ * Schema - PromptBuilder shows the same one to the model:
+ * - rootCause: non-blank string, at most MAX_ROOT_CAUSE_LENGTH characters
+ * - fixSteps: 1 to MAX_ITEMS non-blank strings
+ * - preventionTips: 0 to MAX_ITEMS non-blank strings (may be omitted)
+ * - confidence: number from 0 to 1
+ * Other fields are ignored. A valid diagnosis is stored re-serialized as compact JSON.
+ */
+@Component
+public class StructuredDiagnosisParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(StructuredDiagnosisParser.class);
+
+    static final int MAX_ROOT_CAUSE_LENGTH = 2000;
+    static final int MAX_ITEMS = 10;
+    static final int MAX_ITEM_LENGTH = 500;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Parse a model answer
+     * A markdown code fence or text around the JSON object is tolerated
+     *
+     * @param text The model's answer
+     * @return The validated diagnosis
+     * @throws InvalidDiagnosisException if it is not a JSON object matching the schema
+     */
+    public StructuredDiagnosis parse(String text) {
+        if (text == null) {
+            throw new InvalidDiagnosisException("Empty answer");
+        }
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            throw new InvalidDiagnosisException("Answer contains no JSON object");
+        }
+
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(text.substring(start, end + 1));
+        } catch (JsonProcessingException e) {
+            throw new InvalidDiagnosisException("Answer is not valid JSON: " + e.getOriginalMessage(), e);
+        }
+        if (root == null || !root.isObject()) {
+            throw new InvalidDiagnosisException("Answer is not a JSON object");
+        }
+
+        JsonNode confidence = root.get("confidence");
+        if (confidence == null || !confidence.isNumber()
+                || confidence.asDouble() < 0 || confidence.asDouble() > 1) {
+            throw new InvalidDiagnosisException("confidence must be a number from 0 to 1");
+        }
+
+        return StructuredDiagnosis.builder()
+                .rootCause(text(root, "rootCause", MAX_ROOT_CAUSE_LENGTH))
+                .fixSteps(list(root, "fixSteps", 1))
+                .preventionTips(root.hasNonNull("preventionTips") ? list(root, "preventionTips", 0) : List.of())
+                .confidence(confidence.asDouble())
+                .build();
+    }
+
+    /**
+     * Read a stored diagnosis
+     *
+     * @param stored Stored diagnosis content
+     * @return The structured diagnosis, or empty if the content is HTML (rules, fallback, HTML mode)
+     */
+    public Optional<StructuredDiagnosis> read(String stored) {
+        if (!isStructured(stored)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(parse(stored));
+        } catch (InvalidDiagnosisException e) {
+            logger.warn("Stored diagnosis is not a valid structured diagnosis: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compact JSON for storage and caching
+     */
+    public String toJson(StructuredDiagnosis diagnosis) {
+        try {
+            return MAPPER.writeValueAsString(diagnosis);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize diagnosis", e);
+        }
+    }
+
+    /**
+     * Stored content is either HTML (starts with a tag) or a structured diagnosis (a JSON object)
+     */
+    public boolean isStructured(String stored) {
+        return stored != null && stored.stripLeading().startsWith("{");
+    }
+
+    private String text(JsonNode root, String field, int maxLength) {
+        JsonNode node = root.get(field);
+        if (node == null || !node.isTextual() || node.asText().isBlank()) {
+            throw new InvalidDiagnosisException(field + " must be a non-empty string");
+        }
+        String value = node.asText().strip();
+        if (value.length() > maxLength) {
+            throw new InvalidDiagnosisException(field + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private List<String> list(JsonNode root, String field, int minItems) {
+        JsonNode node = root.get(field);
+        if (node == null || !node.isArray() || node.size() < minItems || node.size() > MAX_ITEMS) {
+            throw new InvalidDiagnosisException(
+                    field + " must be an array of " + minItems + " to " + MAX_ITEMS + " strings");
+        }
+        List<String> items = new ArrayList<>(node.size());
+        for (JsonNode item : node) {
+            if (!item.isTextual() || item.asText().isBlank()) {
+                throw new InvalidDiagnosisException(field + " must contain non-empty strings");
+            }
+            String value = item.asText().strip();
+            if (value.length() > MAX_ITEM_LENGTH) {
+                throw new InvalidDiagnosisException(field + " item is longer than " + MAX_ITEM_LENGTH + " characters");
+            }
+            items.add(value);
+        }
+        return items;
+    }
+}
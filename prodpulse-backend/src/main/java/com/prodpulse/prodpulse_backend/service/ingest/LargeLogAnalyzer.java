@@ -0,0 +1,123 @@
+package com.prodpulse.prodpulse_backend.service.ingest;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.service.AIService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * AI analysis of a condensed large log
+ *
+ * A condensed log that fits one prompt is diagnosed directly. Anything longer is split
+ * into chunks on line boundaries; each chunk is summarized (map, in parallel on the AI
+ * executor) and the summaries, in order, are diagnosed together (reduce).
+ */
+@Service
+public class LargeLogAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LargeLogAnalyzer.class);
+
+    // Raw text used in place of a summary when summarizing a chunk fails
+    private static final int EXCERPT_LENGTH = 1000;
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    @Qualifier("aiExecutor")
+    private ExecutorService aiExecutor;
+
+    // Max characters per prompt (~1500 tokens)
+    @Value("${app.ingest.chunk-chars:6000}")
+    private int chunkChars;
+
+    // Max concurrent summary calls per upload
+    @Value("${app.ingest.map-parallelism:4}")
+    private int mapParallelism;
+
+    /**
+     * Diagnose a condensed log, with a map-reduce pass if it does not fit one prompt
+     *
+     * @param reduction Condensed log from LogReducer
+     * @return Diagnosis of the whole log (or the fallback, flagged as such)
+     */
+    public AIDiagnosis analyze(LogReduction reduction) {
+        String text = reduction.getText();
+
+        // 1. Fits one prompt: diagnose directly
+        if (text.length() <= chunkChars) {
+            return aiService.analyzeLog(text);
+        }
+
+        // 2. Map: summarize the chunks in parallel
+        List<String> chunks = split(text);
+        logger.info("Large log: {} lines condensed to {} chars, summarizing {} chunks",
+                reduction.getInputLines(), text.length(), chunks.size());
+
+        Semaphore permits = new Semaphore(mapParallelism);
+        List<CompletableFuture<String>> summaries = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            int part = i + 1;
+            summaries.add(CompletableFuture.supplyAsync(
+                    () -> summarize(chunk, part, chunks.size(), permits), aiExecutor));
+        }
+
+        // 3. Reduce: diagnose the summaries together
+        StringBuilder combined = new StringBuilder()
+                .append("Summaries of a large production log (").append(reduction.getInputLines())
+                .append(" lines, ").append(reduction.getErrorWindows()).append(" error sections), in order:\n\n");
+        for (int i = 0; i < summaries.size(); i++) {
+            combined.append("Part ").append(i + 1).append('/').append(summaries.size()).append(":\n")
+                    .append(summaries.get(i).join().strip()).append("\n\n");
+        }
+
+        return aiService.analyzeLog(combined.toString());
+    }
+
+    /**
+     * Summarize one chunk once a parallelism permit is free
+     * A failed summary is replaced by the beginning of the chunk, so the reduce step still sees it
+     */
+    private String summarize(String chunk, int part, int parts, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            return aiService.summarizeChunk(chunk, part, parts);
+        } catch (RuntimeException e) {
+            logger.warn("Summarizing log part {}/{} failed, using an excerpt: {}", part, parts, e.getMessage());
+            return chunk.length() > EXCERPT_LENGTH ? chunk.substring(0, EXCERPT_LENGTH) + "..." : chunk;
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Split text into chunks of at most chunkChars, on line boundaries where possible
+     */
+    private List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + chunkChars, text.length());
+            if (end < text.length()) {
+                int lineEnd = text.lastIndexOf('\n', end - 1);
+                if (lineEnd > start) {
+                    end = lineEnd + 1;
+                }
+            }
+            chunks.add(text.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+}
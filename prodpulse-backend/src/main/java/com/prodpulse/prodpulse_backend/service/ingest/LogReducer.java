@@ -0,0 +1,303 @@
+package com.prodpulse.prodpulse_backend.service.ingest;
+
+import com.prodpulse.prodpulse_backend.exception.InvalidLogException;
+import com.prodpulse.prodpulse_backend.exception.LogTooLargeException;
+import com.prodpulse.prodpulse_backend.service.scan.LogScanner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Streaming reducer for large logs
+ *
+ * Reads the upload line by line and keeps only what a diagnosis needs: every error
+ * line with a few lines of context around it. Consecutive repeats (ignoring numbers)
+ * become one line plus a count, stack traces are cut after a few frames, and lines
+ * longer than the line limit are truncated. If the result still exceeds the size
+ * limit, its beginning and end are kept and the middle is dropped.
+ * Memory use depends on these limits, not on the size of the upload.
+ */
+@Component
+public class LogReducer {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    // Lines kept from the end of a log without any errors
+    private static final int TAIL_LINES = 50;
+
+    @Autowired
+    private LogScanner logScanner;
+
+    // Upload limit, counted in characters (= bytes for ASCII logs)
+    @Value("${app.ingest.max-size:100MB}")
+    private DataSize maxSize;
+
+    @Value("${app.ingest.max-line-length:1000}")
+    private int maxLineLength;
+
+    @Value("${app.ingest.context-before:5}")
+    private int contextBefore;
+
+    @Value("${app.ingest.context-after:10}")
+    private int contextAfter;
+
+    @Value("${app.ingest.max-stack-frames:10}")
+    private int maxStackFrames;
+
+    @Value("${app.ingest.max-reduced-chars:60000}")
+    private int maxReducedChars;
+
+    /**
+     * Read a log to the end and reduce it
+     *
+     * @param in Log upload (UTF-8), not closed by this method
+     * @return Condensed log and reduction statistics
+     * @throws IOException if reading the upload fails
+     * @throws LogTooLargeException if the upload exceeds app.ingest.max-size
+     * @throws InvalidLogException if the upload contains no text
+     */
+    public LogReduction reduce(InputStream in) throws IOException {
+        Reduction reduction = new Reduction();
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        long limit = maxSize.toBytes();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            reduction.inputChars += read;
+            if (reduction.inputChars > limit) {
+                throw new LogTooLargeException("Uploaded log is too large (limit " + maxSize.toMegabytes() + " MB)");
+            }
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n') {
+                    reduction.line(line);
+                    line.setLength(0);
+                } else if (line.length() < maxLineLength) {
+                    line.append(c);
+                }
+            }
+        }
+        if (!line.isEmpty()) {
+            reduction.line(line);
+        }
+
+        return reduction.finish();
+    }
+
+    private static boolean isStackFrame(String line) {
+        String trimmed = line.stripLeading();
+        return trimmed.startsWith("at ") || (trimmed.startsWith("... ") && trimmed.endsWith(" more"));
+    }
+
+    /**
+     * Key for repeat detection: the line without digits, so lines that differ only
+     * in timestamps, ids or durations count as repeats
+     */
+    private static String repeatKey(String line) {
+        StringBuilder key = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * State of one reduction (LogReducer itself is shared between requests)
+     */
+    private class Reduction {
+
+        private long inputChars;
+        private long inputLines;
+        private long keptLines;
+        private long repeatedLines;
+        private long collapsedFrames;
+        private int errorWindows;
+
+        // Repeat and stack-trace collapsing
+        private String previousKey;
+        private boolean previousDropped;
+        private long pendingRepeats;
+        private int frameRun;
+        private long pendingFrames;
+
+        // Lines since the last error window (context for the next one), and how many fell off
+        private final Deque<String> recent = new ArrayDeque<>();
+        private long skippedLines;
+        private int afterRemaining;
+
+        // Output: beginning up to half the limit, then a rolling end
+        private final StringBuilder head = new StringBuilder();
+        private boolean headFull;
+        private final Deque<String> tail = new ArrayDeque<>();
+        private long tailChars;
+        private long omittedLines;
+
+        private void line(CharSequence raw) {
+            inputLines++;
+            String text = raw.toString().stripTrailing();
+            if (text.isBlank()) {
+                return;
+            }
+
+            // 1. Fold repeats into the first occurrence
+            String key = repeatKey(text);
+            if (key.equals(previousKey)) {
+                pendingRepeats++;
+                repeatedLines++;
+                return;
+            }
+            flushRepeats();
+            previousKey = key;
+
+            // 2. Cut long stack traces
+            boolean frame = isStackFrame(text);
+            if (frame) {
+                frameRun++;
+                if (frameRun > maxStackFrames) {
+                    pendingFrames++;
+                    collapsedFrames++;
+                    previousDropped = true;
+                    return;
+                }
+            } else {
+                flushFrames();
+                frameRun = 0;
+            }
+            previousDropped = false;
+
+            // 3. Keep error lines with context, frames stay with their error
+            if (frame) {
+                continuation(text);
+            } else if (!"info".equals(logScanner.scan(text).getSeverity())) {
+                error(text);
+            } else {
+                context(text);
+            }
+        }
+
+        private void flushRepeats() {
+            if (pendingRepeats == 0) {
+                return;
+            }
+            if (previousDropped) {
+                // Repeats of a frame that was already cut
+                pendingFrames += pendingRepeats;
+                collapsedFrames += pendingRepeats;
+                repeatedLines -= pendingRepeats;
+            } else {
+                continuation("    [previous line repeated " + pendingRepeats + " more times]");
+            }
+            pendingRepeats = 0;
+        }
+
+        private void flushFrames() {
+            if (pendingFrames > 0) {
+                continuation("\t... " + pendingFrames + " more frames omitted");
+                pendingFrames = 0;
+            }
+        }
+
+        private void error(String text) {
+            if (afterRemaining == 0) {
+                errorWindows++;
+                int drop = Math.max(0, recent.size() - contextBefore);
+                for (int i = 0; i < drop; i++) {
+                    recent.removeFirst();
+                }
+                skipped(skippedLines + drop);
+                recent.forEach(this::emit);
+                recent.clear();
+            }
+            emit(text);
+            afterRemaining = contextAfter;
+        }
+
+        private void context(String text) {
+            if (afterRemaining > 0) {
+                emit(text);
+                afterRemaining--;
+            } else {
+                remember(text);
+            }
+        }
+
+        private void continuation(String text) {
+            if (afterRemaining > 0) {
+                emit(text);
+            } else {
+                remember(text);
+            }
+        }
+
+        private void remember(String text) {
+            recent.addLast(text);
+            if (recent.size() > TAIL_LINES) {
+                recent.removeFirst();
+                skippedLines++;
+            }
+        }
+
+        private void skipped(long lines) {
+            if (lines > 0) {
+                emit("... [" + lines + " lines without errors skipped]");
+            }
+            skippedLines = 0;
+        }
+
+        private void emit(String text) {
+            keptLines++;
+            if (!headFull) {
+                head.append(text).append('\n');
+                headFull = head.length() >= maxReducedChars / 2;
+                return;
+            }
+            tail.addLast(text);
+            tailChars += text.length() + 1;
+            while (tailChars > maxReducedChars / 2) {
+                tailChars -= tail.removeFirst().length() + 1;
+                omittedLines++;
+            }
+        }
+
+        private LogReduction finish() {
+            flushRepeats();
+            flushFrames();
+
+            if (errorWindows == 0) {
+                // No errors: the end of the log is the best context there is
+                skipped(skippedLines);
+                recent.forEach(this::emit);
+            } else {
+                skipped(skippedLines + recent.size());
+            }
+            recent.clear();
+
+            if (keptLines == 0) {
+                throw new InvalidLogException("Uploaded log is empty");
+            }
+
+            StringBuilder text = new StringBuilder(head);
+            if (omittedLines > 0) {
+                text.append("... [").append(omittedLines).append(" lines omitted to stay within the size limit]\n");
+            }
+            tail.forEach(line -> text.append(line).append('\n'));
+
+            return new LogReduction(text.toString(), inputChars, inputLines, keptLines - omittedLines,
+                    repeatedLines, collapsedFrames, errorWindows);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.prodpulse.prodpulse_backend.service.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of reducing a large log: the condensed text plus what was dropped
+ */
+@Getter
+@AllArgsConstructor
+public class LogReduction {
+
+    /**
+     * Condensed log: error windows with context, repeats and long stack traces collapsed
+     */
+    private final String text;
+
+    /**
+     * Characters read from the upload
+     */
+    private final long inputChars;
+
+    /**
+     * Lines read from the upload
+     */
+    private final long inputLines;
+
+    /**
+     * Lines in the condensed log, including "... skipped" style markers
+     */
+    private final long keptLines;
+
+    /**
+     * Consecutive repeats (ignoring numbers) folded into a single line
+     */
+    private final long repeatedLines;
+
+    /**
+     * Stack frames beyond the per-trace limit
+     */
+    private final long collapsedFrames;
+
+    /**
+     * Number of error windows (an error line with surrounding context)
+     */
+    private final int errorWindows;
+}
@@ -0,0 +1,168 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for LLM calls, driven by observed latency
+ *
+ * A call is admitted only while fewer than limit calls are in flight; the rest are shed
+ * instead of queueing in front of a slow provider.
+ * - Increase: +1 per successful call while at least half the limit is in use
+ *   (no point growing a limit nobody reaches)
+ * - Decrease: limit * backoffRatio when a call fails, or when it took longer than
+ *   latencyTolerance x the baseline latency (an EWMA of recent calls) - the provider is queueing
+ *
+ * Thread-safe; every method holds the lock only for a few field updates.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Weight of a new sample in the baseline latency - about the last 20 calls
+    private static final double BASELINE_ALPHA = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+
+    private long rejected;
+
+    /**
+     * @param initialLimit Limit at startup
+     * @param minLimit Lowest limit (always at least 1)
+     * @param maxLimit Highest limit
+     * @param backoffRatio Multiplier applied on congestion (0 < ratio < 1)
+     * @param latencyTolerance A call slower than baseline x tolerance signals congestion
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Ask to start a call
+     * Every true must be followed by exactly one of onSuccess, onDropped or release
+     *
+     * @return False if the limit is reached - shed the request
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                rejected++;
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a completed call
+     *
+     * @param latencyNanos How long the call took
+     */
+    public void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+
+            if (baselineNanos == 0) {
+                baselineNanos = latencyNanos;
+            }
+            boolean congested = latencyNanos > baselineNanos * latencyTolerance;
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_ALPHA;
+
+            if (congested) {
+                decrease();
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a failed call (error or timeout)
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            inFlight--;
+            decrease();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a slot without a signal (call cancelled or never made)
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Baseline latency in nanoseconds (0 before the first call)
+     */
+    public double getBaselineNanos() {
+        lock.lock();
+        try {
+            return baselineNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Calls shed since startup
+     */
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,232 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for LLM calls
+ *
+ * CLOSED: calls go through; the outcome of the last windowSize calls is kept.
+ *   Once at least minimumCalls are recorded and failureRateThreshold % of them failed
+ *   (errors, or calls slower than slowCallNanos), the breaker opens.
+ * OPEN: calls are refused without touching the network until openDurationNanos have passed.
+ * HALF_OPEN: up to halfOpenCalls trial calls go through. All succeed -> CLOSED, any fails -> OPEN again.
+ *
+ * Thread-safe; every method holds the lock only for a few field updates.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        /**
+         * Numeric value for the state gauge
+         */
+        public int code() {
+            return code;
+        }
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ring buffer of the last windowSize outcomes (true = failed)
+    private final boolean[] outcomes;
+    private int recorded;
+    private int failures;
+    private int next;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    private long rejected;
+    private long transitions;
+
+    /**
+     * @param windowSize Number of recent calls the failure rate is computed over
+     * @param minimumCalls Calls needed in the window before the breaker may open
+     * @param failureRateThreshold Failure rate (percent) that opens the breaker
+     * @param slowCallNanos Calls slower than this count as failures (0 = off)
+     * @param openDurationNanos How long the breaker stays open before trial calls
+     * @param halfOpenCalls Trial calls allowed (and needed to close) in HALF_OPEN
+     * @param clock Time source in nanoseconds (System::nanoTime outside tests)
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long slowCallNanos,
+                          long openDurationNanos, int halfOpenCalls, LongSupplier clock) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * Ask to make a call
+     * Every true must be followed by exactly one of onSuccess, onError or release
+     *
+     * @return False if the breaker is open (or HALF_OPEN with all trial calls taken)
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openedAt < openDurationNanos) {
+                    rejected++;
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenInFlight >= halfOpenCalls) {
+                    rejected++;
+                    return false;
+                }
+                halfOpenInFlight++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a completed call
+     *
+     * @param durationNanos How long the call took (slow calls count as failures)
+     */
+    public void onSuccess(long durationNanos) {
+        if (slowCallNanos > 0 && durationNanos > slowCallNanos) {
+            onError();
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+            // OPEN: a call started before the breaker opened - ignored
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a failed call
+     */
+    public void onError() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recorded >= minimumCalls && failures * 100L >= (long) failureRateThreshold * recorded) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a permission that was not used for a call (e.g. the request was shed)
+     */
+    public void release() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Calls refused since startup
+     */
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * State changes since startup
+     */
+    public long getTransitions() {
+        lock.lock();
+        try {
+            return transitions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        transitions++;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = clock.getAsLong();
+        } else if (newState == State.CLOSED) {
+            // Start counting afresh - the failures that opened the breaker are history
+            recorded = 0;
+            failures = 0;
+            next = 0;
+        }
+    }
+}
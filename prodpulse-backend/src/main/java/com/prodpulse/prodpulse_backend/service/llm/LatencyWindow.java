@@ -0,0 +1,112 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outcomes and latencies of the last N calls to one LLM provider
+ * Percentiles are computed over successful calls only; the error rate over all calls.
+ */
+public class LatencyWindow {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long[] latencies;
+    private int latencyCount;
+    private int nextLatency;
+
+    private final boolean[] failed;
+    private int outcomeCount;
+    private int failures;
+    private int nextOutcome;
+
+    /**
+     * @param size Number of recent calls kept
+     */
+    public LatencyWindow(int size) {
+        this.latencies = new long[Math.max(1, size)];
+        this.failed = new boolean[Math.max(1, size)];
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            latencies[nextLatency] = latencyNanos;
+            nextLatency = (nextLatency + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+            recordOutcome(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordFailure() {
+        lock.lock();
+        try {
+            recordOutcome(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Latency percentile of the successful calls in the window
+     *
+     * @param quantile 0..1, e.g. 0.95 for p95
+     * @return Latency in nanoseconds, or -1 if no call succeeded yet
+     */
+    public long percentile(double quantile) {
+        long[] sorted;
+        lock.lock();
+        try {
+            if (latencyCount == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+
+    /**
+     * Share of failed calls in the window (0 if empty)
+     */
+    public double errorRate() {
+        lock.lock();
+        try {
+            return outcomeCount == 0 ? 0 : (double) failures / outcomeCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of calls (successful or not) in the window
+     */
+    public int samples() {
+        lock.lock();
+        try {
+            return outcomeCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordOutcome(boolean failure) {
+        if (outcomeCount == failed.length) {
+            if (failed[nextOutcome]) {
+                failures--;
+            }
+        } else {
+            outcomeCount++;
+        }
+        failed[nextOutcome] = failure;
+        if (failure) {
+            failures++;
+        }
+        nextOutcome = (nextOutcome + 1) % failed.length;
+    }
+}
@@ -0,0 +1,201 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import com.prodpulse.prodpulse_backend.exception.AiOverloadedException;
+import com.prodpulse.prodpulse_backend.exception.CircuitOpenException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breaker + adaptive concurrency limit in front of every LLM call
+ *
+ * acquire() either returns a Permit or fails fast:
+ * - CircuitOpenException while the breaker is open (AIService answers with the fallback)
+ * - AiOverloadedException when the concurrency limit is reached (503, client retries)
+ * The caller reports the outcome on the permit so both adapt to the provider's health.
+ *
+ * Metrics (see AnalysisMetrics for the pipeline meters):
+ * - prodpulse.ai.circuit.state: 0 closed, 1 half-open, 2 open
+ * - prodpulse.ai.circuit.rejections / prodpulse.ai.circuit.transitions
+ * - prodpulse.ai.concurrency.limit / prodpulse.ai.concurrency.in_flight
+ * - prodpulse.ai.concurrency.rejections
+ */
+@Component
+public class LlmCallGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmCallGuard.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ai.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+
+    @Value("${app.ai.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${app.ai.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${app.ai.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${app.ai.circuit-breaker.slow-call-ms:30000}")
+    private long slowCallMs;
+
+    @Value("${app.ai.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${app.ai.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${app.ai.concurrency.enabled:true}")
+    private boolean concurrencyLimitEnabled;
+
+    @Value("${app.ai.concurrency.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.ai.concurrency.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.ai.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.ai.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.ai.concurrency.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    private CircuitBreaker circuitBreaker;
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = newCircuitBreaker();
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                backoffRatio, latencyTolerance);
+
+        Gauge.builder("prodpulse.ai.circuit.state", circuitBreaker, cb -> cb.getState().code())
+                .description("AI circuit breaker state (0 closed, 1 half-open, 2 open)")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.ai.circuit.rejections", circuitBreaker, CircuitBreaker::getRejected)
+                .description("AI calls refused because the circuit breaker was open")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.ai.circuit.transitions", circuitBreaker, CircuitBreaker::getTransitions)
+                .description("AI circuit breaker state changes")
+                .register(meterRegistry);
+        Gauge.builder("prodpulse.ai.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent AI calls")
+                .register(meterRegistry);
+        Gauge.builder("prodpulse.ai.concurrency.in_flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("AI calls in flight")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.ai.concurrency.rejections", concurrencyLimiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("AI calls shed by the concurrency limit")
+                .register(meterRegistry);
+
+        logger.info("AI call guard: circuit breaker {}, concurrency limit {} (initial {}, {}-{})",
+                circuitBreakerEnabled ? "on" : "off", concurrencyLimitEnabled ? "on" : "off",
+                initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Get permission for one LLM call
+     *
+     * @return Permit - report the outcome with exactly one of onSuccess, onError or release
+     * @throws CircuitOpenException if the circuit breaker is open
+     * @throws AiOverloadedException if the concurrency limit is reached
+     */
+    public Permit acquire() {
+        if (circuitBreakerEnabled && !circuitBreaker.tryAcquire()) {
+            throw new CircuitOpenException("AI circuit breaker is open");
+        }
+        if (concurrencyLimitEnabled && !concurrencyLimiter.tryAcquire()) {
+            if (circuitBreakerEnabled) {
+                circuitBreaker.release();
+            }
+            logger.warn("AI concurrency limit of {} reached, shedding request", concurrencyLimiter.getLimit());
+            throw new AiOverloadedException("AI service is at capacity. Please retry in a few seconds.");
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    /**
+     * New circuit breaker with the app.ai.circuit-breaker.* settings (one per LLM provider, see LlmRouter)
+     */
+    public CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                TimeUnit.MILLISECONDS.toNanos(slowCallMs), TimeUnit.MILLISECONDS.toNanos(openDurationMs),
+                halfOpenCalls, System::nanoTime);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimiter.getLimit();
+    }
+
+    /**
+     * One admitted LLM call - only the first report counts
+     */
+    public final class Permit {
+
+        private final long startNanos;
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void onSuccess() {
+            if (done.compareAndSet(false, true)) {
+                long latency = System.nanoTime() - startNanos;
+                if (circuitBreakerEnabled) {
+                    circuitBreaker.onSuccess(latency);
+                }
+                if (concurrencyLimitEnabled) {
+                    concurrencyLimiter.onSuccess(latency);
+                }
+            }
+        }
+
+        public void onError() {
+            if (done.compareAndSet(false, true)) {
+                if (circuitBreakerEnabled) {
+                    circuitBreaker.onError();
+                }
+                if (concurrencyLimitEnabled) {
+                    concurrencyLimiter.onDropped();
+                }
+            }
+        }
+
+        /**
+         * The call was cancelled before it finished - no signal about the provider
+         */
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                if (circuitBreakerEnabled) {
+                    circuitBreaker.release();
+                }
+                if (concurrencyLimitEnabled) {
+                    concurrencyLimiter.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import org.springframework.ai.openai.OpenAiChatModel;
+
+/**
+ * One OpenAI-compatible LLM endpoint + model, with its own circuit breaker and latency window
+ * Built by GroqConfig from app.ai.providers[n].*
+ */
+public class LlmProvider {
+
+    // Recent calls used for p95 and error rate
+    private static final int WINDOW_SIZE = 100;
+
+    private final String name;
+
+    private final String model;
+
+    private final OpenAiChatModel chatModel;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final LatencyWindow window = new LatencyWindow(WINDOW_SIZE);
+
+    public LlmProvider(String name, String model, OpenAiChatModel chatModel, CircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.model = model;
+        this.chatModel = chatModel;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public OpenAiChatModel getChatModel() {
+        return chatModel;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public LatencyWindow getWindow() {
+        return window;
+    }
+
+    /**
+     * Ask the provider's circuit breaker for a call
+     * Every true must be followed by exactly one of onSuccess, onError or release
+     */
+    public boolean tryAcquire() {
+        return circuitBreaker.tryAcquire();
+    }
+
+    public void onSuccess(long latencyNanos) {
+        window.recordSuccess(latencyNanos);
+        circuitBreaker.onSuccess(latencyNanos);
+    }
+
+    public void onError() {
+        window.recordFailure();
+        circuitBreaker.onError();
+    }
+
+    /**
+     * The call was cancelled (e.g. lost a hedge) - no signal about the provider
+     */
+    public void release() {
+        circuitBreaker.release();
+    }
+}
@@ -0,0 +1,383 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import com.prodpulse.prodpulse_backend.exception.CircuitOpenException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.ResponseFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Routes LLM calls across the configured providers (see GroqConfig / LlmProvidersProperties)
+ *
+ * Selection: providers are ranked by p95 latency x (1 + errorPenalty x error rate) over their last
+ * 100 calls. Providers with fewer than min-samples calls rank first so new ones get measured, and
+ * explore-percent of calls go to a random provider to keep the others' numbers fresh.
+ * Providers whose circuit breaker is open are skipped.
+ *
+ * Failover and hedging: a call makes at most two attempts. If the first provider fails, the next
+ * one is tried right away. With hedging on, a second request is also sent when the first is still
+ * running after its provider's hedge percentile (e.g. p95) - the first answer wins and the other
+ * request is cancelled. Hedges are capped at budget-percent of calls, so tail latency drops
+ * without doubling spend. Streams are routed but never hedged.
+ *
+ * Metrics: prodpulse.llm.provider.calls{provider,outcome}, prodpulse.llm.provider.latency.p95{provider},
+ * prodpulse.llm.provider.error_rate{provider}, prodpulse.llm.provider.circuit.state{provider},
+ * prodpulse.llm.hedges{result=sent|won}
+ */
+public class LlmRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmRouter.class);
+
+    // Primary + one hedge or failover
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.ai.openai.chat.options.temperature:0.3}")
+    private Double temperature;
+
+    @Value("${app.ai.routing.min-samples:5}")
+    private int minSamples;
+
+    @Value("${app.ai.routing.error-penalty:10}")
+    private double errorPenalty;
+
+    @Value("${app.ai.routing.explore-percent:5}")
+    private int explorePercent;
+
+    @Value("${app.ai.routing.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${app.ai.routing.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${app.ai.routing.hedge.min-delay-ms:1000}")
+    private long hedgeMinDelayMs;
+
+    @Value("${app.ai.routing.hedge.budget-percent:10}")
+    private int hedgeBudgetPercent;
+
+    private final List<LlmProvider> providers;
+
+    private final Map<String, Timer> successTimers = new HashMap<>();
+
+    private final Map<String, Timer> errorTimers = new HashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private Counter hedgesSent;
+
+    private Counter hedgesWon;
+
+    // Attempts run here so the caller can wait for whichever finishes first; cancelling interrupts the HTTP call
+    private ExecutorService attemptExecutor;
+
+    public LlmRouter(List<LlmProvider> providers) {
+        this.providers = List.copyOf(providers);
+    }
+
+    @PostConstruct
+    public void init() {
+        attemptExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-attempt-", 0).factory());
+
+        for (LlmProvider provider : providers) {
+            successTimers.put(provider.getName(), callTimer(provider, "success"));
+            errorTimers.put(provider.getName(), callTimer(provider, "error"));
+            Gauge.builder("prodpulse.llm.provider.latency.p95", provider,
+                            p -> Math.max(0, p.getWindow().percentile(0.95)) / 1e9)
+                    .description("p95 latency of the provider's last 100 successful calls")
+                    .tag("provider", provider.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("prodpulse.llm.provider.error_rate", provider, p -> p.getWindow().errorRate())
+                    .description("Share of the provider's last 100 calls that failed")
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+            Gauge.builder("prodpulse.llm.provider.circuit.state", provider, p -> p.getCircuitBreaker().getState().code())
+                    .description("Provider circuit breaker state (0 closed, 1 half-open, 2 open)")
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+        }
+        hedgesSent = Counter.builder("prodpulse.llm.hedges")
+                .description("Hedged LLM requests")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        hedgesWon = Counter.builder("prodpulse.llm.hedges")
+                .description("Hedged LLM requests")
+                .tag("result", "won")
+                .register(meterRegistry);
+
+        logger.info("LLM router: {} provider(s) {}, hedging {}", providers.size(), getProviderNames(),
+                hedgeEnabled ? "on (p" + Math.round(hedgePercentile * 100) + ", budget " + hedgeBudgetPercent + "%)" : "off");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        attemptExecutor.shutdownNow();
+    }
+
+    /**
+     * Call the best available provider, failing over (or hedging) to the next one
+     *
+     * @param messages Prompt messages
+     * @param maxTokens Max tokens of the answer
+     * @return The first successful response
+     * @throws CircuitOpenException if every provider's circuit breaker is open
+     */
+    public ChatResponse call(List<Message> messages, int maxTokens) {
+        return call(messages, maxTokens, false);
+    }
+
+    /**
+     * Call the best available provider, failing over (or hedging) to the next one
+     *
+     * @param messages Prompt messages
+     * @param maxTokens Max tokens of the answer
+     * @param json Ask for a JSON object answer (OpenAI-compatible JSON mode)
+     * @return The first successful response
+     * @throws CircuitOpenException if every provider's circuit breaker is open
+     */
+    public ChatResponse call(List<Message> messages, int maxTokens, boolean json) {
+        calls.incrementAndGet();
+        Iterator<LlmProvider> candidates = rank().iterator();
+        LlmProvider first = nextAvailable(candidates);
+        if (first == null) {
+            throw new CircuitOpenException("All LLM providers are unavailable");
+        }
+
+        CompletionService<ChatResponse> completion = new ExecutorCompletionService<>(attemptExecutor);
+        List<Future<ChatResponse>> started = new ArrayList<>(MAX_ATTEMPTS);
+        started.add(completion.submit(() -> attempt(first, messages, maxTokens, json)));
+        long hedgeDelay = hedgeDelayNanos(first);
+        Future<ChatResponse> hedge = null;
+        int outstanding = 1;
+        RuntimeException lastError = null;
+
+        try {
+            while (outstanding > 0) {
+                boolean mayHedge = hedgeDelay > 0 && started.size() < MAX_ATTEMPTS;
+                Future<ChatResponse> done = mayHedge
+                        ? completion.poll(hedgeDelay, TimeUnit.NANOSECONDS)
+                        : completion.take();
+
+                if (done == null) {
+                    // First attempt is slower than its provider's hedge percentile
+                    hedgeDelay = 0;
+                    LlmProvider backup = hedgeAllowed() ? nextAvailable(candidates) : null;
+                    if (backup != null) {
+                        hedges.incrementAndGet();
+                        hedgesSent.increment();
+                        logger.debug("Hedging slow call to '{}' with '{}'", first.getName(), backup.getName());
+                        hedge = completion.submit(() -> attempt(backup, messages, maxTokens, json));
+                        started.add(hedge);
+                        outstanding++;
+                    }
+                    continue;
+                }
+
+                outstanding--;
+                try {
+                    ChatResponse response = done.get();
+                    if (done == hedge) {
+                        hedgesWon.increment();
+                    }
+                    return response;
+                } catch (ExecutionException e) {
+                    lastError = e.getCause() instanceof RuntimeException runtime
+                            ? runtime : new IllegalStateException(e.getCause());
+                }
+
+                // Failed with nothing else running: fail over to the next provider
+                if (outstanding == 0 && started.size() < MAX_ATTEMPTS) {
+                    LlmProvider backup = nextAvailable(candidates);
+                    if (backup != null) {
+                        logger.warn("LLM provider failed ({}), failing over to '{}'", lastError.getMessage(), backup.getName());
+                        started.add(completion.submit(() -> attempt(backup, messages, maxTokens, json)));
+                        outstanding++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the LLM", e);
+        } finally {
+            // Cancel the losing request (no-op for finished ones)
+            for (Future<ChatResponse> future : started) {
+                future.cancel(true);
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Stream from the best available provider (no hedging or failover once the stream started)
+     *
+     * @param messages Prompt messages
+     * @param maxTokens Max tokens of the answer
+     * @return Response chunks
+     * @throws CircuitOpenException if every provider's circuit breaker is open
+     */
+    public Flux<ChatResponse> stream(List<Message> messages, int maxTokens) {
+        calls.incrementAndGet();
+        LlmProvider provider = nextAvailable(rank().iterator());
+        if (provider == null) {
+            throw new CircuitOpenException("All LLM providers are unavailable");
+        }
+
+        long start = System.nanoTime();
+        return provider.getChatModel().stream(prompt(provider, messages, maxTokens, false))
+                .doOnComplete(() -> recordSuccess(provider, System.nanoTime() - start))
+                .doOnError(error -> recordError(provider, System.nanoTime() - start))
+                .doOnCancel(provider::release);
+    }
+
+    public List<String> getProviderNames() {
+        return providers.stream().map(LlmProvider::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * One attempt against one provider (the provider's breaker permission is already taken)
+     */
+    private ChatResponse attempt(LlmProvider provider, List<Message> messages, int maxTokens, boolean json) {
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = provider.getChatModel().call(prompt(provider, messages, maxTokens, json));
+            recordSuccess(provider, System.nanoTime() - start);
+            return response;
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Cancelled because the other attempt won - says nothing about this provider
+                provider.release();
+            } else {
+                recordError(provider, System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Providers best first (see class comment)
+     */
+    private List<LlmProvider> rank() {
+        List<LlmProvider> ranked = new ArrayList<>(providers);
+        if (ranked.size() < 2) {
+            return ranked;
+        }
+        // List.sort is stable - providers with equal scores keep the configured order
+        ranked.sort(Comparator.comparingDouble(this::score));
+        if (explorePercent > 0 && ThreadLocalRandom.current().nextInt(100) < explorePercent) {
+            LlmProvider explored = ranked.remove(ThreadLocalRandom.current().nextInt(ranked.size()));
+            ranked.addFirst(explored);
+        }
+        return ranked;
+    }
+
+    private double score(LlmProvider provider) {
+        LatencyWindow window = provider.getWindow();
+        if (window.samples() < minSamples) {
+            return 0;
+        }
+        long p95 = window.percentile(0.95);
+        if (p95 < 0) {
+            // Nothing succeeded recently
+            return Double.MAX_VALUE;
+        }
+        return p95 * (1 + errorPenalty * window.errorRate());
+    }
+
+    /**
+     * Next provider whose circuit breaker lets a call through, or null
+     */
+    private LlmProvider nextAvailable(Iterator<LlmProvider> candidates) {
+        while (candidates.hasNext()) {
+            LlmProvider provider = candidates.next();
+            if (provider.tryAcquire()) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * How long to wait for a provider before hedging (0 = do not hedge)
+     */
+    private long hedgeDelayNanos(LlmProvider provider) {
+        if (!hedgeEnabled || providers.size() < 2 || provider.getWindow().samples() < minSamples) {
+            return 0;
+        }
+        long percentile = provider.getWindow().percentile(hedgePercentile);
+        if (percentile < 0) {
+            return 0;
+        }
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs), percentile);
+    }
+
+    /**
+     * Hedges stay under budget-percent of all calls
+     */
+    private boolean hedgeAllowed() {
+        return (hedges.get() + 1) * 100 <= calls.get() * hedgeBudgetPercent;
+    }
+
+    private Prompt prompt(LlmProvider provider, List<Message> messages, int maxTokens, boolean json) {
+        OpenAiChatOptions.Builder options = OpenAiChatOptions.builder()
+                .model(provider.getModel())
+                .temperature(temperature)
+                .maxTokens(maxTokens);
+        if (json) {
+            options.responseFormat(ResponseFormat.builder().type(ResponseFormat.Type.JSON_OBJECT).build());
+        }
+        return new Prompt(messages, options.build());
+    }
+
+    private void recordSuccess(LlmProvider provider, long latencyNanos) {
+        provider.onSuccess(latencyNanos);
+        successTimers.get(provider.getName()).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordError(LlmProvider provider, long latencyNanos) {
+        provider.onError();
+        errorTimers.get(provider.getName()).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer callTimer(LlmProvider provider, String outcome) {
+        return Timer.builder("prodpulse.llm.provider.calls")
+                .description("LLM calls per provider")
+                .tag("provider", provider.getName())
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,185 @@
+package com.prodpulse.prodpulse_backend.service.metrics;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.service.prompt.CompactedLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the analysis pipeline (exposed at /actuator/prometheus)
+ *
+ * - prodpulse.analysis.stage{stage}: time per pipeline stage, with histogram buckets
+ * - prodpulse.analyses{source}: analyses by diagnosis source (AI, FALLBACK, CACHE, RULE)
+ * - prodpulse.rate_limit.rejections: requests refused by the rate limiter
+ * - prodpulse.analyses.coalesced: requests that shared an identical in-flight AI call
+ * - prodpulse.llm.tokens{type}: prompt and completion tokens reported by the LLM
+ * - prodpulse.prompt.tokens.saved: estimated log tokens removed by prompt compaction, per prompt
+ * - prodpulse.prompt.truncations: prompts whose log had to be cut to the token budget
+ * - prodpulse.ai.structured.invalid: structured answers that failed schema validation
+ */
+@Component
+public class AnalysisMetrics {
+
+    public static final String STAGE_VALIDATION = "validation";
+    public static final String STAGE_RATE_LIMIT = "rate_limit";
+    public static final String STAGE_LLM = "llm";
+    public static final String STAGE_EXTRACTION = "extraction";
+    public static final String STAGE_PERSISTENCE = "persistence";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    private final Map<DiagnosisSource, Counter> analysesBySource = new EnumMap<>(DiagnosisSource.class);
+
+    private Counter rateLimitRejections;
+
+    private Counter coalescedAnalyses;
+
+    private Counter promptTokens;
+
+    private Counter completionTokens;
+
+    private DistributionSummary promptTokensSaved;
+
+    private Counter promptTruncations;
+
+    private Counter invalidStructuredOutputs;
+
+    @PostConstruct
+    public void init() {
+        for (DiagnosisSource source : DiagnosisSource.values()) {
+            analysesBySource.put(source, Counter.builder("prodpulse.analyses")
+                    .description("Analyses by diagnosis source")
+                    .tag("source", source.name())
+                    .register(meterRegistry));
+        }
+        rateLimitRejections = Counter.builder("prodpulse.rate_limit.rejections")
+                .description("Requests refused by the rate limiter")
+                .register(meterRegistry);
+        coalescedAnalyses = Counter.builder("prodpulse.analyses.coalesced")
+                .description("Requests that shared an identical in-flight AI call")
+                .register(meterRegistry);
+        promptTokens = Counter.builder("prodpulse.llm.tokens")
+                .description("Tokens reported by the LLM")
+                .tag("type", "prompt")
+                .register(meterRegistry);
+        completionTokens = Counter.builder("prodpulse.llm.tokens")
+                .description("Tokens reported by the LLM")
+                .tag("type", "completion")
+                .register(meterRegistry);
+        promptTokensSaved = DistributionSummary.builder("prodpulse.prompt.tokens.saved")
+                .description("Estimated log tokens removed by prompt compaction, per prompt")
+                .baseUnit("tokens")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        promptTruncations = Counter.builder("prodpulse.prompt.truncations")
+                .description("Prompts whose log was cut to fit the token budget")
+                .register(meterRegistry);
+        invalidStructuredOutputs = Counter.builder("prodpulse.ai.structured.invalid")
+                .description("Structured AI answers that failed schema validation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Time one pipeline stage
+     *
+     * @param stage Stage name (STAGE_* constants)
+     * @param work The stage
+     * @return The stage's result
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        return stageTimer(stage).record(work);
+    }
+
+    /**
+     * Time one pipeline stage that returns nothing
+     *
+     * @param stage Stage name (STAGE_* constants)
+     * @param work The stage
+     */
+    public void time(String stage, Runnable work) {
+        stageTimer(stage).record(work);
+    }
+
+    /**
+     * Start timing a stage made of several statements (see stop)
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Stop timing a stage started with start()
+     *
+     * @param sample Sample returned by start()
+     * @param stage Stage name (STAGE_* constants)
+     */
+    public void stop(Timer.Sample sample, String stage) {
+        sample.stop(stageTimer(stage));
+    }
+
+    /**
+     * Count a stored analysis by where its diagnosis came from
+     */
+    public void recordAnalysis(DiagnosisSource source) {
+        analysesBySource.get(source).increment();
+    }
+
+    public void recordRateLimitRejection() {
+        rateLimitRejections.increment();
+    }
+
+    public void recordCoalesced() {
+        coalescedAnalyses.increment();
+    }
+
+    public void recordInvalidStructuredOutput() {
+        invalidStructuredOutputs.increment();
+    }
+
+    /**
+     * Count the tokens of one LLM call (no-op if the response carried no usage)
+     */
+    public void recordTokens(Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            promptTokens.increment(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            completionTokens.increment(usage.getCompletionTokens());
+        }
+    }
+
+    /**
+     * Record the tokens saved by compacting one prompt's log
+     */
+    public void recordPromptCompaction(CompactedLog compacted) {
+        promptTokensSaved.record(Math.max(0, compacted.getTokensSaved()));
+        if (compacted.isTruncated()) {
+            promptTruncations.increment();
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return stageTimers.computeIfAbsent(stage, name -> Timer.builder("prodpulse.analysis.stage")
+                .description("Time spent per analysis pipeline stage")
+                .tag("stage", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,56 @@
+package com.prodpulse.prodpulse_backend.service.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters for the Hibernate second-level cache (AnalysisHistory entities)
+ *
+ * - prodpulse.db.cache.requests{result=hit|miss}: entity loads answered by / missing from the cache
+ * - prodpulse.db.cache.puts: entities added to the cache
+ * - prodpulse.db.cache.hit_ratio: hits / (hits + misses) since startup
+ *
+ * Read from Hibernate's statistics, so they stay at zero unless hibernate.generate_statistics is on.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        FunctionCounter.builder("prodpulse.db.cache.requests", statistics, Statistics::getSecondLevelCacheHitCount)
+                .description("Entity loads answered by the second-level cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.db.cache.requests", statistics, Statistics::getSecondLevelCacheMissCount)
+                .description("Entity loads answered by the second-level cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.db.cache.puts", statistics, Statistics::getSecondLevelCachePutCount)
+                .description("Entities added to the second-level cache")
+                .register(meterRegistry);
+        Gauge.builder("prodpulse.db.cache.hit_ratio", statistics, SecondLevelCacheMetrics::hitRatio)
+                .description("Second-level cache hit ratio since startup")
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long requests = hits + statistics.getSecondLevelCacheMissCount();
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.prodpulse.prodpulse_backend.service.persistence;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persists analyses (analysis_history rows)
+ * Selected with app.persistence.mode: "sync" (default) or "write-behind"
+ *
+ * Either way the returned rows carry their final id, so responses can reference them;
+ * with write-behind the INSERT happens shortly after the response.
+ */
+public interface AnalysisWriter {
+
+    /**
+     * Persist one analysis
+     *
+     * @param history Analysis to store (id unset)
+     * @return The analysis with its id
+     */
+    AnalysisHistory save(AnalysisHistory history);
+
+    /**
+     * Persist several analyses together (JDBC batch)
+     *
+     * @param histories Analyses to store (ids unset)
+     * @return The analyses with their ids, in the same order
+     */
+    List<AnalysisHistory> saveAll(List<AnalysisHistory> histories);
+
+    /**
+     * Find an analysis, including one that is not written yet
+     * Reads the primary database (never a read replica that may not have the row yet)
+     *
+     * @param id Analysis ID
+     * @return The analysis, if known
+     */
+    Optional<AnalysisHistory> findById(Long id);
+
+    /**
+     * Writer statistics (for the /api/persistence-stats endpoint)
+     *
+     * @return Mode, and queue depth and counters for write-behind
+     */
+    Map<String, Object> getStats();
+
+}
@@ -0,0 +1,48 @@
+package com.prodpulse.prodpulse_backend.service.persistence;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes each analysis before the response goes out (default, app.persistence.mode=sync)
+ * One short repository transaction per save
+ */
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "sync", matchIfMissing = true)
+public class SynchronousAnalysisWriter implements AnalysisWriter {
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Override
+    public AnalysisHistory save(AnalysisHistory history) {
+        return analysisHistoryRepository.save(history);
+    }
+
+    @Override
+    public List<AnalysisHistory> saveAll(List<AnalysisHistory> histories) {
+        return analysisHistoryRepository.saveAll(histories);
+    }
+
+    @Override
+    @Transactional
+    public Optional<AnalysisHistory> findById(Long id) {
+        return analysisHistoryRepository.findById(id);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", "sync");
+        return result;
+    }
+}
@@ -0,0 +1,294 @@
+package com.prodpulse.prodpulse_backend.service.persistence;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.storage.TextCompressor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind persistence (app.persistence.mode=write-behind)
+ *
+ * save() takes an id from the entity's own pooled sequence (one database round trip per
+ * ID_ALLOCATION_SIZE rows), queues the row and returns - the INSERT is not on the request path.
+ * A single flusher thread drains the bounded queue and writes up to batch-size rows per
+ * JDBC batch in one transaction. When the queue is full, the row is written synchronously
+ * instead (backpressure without losing data). On shutdown the queue is drained before
+ * the connection pool closes.
+ *
+ * Rows become visible to queries up to flush-interval-ms later. findById() also sees
+ * queued rows, so job polling is not affected. Database rate limiting counts rows and would
+ * let a client exceed its quota by the analyses still queued, so startup fails with
+ * app.rate-limit.mode=database - use the default in-memory limiter with this mode.
+ */
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "write-behind")
+public class WriteBehindAnalysisWriter implements AnalysisWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindAnalysisWriter.class);
+
+    /**
+     * Same columns as the AnalysisHistory mapping (log_input and diagnosis go through TextCompressor,
+     * like CompressedTextConverter does for JPA writes)
+     */
+    private static final String INSERT_SQL = "INSERT INTO analysis_history "
+            + "(id, ip_address, log_input, log_fingerprint, diagnosis, severity, title, source, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TextCompressor textCompressor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.persistence.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.persistence.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.persistence.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.persistence.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.rate-limit.mode:memory}")
+    private String rateLimitMode;
+
+    private BlockingQueue<AnalysisHistory> queue;
+
+    /**
+     * Queued or being written, by id (for findById)
+     */
+    private final Map<Long, AnalysisHistory> pending = new ConcurrentHashMap<>();
+
+    private SessionFactoryImplementor sessionFactory;
+
+    private BeforeExecutionGenerator idGenerator;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder synchronousWrites = new LongAdder();
+
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if ("database".equals(rateLimitMode)) {
+            throw new IllegalStateException("app.persistence.mode=write-behind cannot be combined with "
+                    + "app.rate-limit.mode=database: queued analyses are not counted until flushed");
+        }
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(AnalysisHistory.class).getGenerator();
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("prodpulse.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Analyses waiting to be written")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.persistence.written", written, LongAdder::sum)
+                .description("Analyses written by the write-behind flusher")
+                .register(meterRegistry);
+        FunctionCounter.builder("prodpulse.persistence.failed", failed, LongAdder::sum)
+                .description("Analyses that could not be written")
+                .register(meterRegistry);
+        running = true;
+        flusher = Thread.ofPlatform().name("analysis-writer").daemon().start(this::flushLoop);
+
+        logger.info("Write-behind persistence (queue capacity: {}, batch size: {}, flush interval: {} ms)",
+                queueCapacity, batchSize, flushIntervalMs);
+    }
+
+    @Override
+    public AnalysisHistory save(AnalysisHistory history) {
+        prepare(history);
+        enqueue(history);
+        return history;
+    }
+
+    @Override
+    public List<AnalysisHistory> saveAll(List<AnalysisHistory> histories) {
+        histories.forEach(this::prepare);
+        histories.forEach(this::enqueue);
+        return histories;
+    }
+
+    @Override
+    @Transactional
+    public Optional<AnalysisHistory> findById(Long id) {
+        AnalysisHistory queued = pending.get(id);
+        return queued != null ? Optional.of(queued) : analysisHistoryRepository.findById(id);
+    }
+
+    /**
+     * Drain the queue before the DataSource shuts down
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Not interrupted: a batch in flight finishes, then the loop sees running=false within flush-interval-ms
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+
+        // Whatever the flusher did not get to (or if it is stuck), write here
+        List<AnalysisHistory> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            write(rest.subList(from, Math.min(from + batchSize, rest.size())));
+        }
+
+        logger.info("Write-behind persistence stopped ({} rows written, {} failed)", written.sum(), failed.sum());
+    }
+
+    /**
+     * Assign the id and creation time the INSERT will use
+     */
+    private void prepare(AnalysisHistory history) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            history.setId((Long) idGenerator.generate(
+                    (SharedSessionContractImplementor) session, history, null, EventType.INSERT));
+        }
+        if (history.getCreatedAt() == null) {
+            history.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    private void enqueue(AnalysisHistory history) {
+        pending.put(history.getId(), history);
+        if (running && queue.offer(history)) {
+            maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+            return;
+        }
+
+        // Queue full (or shutting down) - write it ourselves
+        synchronousWrites.increment();
+        write(List.of(history));
+    }
+
+    private void flushLoop() {
+        List<AnalysisHistory> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AnalysisHistory first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // shutdown() drains the rest
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Write-behind flush failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * INSERT rows in one JDBC batch; if the batch fails, retry row by row so one bad row
+     * does not take the others with it
+     */
+    private void write(List<AnalysisHistory> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows.stream().map(this::toParameters).toList()));
+            batches.increment();
+            written.add(rows.size());
+        } catch (RuntimeException e) {
+            if (rows.size() == 1) {
+                failed.increment();
+                logger.error("Could not write analysis {}: {}", rows.get(0).getId(), e.getMessage(), e);
+            } else {
+                logger.warn("Batch of {} analyses failed, writing them one by one: {}", rows.size(), e.getMessage());
+                rows.forEach(row -> write(List.of(row)));
+                return;
+            }
+        }
+        rows.forEach(row -> pending.remove(row.getId()));
+    }
+
+    private Object[] toParameters(AnalysisHistory history) {
+        return new Object[]{
+                history.getId(),
+                history.getIpAddress(),
+                textCompressor.encode(history.getLogInput()),
+                history.getLogFingerprint(),
+                textCompressor.encode(history.getDiagnosis()),
+                history.getSeverity(),
+                history.getTitle(),
+                history.getSource() != null ? history.getSource().name() : null,
+                Timestamp.valueOf(history.getCreatedAt())
+        };
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", "write-behind");
+        result.put("queueDepth", queue.size());
+        result.put("queueCapacity", queueCapacity);
+        result.put("maxQueueDepth", maxQueueDepth.get());
+        result.put("written", written.sum());
+        result.put("batches", batches.sum());
+        result.put("failed", failed.sum());
+        result.put("synchronousWrites", synchronousWrites.sum());
+        return result;
+    }
+}
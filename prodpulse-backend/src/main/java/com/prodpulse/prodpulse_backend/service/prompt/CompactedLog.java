@@ -0,0 +1,36 @@
+package com.prodpulse.prodpulse_backend.service.prompt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of compacting a log for a prompt: the text sent plus token estimates before and after
+ */
+@Getter
+@AllArgsConstructor
+public class CompactedLog {
+
+    /**
+     * Log text to put in the prompt
+     */
+    private final String text;
+
+    /**
+     * Estimated tokens of the log as submitted
+     */
+    private final int originalTokens;
+
+    /**
+     * Estimated tokens of text
+     */
+    private final int compactedTokens;
+
+    /**
+     * True if lines were dropped to fit the token budget (not just compacted)
+     */
+    private final boolean truncated;
+
+    public int getTokensSaved() {
+        return originalTokens - compactedTokens;
+    }
+}
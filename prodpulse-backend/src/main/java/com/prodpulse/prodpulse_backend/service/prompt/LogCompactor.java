@@ -0,0 +1,195 @@
+package com.prodpulse.prodpulse_backend.service.prompt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compacts a log to what a diagnosis needs before it goes into a prompt
+ *
+ * 1. Noise: ANSI color codes, blank lines and trailing whitespace are dropped
+ * 2. Repeats: consecutive lines that differ only in numbers become one line + "[repeated N times]"
+ * 3. Stack frames: frames already shown earlier (e.g. again under "Caused by") and framework
+ *    frames (app.ai.prompt.framework-packages) are folded into "... N frames omitted".
+ *    The first frame of every trace is kept - it is where the exception was thrown.
+ * 4. Budget: if the estimate still exceeds the token budget, the beginning and end are kept
+ *    and the middle is replaced by a marker
+ *
+ * Unlike LogReducer (whole uploads, by characters) this works on one prompt's worth of text, by tokens.
+ */
+@Component
+public class LogCompactor {
+
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;\\d]*[A-Za-z]");
+
+    // Share of the budget given to the beginning of the log when the middle has to go
+    private static final double HEAD_SHARE = 0.6;
+
+    @Value("${app.ai.prompt.framework-packages:java.,javax.,jdk.,sun.,com.sun.,jakarta.,org.springframework.,org.apache.,org.hibernate.,com.zaxxer.,io.netty.,reactor.,org.eclipse.jetty.,io.undertow.,kotlin.,kotlinx.,scala.}")
+    private List<String> frameworkPackages;
+
+    /**
+     * Compact a log to at most tokenBudget estimated tokens
+     *
+     * @param log Raw log text
+     * @param tokenBudget Max estimated tokens of the result (0 or less = no limit)
+     * @return Compacted text and token estimates
+     */
+    public CompactedLog compact(String log, int tokenBudget) {
+        int originalTokens = TokenEstimator.estimate(log);
+        List<String> lines = compactLines(ANSI_ESCAPE.matcher(log).replaceAll(""));
+
+        List<Integer> lineTokens = new ArrayList<>(lines.size());
+        int total = 0;
+        for (String line : lines) {
+            // +1 for the line break
+            int tokens = TokenEstimator.estimate(line) + 1;
+            lineTokens.add(tokens);
+            total += tokens;
+        }
+
+        boolean truncated = tokenBudget > 0 && total > tokenBudget;
+        String text = truncated ? fitBudget(lines, lineTokens, tokenBudget) : String.join("\n", lines);
+        return new CompactedLog(text, originalTokens, TokenEstimator.estimate(text), truncated);
+    }
+
+    /**
+     * Steps 1-3: noise, repeats, stack frames
+     */
+    private List<String> compactLines(String log) {
+        List<String> out = new ArrayList<>();
+        Set<String> seenFrames = new HashSet<>();
+
+        String previousKey = null;
+        int repeats = 0;
+        int omittedFrames = 0;
+        boolean inTrace = false;
+        boolean previousDropped = false;
+
+        for (String raw : log.split("\r?\n")) {
+            String line = raw.stripTrailing();
+            if (line.isBlank()) {
+                continue;
+            }
+
+            String key = repeatKey(line);
+            if (key.equals(previousKey)) {
+                // Repeats of a folded frame are folded with it
+                if (previousDropped) {
+                    omittedFrames++;
+                } else {
+                    repeats++;
+                }
+                continue;
+            }
+            repeats = flushRepeats(out, repeats);
+            previousKey = key;
+
+            String trimmed = line.stripLeading();
+            boolean frame = trimmed.startsWith("at ");
+            previousDropped = false;
+            if (!frame) {
+                omittedFrames = flushFrames(out, omittedFrames);
+                inTrace = false;
+                out.add(line);
+                continue;
+            }
+
+            // Keep the top frame of each trace, fold known and framework frames below it
+            boolean firstFrame = !inTrace;
+            inTrace = true;
+            boolean seen = !seenFrames.add(trimmed);
+            if (!firstFrame && (seen || isFrameworkFrame(trimmed))) {
+                omittedFrames++;
+                previousDropped = true;
+                continue;
+            }
+            omittedFrames = flushFrames(out, omittedFrames);
+            out.add("\t" + trimmed);
+        }
+        flushRepeats(out, repeats);
+        flushFrames(out, omittedFrames);
+        return out;
+    }
+
+    /**
+     * Step 4: keep lines from the start (HEAD_SHARE of the budget) and the end, drop the middle
+     */
+    private String fitBudget(List<String> lines, List<Integer> lineTokens, int tokenBudget) {
+        // Reserve room for the marker line
+        int budget = Math.max(0, tokenBudget - 20);
+        int headBudget = (int) (budget * HEAD_SHARE);
+
+        int head = 0;
+        int used = 0;
+        while (head < lines.size() && used + lineTokens.get(head) <= headBudget) {
+            used += lineTokens.get(head++);
+        }
+        int tail = lines.size();
+        while (tail > head && used + lineTokens.get(tail - 1) <= budget) {
+            used += lineTokens.get(--tail);
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < head; i++) {
+            text.append(lines.get(i)).append('\n');
+        }
+        text.append("... [").append(tail - head).append(" lines omitted to fit the prompt]");
+        for (int i = tail; i < lines.size(); i++) {
+            text.append('\n').append(lines.get(i));
+        }
+        return text.toString();
+    }
+
+    private boolean isFrameworkFrame(String frame) {
+        // "at " + optional "module/" prefix (Java 9+: "at java.base/java.lang.Thread.run")
+        String location = frame.substring(3);
+        int slash = location.indexOf('/');
+        int paren = location.indexOf('(');
+        if (slash >= 0 && (paren < 0 || slash < paren)) {
+            location = location.substring(slash + 1);
+        }
+        for (String prefix : frameworkPackages) {
+            if (location.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int flushRepeats(List<String> out, int repeats) {
+        if (repeats > 0) {
+            int last = out.size() - 1;
+            if (last >= 0) {
+                out.set(last, out.get(last) + " [repeated " + repeats + " more times]");
+            }
+        }
+        return 0;
+    }
+
+    private static int flushFrames(List<String> out, int omittedFrames) {
+        if (omittedFrames > 0) {
+            out.add("\t... " + omittedFrames + (omittedFrames == 1 ? " frame omitted" : " frames omitted"));
+        }
+        return 0;
+    }
+
+    /**
+     * Key for repeat detection: the line without digits (timestamps, ids, durations)
+     */
+    private static String repeatKey(String line) {
+        StringBuilder key = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.prodpulse.prodpulse_backend.service.prompt;
+
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import com.prodpulse.prodpulse_backend.service.similar.SimilarIncident;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the messages sent to the LLM
+ *
+ * The instructions go first as a SystemMessage that is byte-for-byte identical on every call,
+ * so providers with prompt caching can reuse the prefix; only the UserMessage changes.
+ * The log is compacted by LogCompactor to app.ai.prompt.max-log-tokens first, and the
+ * estimated tokens saved are recorded (prodpulse.prompt.tokens.saved).
+ * The diagnosis of a similar past incident, if any, follows the log as plain text.
+ */
+@Component
+public class PromptBuilder {
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private LogCompactor logCompactor;
+
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    @Value("${app.ai.prompt.compaction.enabled:true}")
+    private boolean compactionEnabled;
+
+    @Value("${app.ai.prompt.max-log-tokens:6000}")
+    private int maxLogTokens;
+
+    @Value("${app.similar-incidents.context-max-chars:1500}")
+    private int contextMaxChars;
+
+    /**
+     * System prompt for Groq - defines how AI should analyze logs
+     */
+    static final String SYSTEM_PROMPT = """
+            You are ProdPulse.AI, an expert production error diagnostic system.
+            You specialize in analyzing error logs from production environments,
+            particularly Railway, Docker, Node.js, MySQL, PostgreSQL, and common web frameworks.
+            
+            Your role:
+            1. Analyze the error log provided
+            2. Identify the root cause
+            3. Provide clear, actionable solutions
+            4. Suggest prevention strategies
+            
+            Format your response as HTML with these sections:
+            
+            <div class="diagnosis">
+                <h3>🔍 What Happened:</h3>
+                <p>Brief explanation of the root cause in simple terms</p>
+                
+                <h3>🔧 How to Fix:</h3>
+                <ul>
+                    <li>Step 1: Specific action</li>
+                    <li>Step 2: Another action</li>
+                    <li>Step 3: Final action</li>
+                </ul>
+                
+                <h3>💡 Prevention Tips:</h3>
+                <ul>
+                    <li>Best practice 1</li>
+                    <li>Best practice 2</li>
+                </ul>
+            </div>
+            
+            Focus on:
+            - Railway deployment issues
+            - Environment variable problems
+            - Database connection errors
+            - Memory/CPU issues (OOM)
+            - Port binding problems
+            - Docker container issues
+            - Common Node.js/Java/Python errors
+            
+            Keep explanations clear and actionable. Avoid jargon when possible.
+            """;
+
+    /**
+     * System prompt for structured output (app.ai.output.structured) - compact JSON instead of HTML,
+     * about a third of the output tokens; StructuredDiagnosisParser validates the same schema
+     */
+    static final String STRUCTURED_SYSTEM_PROMPT = """
+            You are ProdPulse.AI, an expert production error diagnostic system.
+            You specialize in analyzing error logs from production environments,
+            particularly Railway, Docker, Node.js, MySQL, PostgreSQL, and common web frameworks.
+
+            Identify the root cause of the error log, give clear actionable fix steps
+            and suggest prevention strategies. Focus on deployment, environment variable,
+            database connection, memory (OOM), port binding and container issues.
+
+            Answer with ONE compact JSON object and nothing else (no markdown, no HTML):
+            {"rootCause":"...","fixSteps":["...","..."],"preventionTips":["..."],"confidence":0.8}
+
+            - rootCause: string, the root cause in simple terms (1-3 sentences)
+            - fixSteps: array of 1 to 10 strings, specific actions in order
+            - preventionTips: array of 0 to 10 strings
+            - confidence: number from 0 to 1, how sure you are of the root cause
+            Keep every string short and avoid jargon.
+            """;
+
+    /**
+     * System prompt for summarizing one part of a large log - the summaries are diagnosed together afterwards
+     */
+    static final String SUMMARY_PROMPT = """
+            You are summarizing one part of a large production log for a later diagnosis.
+            The log was condensed: only error lines with some context are left, and markers
+            like "... [N lines skipped]" show where lines were removed.
+
+            List, in order of appearance, the errors and warning signs in this part:
+            exception types and messages, the first application stack frame, failing
+            components, and any timestamps or counts that show when and how often it happened.
+            Answer in plain text with at most 10 short bullet points. No HTML, no fixes.
+            If there is nothing notable, answer "No errors in this part."
+            """;
+
+    /**
+     * Messages for diagnosing an error log
+     *
+     * @param errorLog The error log text to analyze
+     * @return System instructions, then the compacted log
+     */
+    public List<Message> diagnosisMessages(String errorLog) {
+        return diagnosisMessages(errorLog, null);
+    }
+
+    /**
+     * Messages for diagnosing an error log, with a similar past incident as context
+     *
+     * @param errorLog The error log text to analyze
+     * @param similar Similar past incident (null for none)
+     * @return System instructions, then the compacted log and the past diagnosis
+     */
+    public List<Message> diagnosisMessages(String errorLog, SimilarIncident similar) {
+        String userPrompt = "Analyze this production error log and provide diagnosis:\n\n"
+                + compact(errorLog)
+                + similarIncidentContext(similar)
+                + "\n\nRemember to format your response as HTML as specified in the system instructions.";
+
+        return List.of(new SystemMessage(SYSTEM_PROMPT), new UserMessage(userPrompt));
+    }
+
+    /**
+     * Messages for diagnosing an error log as structured JSON
+     *
+     * @param errorLog The error log text to analyze
+     * @param similar Similar past incident (null for none)
+     * @return System instructions, then the compacted log and the past diagnosis
+     */
+    public List<Message> structuredDiagnosisMessages(String errorLog, SimilarIncident similar) {
+        String userPrompt = "Analyze this production error log:\n\n" + compact(errorLog) + similarIncidentContext(similar);
+
+        return List.of(new SystemMessage(STRUCTURED_SYSTEM_PROMPT), new UserMessage(userPrompt));
+    }
+
+    /**
+     * Messages for summarizing one part of a large log
+     *
+     * @param logPart Part of the condensed log
+     * @param part Number of this part (1-based)
+     * @param parts Total number of parts
+     * @return System instructions, then the compacted part
+     */
+    public List<Message> summaryMessages(String logPart, int part, int parts) {
+        String userPrompt = "Part " + part + " of " + parts + ":\n\n" + compact(logPart);
+
+        return List.of(new SystemMessage(SUMMARY_PROMPT), new UserMessage(userPrompt));
+    }
+
+    /**
+     * Past diagnosis as plain text (HTML tags stripped), cut to app.similar-incidents.context-max-chars
+     */
+    private String similarIncidentContext(SimilarIncident similar) {
+        if (similar == null) {
+            return "";
+        }
+        String text = HTML_TAG.matcher(similar.getDiagnosis()).replaceAll(" ");
+        text = WHITESPACE.matcher(HtmlUtils.htmlUnescape(text)).replaceAll(" ").trim();
+        if (text.length() > contextMaxChars) {
+            text = text.substring(0, contextMaxChars) + " ...";
+        }
+        return "\n\nA similar past incident (" + Math.round(similar.getSimilarity() * 100)
+                + "% similar) was diagnosed as follows. Reuse what fits this log and ignore the rest:\n"
+                + text;
+    }
+
+    private String compact(String log) {
+        if (!compactionEnabled) {
+            return log;
+        }
+        CompactedLog compacted = logCompactor.compact(log, maxLogTokens);
+        metrics.recordPromptCompaction(compacted);
+        return compacted.getText();
+    }
+}
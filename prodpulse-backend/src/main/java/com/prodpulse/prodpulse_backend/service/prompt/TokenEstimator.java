@@ -0,0 +1,59 @@
+package com.prodpulse.prodpulse_backend.service.prompt;
+
+/**
+ * Local estimate of how many tokens an LLM tokenizer (BPE, e.g. LLaMA 3 / cl100k) makes of a text
+ *
+ * Single pass, no vocabulary: a run of letters costs one token per 4 characters, a run of
+ * digits one per 3, every other visible symbol and every line break one token, and spaces
+ * are free (BPE merges them into the next word). Non-ASCII characters cost one token each.
+ * Good to about +-15% on English log text - enough for budgeting, not for billing.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_WORD_TOKEN = 4;
+
+    private static final int DIGITS_PER_TOKEN = 3;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * Estimate the token count of a text
+     *
+     * @param text Any text
+     * @return Estimated number of tokens (0 for empty text)
+     */
+    public static int estimate(CharSequence text) {
+        int tokens = 0;
+        int letters = 0;
+        int digits = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 128 && Character.isLetter(c)) {
+                tokens += ceilDiv(digits, DIGITS_PER_TOKEN);
+                digits = 0;
+                letters++;
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                tokens += ceilDiv(letters, CHARS_PER_WORD_TOKEN);
+                letters = 0;
+                digits++;
+                continue;
+            }
+
+            tokens += ceilDiv(letters, CHARS_PER_WORD_TOKEN) + ceilDiv(digits, DIGITS_PER_TOKEN);
+            letters = 0;
+            digits = 0;
+            if (c == '\n' || !Character.isWhitespace(c)) {
+                tokens++;
+            }
+        }
+        return tokens + ceilDiv(letters, CHARS_PER_WORD_TOKEN) + ceilDiv(digits, DIGITS_PER_TOKEN);
+    }
+
+    private static int ceilDiv(int count, int per) {
+        return (count + per - 1) / per;
+    }
+}
@@ -0,0 +1,143 @@
+package com.prodpulse.prodpulse_backend.service.ratelimit;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter backed by a COUNT query on analysis_history
+ * Fallback mode (app.rate-limit.mode=database) - always consistent across
+ * several backend instances, but costs one aggregate query per check
+ * Checks read the primary database; only the status (getRemaining) may read a replica
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.mode", havingValue = "database")
+public class DatabaseRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseRateLimiter.class);
+
+    // Sources charged at the cache-hit discount (see DiagnosisSource.isLocal)
+    private static final List<DiagnosisSource> LOCAL_SOURCES = List.of(DiagnosisSource.CACHE, DiagnosisSource.RULE);
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Value("${app.rate-limit.max-requests:10}")
+    private int maxRequests;
+
+    @Value("${app.rate-limit.window-hours:24}")
+    private int windowHours;
+
+    @Value("${app.rate-limit.cache-hits-per-request:0}")
+    private int cacheHitsPerRequest;
+
+    /**
+     * Slots reserved by analyses that are still running (not yet persisted)
+     * Keyed by IP address, entries are removed when they drop back to zero
+     */
+    private final ConcurrentMap<String, AtomicInteger> reservedSlots = new ConcurrentHashMap<>();
+
+    /**
+     * Time source in epoch milliseconds (System::currentTimeMillis outside tests)
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    @Override
+    public boolean tryAcquire(String key) {
+        int reserved = reservedSlots.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+
+        long requestCount = countRecentRequests(key);
+
+        logger.debug("IP {} has made {} requests in last {} hours ({} in progress)",
+                key, requestCount, windowHours, reserved);
+
+        // reserved includes this request
+        if (requestCount + reserved > maxRequests) {
+            releaseSlot(key);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryAcquireCached(String key) {
+        if (cacheHitsPerRequest <= 0) {
+            return true;
+        }
+
+        LocalDateTime windowStart = windowStart();
+        long total = analysisHistoryRepository.countByIpAddressAndCreatedAtAfter(key, windowStart);
+        long cached = analysisHistoryRepository
+                .countByIpAddressAndCreatedAtAfterAndSourceIn(key, windowStart, LOCAL_SOURCES);
+
+        AtomicInteger reserved = reservedSlots.get(key);
+        int inProgress = reserved != null ? reserved.get() : 0;
+
+        // Cost including this hit
+        long charged = total - cached + (cached + 1) / cacheHitsPerRequest;
+        return charged + inProgress <= maxRequests;
+    }
+
+    @Override
+    public void commit(String key) {
+        // The persisted row now counts against the limit
+        releaseSlot(key);
+    }
+
+    @Override
+    public void release(String key) {
+        releaseSlot(key);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getRemaining(String key) {
+        AtomicInteger reserved = reservedSlots.get(key);
+        int inProgress = reserved != null ? reserved.get() : 0;
+
+        return (int) Math.max(0, maxRequests - countRecentRequests(key) - inProgress);
+    }
+
+    /**
+     * Requests charged in the current window: every AI analysis, plus
+     * one per cache-hits-per-request cache or rule hits
+     */
+    private long countRecentRequests(String key) {
+        LocalDateTime windowStart = windowStart();
+        if (cacheHitsPerRequest <= 0) {
+            // Cache and rule hits are free: only the other sources count
+            return analysisHistoryRepository.countByIpAddressAndCreatedAtAfterExcludingSources(
+                    key, windowStart, LOCAL_SOURCES);
+        }
+
+        long total = analysisHistoryRepository.countByIpAddressAndCreatedAtAfter(key, windowStart);
+        long cached = analysisHistoryRepository
+                .countByIpAddressAndCreatedAtAfterAndSourceIn(key, windowStart, LOCAL_SOURCES);
+        return total - cached + cached / cacheHitsPerRequest;
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault())
+                .minusHours(windowHours);
+    }
+
+    private void releaseSlot(String key) {
+        reservedSlots.computeIfPresent(key,
+                (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+}
@@ -0,0 +1,311 @@
+package com.prodpulse.prodpulse_backend.service.ratelimit;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.model.projection.RequestTimestamp;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory sliding-window rate limiter (default, app.rate-limit.mode=memory)
+ *
+ * Each IP keeps a ring buffer of its last max-requests timestamps, so a check is
+ * a few array reads under a lock stripe - no query, no allocation once the key exists.
+ * Windows are rebuilt from analysis_history at startup and idle keys are evicted on a timer
+ * (along with any partial cache-hit credit they hold).
+ * State is per instance: use database mode when running several backend replicas.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryRateLimiter.class);
+
+    /**
+     * Number of lock stripes (power of two)
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Rows read per query when rebuilding windows at startup
+     */
+    private static final int REBUILD_PAGE_SIZE = 5000;
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Value("${app.rate-limit.max-requests:10}")
+    private int maxRequests;
+
+    @Value("${app.rate-limit.window-hours:24}")
+    private int windowHours;
+
+    @Value("${app.rate-limit.cache-hits-per-request:0}")
+    private int cacheHitsPerRequest;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private long windowMillis;
+
+    /**
+     * Time source in epoch milliseconds (System::currentTimeMillis outside tests)
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    public InMemoryRateLimiter() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Rebuild windows from requests already recorded in the database
+     * Read in pages of REBUILD_PAGE_SIZE rows, so startup memory does not grow with the table
+     */
+    @PostConstruct
+    public void init() {
+        windowMillis = TimeUnit.HOURS.toMillis(windowHours);
+
+        LocalDateTime windowStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault())
+                .minusHours(windowHours);
+        PageRequest page = PageRequest.of(0, REBUILD_PAGE_SIZE);
+        List<RequestTimestamp> recent = analysisHistoryRepository.findByCreatedAtAfterOrderByCreatedAtAscIdAsc(windowStart, page);
+        long rebuilt = 0;
+
+        while (!recent.isEmpty()) {
+            for (RequestTimestamp request : recent) {
+                rebuild(request);
+            }
+            rebuilt += recent.size();
+            if (recent.size() < REBUILD_PAGE_SIZE) {
+                break;
+            }
+            RequestTimestamp last = recent.get(recent.size() - 1);
+            recent = analysisHistoryRepository.findRequestTimestampsAfter(
+                    windowStart, last.getCreatedAt(), last.getId(), page);
+        }
+
+        logger.info("Rate limiter rebuilt from {} requests in the last {} hours", rebuilt, windowHours);
+    }
+
+    private void rebuild(RequestTimestamp request) {
+        long timestamp = request.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        boolean cacheHit = request.getSource() != null && request.getSource().isLocal();
+        if (cacheHit && cacheHitsPerRequest <= 0) {
+            return;
+        }
+
+        Stripe stripe = stripeFor(request.getIpAddress());
+        stripe.lock.lock();
+        try {
+            Window window = stripe.windows.computeIfAbsent(request.getIpAddress(), k -> new Window(maxRequests));
+            if (!cacheHit) {
+                window.record(timestamp);
+            } else if (++window.cachedHits >= cacheHitsPerRequest) {
+                window.cachedHits = 0;
+                window.record(timestamp);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                window = new Window(maxRequests);
+                stripe.windows.put(key, window);
+            }
+            window.expire(now - windowMillis);
+            if (window.size >= maxRequests) {
+                return false;
+            }
+            window.record(now);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryAcquireCached(String key) {
+        if (cacheHitsPerRequest <= 0) {
+            return true;
+        }
+
+        long now = clock.getAsLong();
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                window = new Window(maxRequests);
+                stripe.windows.put(key, window);
+            }
+            if (window.cachedHits + 1 < cacheHitsPerRequest) {
+                window.cachedHits++;
+                return true;
+            }
+
+            // This hit completes a full request
+            window.expire(now - windowMillis);
+            if (window.size >= maxRequests) {
+                return false;
+            }
+            window.cachedHits = 0;
+            window.record(now);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void commit(String key) {
+        // The timestamp recorded by tryAcquire already counts
+    }
+
+    @Override
+    public void release(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Window window = stripe.windows.get(key);
+            if (window != null) {
+                window.removeNewest();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public int getRemaining(String key) {
+        long now = clock.getAsLong();
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                return maxRequests;
+            }
+            window.expire(now - windowMillis);
+            return Math.max(0, maxRequests - window.size);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop keys with no request left in the window
+     * Runs every app.rate-limit.eviction-interval-ms (default 5 minutes)
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:300000}")
+    public void evictIdleKeys() {
+        long cutoff = clock.getAsLong() - windowMillis;
+        int evicted = 0;
+
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Window> it = stripe.windows.values().iterator();
+                while (it.hasNext()) {
+                    Window window = it.next();
+                    window.expire(cutoff);
+                    if (window.size == 0) {
+                        it.remove();
+                        evicted++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate-limit keys", evicted);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * One lock guarding a slice of the key space
+     */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Window> windows = new HashMap<>();
+    }
+
+    /**
+     * Ring buffer of request timestamps (epoch millis), oldest at head
+     */
+    private static final class Window {
+        final long[] timestamps;
+        int head;
+        int size;
+
+        /**
+         * Cache hits not yet charged as a full request
+         */
+        int cachedHits;
+
+        Window(int capacity) {
+            timestamps = new long[Math.max(1, capacity)];
+        }
+
+        /**
+         * Append a timestamp, overwriting the oldest one when full
+         */
+        void record(long timestamp) {
+            if (size == timestamps.length) {
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+            timestamps[(head + size) % timestamps.length] = timestamp;
+            size++;
+        }
+
+        /**
+         * Drop timestamps at or before the cutoff
+         */
+        void expire(long cutoff) {
+            while (size > 0 && timestamps[head] <= cutoff) {
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+
+        void removeNewest() {
+            if (size > 0) {
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.prodpulse.prodpulse_backend.service.ratelimit;
+
+/**
+ * Per-key request quota (keyed by client IP)
+ * Selected with app.rate-limit.mode: "memory" (default) or "database"
+ *
+ * Usage: tryAcquire() before the analysis, then exactly one of
+ * commit() once the analysis is persisted, or release() if it was aborted
+ */
+public interface RateLimiter {
+
+    /**
+     * Reserve one request from the key's quota
+     *
+     * @param key Client key (IP address)
+     * @return true if the request is allowed, false if the quota is exhausted
+     */
+    boolean tryAcquire(String key);
+
+    /**
+     * Charge a request served from the diagnosis cache or a known-error rule (no AI call)
+     * Every app.rate-limit.cache-hits-per-request such hits count as one request (0 = free).
+     * Nothing is reserved, so no commit/release follows.
+     *
+     * @param key Client key (IP address)
+     * @return true if the request is allowed, false if the quota is exhausted
+     */
+    boolean tryAcquireCached(String key);
+
+    /**
+     * Confirm a reservation - the request has been recorded
+     *
+     * @param key Client key (IP address)
+     */
+    void commit(String key);
+
+    /**
+     * Give back a reservation - the request did not complete
+     *
+     * @param key Client key (IP address)
+     */
+    void release(String key);
+
+    /**
+     * Get remaining requests in the current window
+     *
+     * @param key Client key (IP address)
+     * @return Number of requests remaining
+     */
+    int getRemaining(String key);
+
+}
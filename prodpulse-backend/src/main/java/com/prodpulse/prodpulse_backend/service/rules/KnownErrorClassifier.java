@@ -0,0 +1,163 @@
+package com.prodpulse.prodpulse_backend.service.rules;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.prodpulse.prodpulse_backend.service.scan.LogScan;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local pre-classifier for well-known errors (OOM, connection refused, port in use, ...)
+ * Owns the rules file and per-rule hit counters. The signatures themselves are matched
+ * by LogScanner in the same pass as severity and title, so classify() only looks up
+ * the rule the scan found.
+ */
+@Component
+public class KnownErrorClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnownErrorClassifier.class);
+
+    private static final Set<String> SEVERITIES = Set.of("critical", "warning", "info");
+
+    @Value("${app.rules.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rules.location:classpath:rules/known-errors.yml}")
+    private Resource rulesLocation;
+
+    private List<KnownErrorRule> rules = List.of();
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Hits per rule id (fixed key set after loading, so reads need no locking)
+     */
+    private Map<String, LongAdder> hitsByRule = Map.of();
+
+    /**
+     * Load and validate the rules file - a broken file fails startup
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("Known-error rules disabled");
+            return;
+        }
+
+        KnownErrorRuleSet ruleSet;
+        try (InputStream in = rulesLocation.getInputStream()) {
+            ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+            ruleSet = mapper.readValue(in, KnownErrorRuleSet.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read known-error rules from " + rulesLocation, e);
+        }
+
+        Map<String, LongAdder> counters = new LinkedHashMap<>();
+        for (KnownErrorRule rule : ruleSet.getRules()) {
+            validate(rule);
+            if (counters.put(rule.getId(), new LongAdder()) != null) {
+                throw new IllegalStateException("Duplicate known-error rule id: " + rule.getId());
+            }
+        }
+
+        rules = List.copyOf(ruleSet.getRules());
+        hitsByRule = counters;
+
+        logger.info("Loaded {} known-error rules from {}", rules.size(), rulesLocation);
+    }
+
+    /**
+     * Signatures of every rule, in rule order (empty when rules are disabled)
+     * LogScanner compiles these into its automaton
+     *
+     * @return One list of signatures per rule
+     */
+    public List<List<String>> getSignatures() {
+        return rules.stream().map(KnownErrorRule::getMatch).toList();
+    }
+
+    /**
+     * Get the known-error rule a scan matched, counting the check
+     *
+     * @param scan Scan of the log (see LogScanner)
+     * @return First matching rule in file order, or empty if the log needs the AI
+     */
+    public Optional<KnownErrorRule> classify(LogScan scan) {
+        if (!enabled || rules.isEmpty()) {
+            return Optional.empty();
+        }
+        checks.increment();
+
+        if (scan.getRuleIndex() < 0) {
+            return Optional.empty();
+        }
+
+        KnownErrorRule rule = rules.get(scan.getRuleIndex());
+        hits.increment();
+        hitsByRule.get(rule.getId()).increment();
+        logger.debug("Log matched known-error rule '{}'", rule.getId());
+        return Optional.of(rule);
+    }
+
+    /**
+     * Get classifier statistics
+     *
+     * @return Checks, hits, hit rate and hits per rule
+     */
+    public Map<String, Object> getStats() {
+        long checked = checks.sum();
+        long matched = hits.sum();
+
+        Map<String, Long> perRule = new LinkedHashMap<>();
+        hitsByRule.forEach((id, count) -> perRule.put(id, count.sum()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("rules", rules.size());
+        result.put("checks", checked);
+        result.put("hits", matched);
+        result.put("hitRate", checked == 0 ? 0.0 : (double) matched / checked);
+        result.put("hitsByRule", perRule);
+        return result;
+    }
+
+    private void validate(KnownErrorRule rule) {
+        if (rule.getId() == null || rule.getId().isBlank()) {
+            throw new IllegalStateException("Known-error rule without id in " + rulesLocation);
+        }
+        if (rule.getMatch() == null || rule.getMatch().isEmpty()
+                || rule.getMatch().stream().anyMatch(signature -> signature == null || signature.isBlank())) {
+            throw new IllegalStateException("Known-error rule '" + rule.getId() + "' needs non-blank match signatures");
+        }
+        if (rule.getMatch().stream().anyMatch(signature -> !signature.chars().allMatch(c -> c < 128))) {
+            throw new IllegalStateException("Known-error rule '" + rule.getId() + "' has a non-ASCII signature");
+        }
+        if (rule.getDiagnosis() == null || rule.getDiagnosis().isBlank()) {
+            throw new IllegalStateException("Known-error rule '" + rule.getId() + "' has no diagnosis");
+        }
+        if (!SEVERITIES.contains(rule.getSeverity())) {
+            throw new IllegalStateException("Known-error rule '" + rule.getId()
+                    + "' has invalid severity '" + rule.getSeverity() + "' (critical, warning or info)");
+        }
+        if (rule.getTitle() == null || rule.getTitle().isBlank()) {
+            throw new IllegalStateException("Known-error rule '" + rule.getId() + "' has no title");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.prodpulse.prodpulse_backend.service.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry of the known-error rules file (app.rules.location)
+ * A log matches if it contains any of the signatures (case-insensitive)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnownErrorRule {
+
+    /**
+     * Stable identifier, used as the metrics key
+     */
+    private String id;
+
+    /**
+     * Title shown for the diagnosis
+     */
+    private String title;
+
+    /**
+     * Severity level: "critical", "warning", "info"
+     */
+    private String severity;
+
+    /**
+     * Literal signatures, matched case-insensitively
+     */
+    private List<String> match = new ArrayList<>();
+
+    /**
+     * Canned diagnosis (HTML, same layout as the AI output)
+     */
+    private String diagnosis;
+
+}
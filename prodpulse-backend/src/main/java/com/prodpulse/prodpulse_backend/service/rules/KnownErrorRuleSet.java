@@ -0,0 +1,19 @@
+package com.prodpulse.prodpulse_backend.service.rules;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Root of the known-error rules file
+ * Rules are checked in file order; the first match wins
+ */
+@Data
+@NoArgsConstructor
+public class KnownErrorRuleSet {
+
+    private List<KnownErrorRule> rules = new ArrayList<>();
+
+}
@@ -0,0 +1,168 @@
+package com.prodpulse.prodpulse_backend.service.scan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Case-insensitive multi-pattern matcher (Aho-Corasick automaton)
+ *
+ * Built once from ASCII patterns into a dense transition table, then driven one
+ * character at a time with next(). Input is folded to lower case on the fly, so
+ * callers never build a lower-cased copy of the text. Immutable and thread-safe.
+ */
+public final class AhoCorasickMatcher {
+
+    public static final int ROOT = 0;
+
+    private static final int ALPHABET = 128;
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final List<String> patterns;
+
+    /**
+     * transitions[state * ALPHABET + c] = next state (complete DFA, no failure walks at match time)
+     */
+    private final int[] transitions;
+
+    /**
+     * Pattern ids that end in each state, including those reached through failure links
+     */
+    private final int[][] matches;
+
+    /**
+     * @param patterns Patterns to search for (ASCII, matched case-insensitively); ids are list positions
+     * @throws IllegalArgumentException if a pattern is empty or not ASCII
+     */
+    public AhoCorasickMatcher(List<String> patterns) {
+        this.patterns = List.copyOf(patterns);
+
+        // 1. Trie of the lower-cased patterns
+        List<int[]> trie = new ArrayList<>();
+        List<int[]> own = new ArrayList<>();
+        trie.add(newRow());
+        own.add(NO_MATCHES);
+
+        for (int id = 0; id < this.patterns.size(); id++) {
+            String pattern = this.patterns.get(id).toLowerCase(Locale.ROOT);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern at index " + id);
+            }
+
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Pattern is not ASCII: " + this.patterns.get(id));
+                }
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newRow());
+                    own.add(NO_MATCHES);
+                }
+                state = trie.get(state)[c];
+            }
+            own.set(state, append(own.get(state), id));
+        }
+
+        // 2. Failure links (breadth-first), folded into a complete transition table
+        int stateCount = trie.size();
+        int[] fail = new int[stateCount];
+        transitions = new int[stateCount * ALPHABET];
+        matches = new int[stateCount][];
+        matches[ROOT] = own.get(ROOT);
+
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int child = trie.get(ROOT)[c];
+            if (child < 0) {
+                transitions[c] = ROOT;
+            } else {
+                transitions[c] = child;
+                fail[child] = ROOT;
+                queue.add(child);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matches[state] = merge(own.get(state), matches[fail[state]]);
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = trie.get(state)[c];
+                if (child < 0) {
+                    transitions[state * ALPHABET + c] = transitions[fail[state] * ALPHABET + c];
+                } else {
+                    transitions[state * ALPHABET + c] = child;
+                    fail[child] = transitions[fail[state] * ALPHABET + c];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Advance the automaton by one input character (case-insensitive)
+     *
+     * @param state Current state (ROOT at the start of the text)
+     * @param c Next input character
+     * @return New state
+     */
+    public int next(int state, char c) {
+        if (c >= ALPHABET) {
+            c = Character.toLowerCase(c);
+            if (c >= ALPHABET) {
+                // No pattern contains non-ASCII characters
+                return ROOT;
+            }
+        } else if (c >= 'A' && c <= 'Z') {
+            c = (char) (c + ('a' - 'A'));
+        }
+        return transitions[state * ALPHABET + c];
+    }
+
+    /**
+     * Pattern ids that end at the current position (do not modify the array)
+     *
+     * @param state State returned by next()
+     * @return Matching pattern ids, empty if none
+     */
+    public int[] matches(int state) {
+        return matches[state];
+    }
+
+    public String pattern(int id) {
+        return patterns.get(id);
+    }
+
+    public int patternCount() {
+        return patterns.size();
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] ids, int id) {
+        int[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    private static int[] merge(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        if (first.length == 0) {
+            return second;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.prodpulse.prodpulse_backend.service.scan;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Everything LogScanner learns about a log in its single pass
+ * Title and content are kept as offsets into the scanned text, not copies
+ */
+@Getter
+@AllArgsConstructor
+public class LogScan {
+
+    private static final int MAX_TITLE_LENGTH = 100;
+
+    private static final String DEFAULT_TITLE = "Production Error Analysis";
+
+    /**
+     * Number of whitespace-separated words
+     */
+    private final int wordCount;
+
+    /**
+     * Offset of the first non-whitespace character (-1 if the log is blank)
+     */
+    private final int contentStart;
+
+    /**
+     * Offset after the last non-whitespace character (-1 if the log is blank)
+     */
+    private final int contentEnd;
+
+    /**
+     * Severity level: "critical", "warning", or "info"
+     */
+    private final String severity;
+
+    /**
+     * Trimmed bounds of the title line (-1 if the log is blank)
+     * First line mentioning an error or exception, else the first non-empty line
+     */
+    private final int titleStart;
+
+    private final int titleEnd;
+
+    /**
+     * Signatures found in the log (severity keywords and known-error rule signatures)
+     */
+    private final List<String> signatures;
+
+    /**
+     * Index of the first known-error rule with a matching signature (-1 if none)
+     */
+    private final int ruleIndex;
+
+    /**
+     * Length of the log without leading and trailing whitespace
+     */
+    public int getContentLength() {
+        return contentStart < 0 ? 0 : contentEnd - contentStart;
+    }
+
+    /**
+     * Title of the scanned log, shortened to 100 characters
+     *
+     * @param logs The same text that was scanned
+     * @return Title line, or a generic title if the log is blank
+     */
+    public String getTitle(CharSequence logs) {
+        if (titleStart < 0) {
+            return DEFAULT_TITLE;
+        }
+        if (titleEnd - titleStart > MAX_TITLE_LENGTH) {
+            return logs.subSequence(titleStart, titleStart + MAX_TITLE_LENGTH - 3) + "...";
+        }
+        return logs.subSequence(titleStart, titleEnd).toString();
+    }
+}
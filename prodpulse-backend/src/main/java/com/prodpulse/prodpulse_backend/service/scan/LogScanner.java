@@ -0,0 +1,194 @@
+package com.prodpulse.prodpulse_backend.service.scan;
+
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Single-pass log scanner
+ *
+ * One walk over the characters yields word count, trimmed bounds, severity, title
+ * offsets, matched signatures and the first matching known-error rule. Keywords are
+ * found with one case-insensitive Aho-Corasick automaton, so the log is never
+ * lower-cased, split into lines or split into words.
+ */
+@Component
+public class LogScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogScanner.class);
+
+    private static final List<String> CRITICAL_KEYWORDS = List.of(
+            "fatal", "outofmemoryerror", "cannot connect", "connection refused", "segmentation fault", "core dumped");
+
+    private static final List<String> WARNING_KEYWORDS = List.of("error", "exception", "failed", "timeout");
+
+    private static final List<String> TITLE_KEYWORDS = List.of("error", "exception");
+
+    private static final int CRITICAL = 1;
+    private static final int WARNING = 2;
+    private static final int TITLE = 4;
+
+    @Autowired
+    private KnownErrorClassifier knownErrorClassifier;
+
+    private AhoCorasickMatcher matcher;
+
+    /**
+     * Per pattern id: CRITICAL / WARNING / TITLE flags (0 for rule signatures)
+     */
+    private int[] patternFlags;
+
+    /**
+     * Per pattern id: known-error rule index (-1 for severity keywords)
+     */
+    private int[] patternRules;
+
+    @PostConstruct
+    public void init() {
+        List<String> patterns = new ArrayList<>();
+        List<Integer> flags = new ArrayList<>();
+        List<Integer> rules = new ArrayList<>();
+
+        for (String keyword : CRITICAL_KEYWORDS) {
+            patterns.add(keyword);
+            flags.add(CRITICAL);
+            rules.add(-1);
+        }
+        for (String keyword : WARNING_KEYWORDS) {
+            patterns.add(keyword);
+            flags.add(TITLE_KEYWORDS.contains(keyword) ? WARNING | TITLE : WARNING);
+            rules.add(-1);
+        }
+
+        List<List<String>> ruleSignatures = knownErrorClassifier.getSignatures();
+        for (int rule = 0; rule < ruleSignatures.size(); rule++) {
+            for (String signature : ruleSignatures.get(rule)) {
+                patterns.add(signature);
+                flags.add(0);
+                rules.add(rule);
+            }
+        }
+
+        matcher = new AhoCorasickMatcher(patterns);
+        patternFlags = flags.stream().mapToInt(Integer::intValue).toArray();
+        patternRules = rules.stream().mapToInt(Integer::intValue).toArray();
+
+        logger.info("Log scanner ready ({} patterns)", patterns.size());
+    }
+
+    /**
+     * Scan a log in one pass
+     *
+     * @param logs The log text
+     * @return Word count, bounds, severity, title offsets, signatures and known-error rule
+     */
+    public LogScan scan(CharSequence logs) {
+        int length = logs.length();
+
+        int state = AhoCorasickMatcher.ROOT;
+        int severityFlags = 0;
+        int ruleIndex = -1;
+        BitSet matched = null;
+
+        int wordCount = 0;
+        boolean inWord = false;
+        int contentStart = -1;
+        int contentEnd = -1;
+
+        int lineStart = -1;
+        int lineEnd = -1;
+        boolean lineHasTitleKeyword = false;
+        int titleStart = -1;
+        int titleEnd = -1;
+        int firstLineStart = -1;
+        int firstLineEnd = -1;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? logs.charAt(i) : '\n';
+
+            if (c == '\n') {
+                // End of line: remember the title candidates
+                if (lineStart >= 0) {
+                    if (titleStart < 0 && lineHasTitleKeyword) {
+                        titleStart = lineStart;
+                        titleEnd = lineEnd;
+                    }
+                    if (firstLineStart < 0) {
+                        firstLineStart = lineStart;
+                        firstLineEnd = lineEnd;
+                    }
+                }
+                lineStart = -1;
+                lineHasTitleKeyword = false;
+                inWord = false;
+                state = AhoCorasickMatcher.ROOT;
+                continue;
+            }
+
+            if (c > ' ') {
+                if (lineStart < 0) {
+                    lineStart = i;
+                }
+                lineEnd = i + 1;
+                if (contentStart < 0) {
+                    contentStart = i;
+                }
+                contentEnd = i + 1;
+                if (!inWord) {
+                    wordCount++;
+                    inWord = true;
+                }
+            } else {
+                inWord = false;
+            }
+
+            state = matcher.next(state, c);
+            int[] ids = matcher.matches(state);
+            for (int id : ids) {
+                int flags = patternFlags[id];
+                severityFlags |= flags;
+                if ((flags & TITLE) != 0) {
+                    lineHasTitleKeyword = true;
+                }
+                int rule = patternRules[id];
+                if (rule >= 0 && (ruleIndex < 0 || rule < ruleIndex)) {
+                    ruleIndex = rule;
+                }
+                if (matched == null) {
+                    matched = new BitSet(matcher.patternCount());
+                }
+                matched.set(id);
+            }
+        }
+
+        if (titleStart < 0) {
+            titleStart = firstLineStart;
+            titleEnd = firstLineEnd;
+        }
+
+        String severity = (severityFlags & CRITICAL) != 0 ? "critical"
+                : (severityFlags & WARNING) != 0 ? "warning"
+                : "info";
+
+        return new LogScan(wordCount, contentStart, contentEnd, severity, titleStart, titleEnd,
+                signatures(matched), ruleIndex);
+    }
+
+    private List<String> signatures(BitSet matched) {
+        if (matched == null) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(matched.cardinality());
+        for (int id = matched.nextSetBit(0); id >= 0; id = matched.nextSetBit(id + 1)) {
+            result.add(matcher.pattern(id));
+        }
+        return result;
+    }
+}
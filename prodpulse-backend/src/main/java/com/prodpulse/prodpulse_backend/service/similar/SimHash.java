@@ -0,0 +1,112 @@
+package com.prodpulse.prodpulse_backend.service.similar;
+
+/**
+ * 64-bit SimHash of a normalized log
+ *
+ * Features are the log's words and word pairs (lower case, digit runs folded to "#", so
+ * "worker 7 failed" and "worker 12 failed" agree). Each feature's 64-bit hash votes +1/-1 per
+ * bit; the sign of each total is the bit of the SimHash. Logs that share most features get
+ * hashes a few bits apart, so the Hamming distance estimates how different two incidents are.
+ */
+public final class SimHash {
+
+    public static final int BITS = 64;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * SimHash of a log
+     *
+     * @param normalizedLog Log after LogNormalizer.normalize
+     * @return The hash (0 for a log without words)
+     */
+    public static long of(String normalizedLog) {
+        int[] votes = new int[BITS];
+        long previous = 0;
+        boolean hasPrevious = false;
+
+        int length = normalizedLog.length();
+        int i = 0;
+        while (i < length) {
+            // Next word: letters and digit runs (folded to '#'), everything else separates
+            long word = FNV_OFFSET;
+            boolean inWord = false;
+            boolean inDigits = false;
+            for (; i < length; i++) {
+                char c = normalizedLog.charAt(i);
+                if (Character.isDigit(c)) {
+                    if (!inDigits) {
+                        word = (word ^ '#') * FNV_PRIME;
+                        inDigits = true;
+                    }
+                    inWord = true;
+                } else if (Character.isLetter(c) || c == '_') {
+                    word = (word ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    inDigits = false;
+                    inWord = true;
+                } else if (inWord) {
+                    break;
+                }
+            }
+            if (!inWord) {
+                break;
+            }
+
+            vote(votes, mix(word));
+            if (hasPrevious) {
+                vote(votes, mix(previous * 31 + word));
+            }
+            previous = word;
+            hasPrevious = true;
+        }
+
+        long hash = 0;
+        for (int bit = 0; bit < BITS; bit++) {
+            if (votes[bit] > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Similarity from 0 to 1 (1 = same hash)
+     */
+    public static double similarity(int distance) {
+        return 1.0 - (double) distance / BITS;
+    }
+
+    /**
+     * Largest distance that still reaches a similarity
+     */
+    public static int maxDistance(double similarity) {
+        return (int) Math.floor((1.0 - similarity) * BITS + 1e-9);
+    }
+
+    private static void vote(int[] votes, long feature) {
+        for (int bit = 0; bit < BITS; bit++) {
+            votes[bit] += (feature >>> bit & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    // MurmurHash3 finalizer - FNV alone leaves the high bits poorly mixed for short words
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,209 @@
+package com.prodpulse.prodpulse_backend.service.similar;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed-capacity ring of (SimHash, log fingerprint) pairs in a memory-mapped file
+ *
+ * Layout: a 32-byte header (magic, version, capacity, entries written), then all hashes
+ * (8 bytes each, contiguous so a search is one sequential scan with Long.bitCount), then
+ * all fingerprints (32 bytes of SHA-256 each). Writes go straight to the mapping, so the
+ * index survives a restart without a rebuild; when full, the oldest entry is overwritten.
+ * A file with another layout or capacity is discarded and recreated empty.
+ *
+ * 100,000 entries take 4 MB and are searched in well under a millisecond.
+ * Thread-safe: searches share a read lock, adds take the write lock.
+ */
+public class SimHashIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x50505349;   // "PPSI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FINGERPRINT_SIZE = 32;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int WRITTEN_OFFSET = 16;
+
+    private final int capacity;
+    private final int fingerprintsOffset;
+    private final MappedByteBuffer buffer;
+    private final boolean reopened;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long written;
+
+    /**
+     * Open the index file, creating it if needed
+     *
+     * @param file Index file
+     * @param capacity Max entries (older ones are overwritten)
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public SimHashIndex(Path file, int capacity) throws IOException {
+        this.capacity = capacity;
+        this.fingerprintsOffset = HEADER_SIZE + capacity * Long.BYTES;
+        long size = (long) fingerprintsOffset + (long) capacity * FINGERPRINT_SIZE;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean compatible = channel.size() == size;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            compatible = compatible
+                    && buffer.getInt(MAGIC_OFFSET) == MAGIC
+                    && buffer.getInt(VERSION_OFFSET) == VERSION
+                    && buffer.getInt(CAPACITY_OFFSET) == capacity;
+            if (compatible) {
+                written = buffer.getLong(WRITTEN_OFFSET);
+            } else {
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putLong(WRITTEN_OFFSET, 0);
+            }
+            reopened = compatible && written > 0;
+        }
+    }
+
+    /**
+     * Add an entry (skipped if the same hash and fingerprint are already indexed)
+     *
+     * @param hash SimHash of the normalized log
+     * @param fingerprint Log fingerprint (64 hex characters, see LogNormalizer)
+     * @return False if it was already indexed
+     */
+    public boolean add(long hash, String fingerprint) {
+        byte[] bytes = HexFormat.of().parseHex(fingerprint);
+        lock.writeLock().lock();
+        try {
+            int entries = size();
+            for (int i = 0; i < entries; i++) {
+                if (hashAt(i) == hash && fingerprintAt(i).equals(fingerprint)) {
+                    return false;
+                }
+            }
+
+            int slot = (int) (written % capacity);
+            buffer.putLong(HEADER_SIZE + slot * Long.BYTES, hash);
+            buffer.put(fingerprintsOffset + slot * FINGERPRINT_SIZE, bytes);
+            written++;
+            buffer.putLong(WRITTEN_OFFSET, written);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closest entry within a distance
+     *
+     * @param hash SimHash of the normalized log
+     * @param maxDistance Largest Hamming distance accepted
+     * @return The closest entry, or null if none is close enough
+     */
+    public Match nearest(long hash, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            int entries = size();
+            int best = -1;
+            int bestDistance = maxDistance + 1;
+            for (int i = 0; i < entries; i++) {
+                int distance = Long.bitCount(hashAt(i) ^ hash);
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                    if (distance == 0) {
+                        break;
+                    }
+                }
+            }
+            return best < 0 ? null : new Match(fingerprintAt(best), bestDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries in the index (at most capacity)
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (int) Math.min(written, capacity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * True if the file already held entries when it was opened (no rebuild needed)
+     */
+    public boolean isReopened() {
+        return reopened;
+    }
+
+    /**
+     * Write the mapped pages to disk (also done by the OS on its own schedule)
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private long hashAt(int slot) {
+        return buffer.getLong(HEADER_SIZE + slot * Long.BYTES);
+    }
+
+    private String fingerprintAt(int slot) {
+        byte[] bytes = new byte[FINGERPRINT_SIZE];
+        buffer.get(fingerprintsOffset + slot * FINGERPRINT_SIZE, bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * An indexed log close to the one searched for
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        /**
+         * Fingerprint of the indexed log
+         */
+        private final String fingerprint;
+
+        /**
+         * Hamming distance between the two SimHashes
+         */
+        private final int distance;
+    }
+}
@@ -0,0 +1,28 @@
+package com.prodpulse.prodpulse_backend.service.similar;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A past incident whose log is close to the one being analyzed, with its stored diagnosis
+ */
+@Getter
+@AllArgsConstructor
+public class SimilarIncident {
+
+    /**
+     * Fingerprint of the past incident's log
+     */
+    private final String fingerprint;
+
+    /**
+     * SimHash similarity from 0 to 1 (1 = same normalized words)
+     */
+    private final double similarity;
+
+    /**
+     * Stored diagnosis of the past incident (HTML or structured JSON)
+     */
+    private final String diagnosis;
+
+}
@@ -0,0 +1,235 @@
+package com.prodpulse.prodpulse_backend.service.similar;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.model.projection.IncidentLog;
+import com.prodpulse.prodpulse_backend.model.projection.StoredDiagnosis;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.DiagnosisCache;
+import com.prodpulse.prodpulse_backend.service.LogNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds past incidents whose log is nearly the same as a new one
+ *
+ * The diagnosis cache only helps when the normalized log is identical. This index keeps a
+ * SimHash of every log with a reusable AI diagnosis (SimHashIndex, memory-mapped at
+ * app.similar-incidents.index-file) and looks up the closest one:
+ * - at direct-similarity or above, LogAnalysisService serves the past diagnosis without an AI call,
+ *   charged as a full request (looked up through DiagnosisCache, so it is as fresh as any cached diagnosis)
+ * - at context-similarity or above, AIService adds the past diagnosis to the prompt as context
+ *   (no older than max-age-days)
+ * An empty index file is rebuilt from the newest analyses at startup; a reopened one is used as is.
+ *
+ * Metrics: prodpulse.similar.search (time per lookup), prodpulse.similar.matches{use=direct|context},
+ * prodpulse.similar.index.size
+ */
+@Component
+public class SimilarIncidentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarIncidentService.class);
+
+    /**
+     * Stored diagnoses that may be served again (same as DiagnosisCache)
+     */
+    private static final List<DiagnosisSource> REUSABLE_SOURCES = List.of(DiagnosisSource.AI, DiagnosisSource.CACHE);
+
+    @Autowired
+    private LogNormalizer logNormalizer;
+
+    @Autowired
+    private DiagnosisCache diagnosisCache;
+
+    @Autowired
+    private AnalysisHistoryRepository analysisHistoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.similar-incidents.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.similar-incidents.index-file:data/similar-incidents.idx}")
+    private String indexFile;
+
+    @Value("${app.similar-incidents.capacity:100000}")
+    private int capacity;
+
+    @Value("${app.similar-incidents.direct-similarity:0.95}")
+    private double directSimilarity;
+
+    @Value("${app.similar-incidents.context-similarity:0.85}")
+    private double contextSimilarity;
+
+    @Value("${app.similar-incidents.max-age-days:30}")
+    private int maxAgeDays;
+
+    @Value("${app.similar-incidents.rebuild-limit:5000}")
+    private int rebuildLimit;
+
+    private SimHashIndex index;
+
+    private Timer searchTimer;
+
+    private Counter directMatches;
+
+    private Counter contextMatches;
+
+    @PostConstruct
+    public void init() {
+        searchTimer = Timer.builder("prodpulse.similar.search")
+                .description("Time to search the similar-incident index")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        directMatches = Counter.builder("prodpulse.similar.matches")
+                .description("Analyses that found a similar past incident")
+                .tag("use", "direct")
+                .register(meterRegistry);
+        contextMatches = Counter.builder("prodpulse.similar.matches")
+                .description("Analyses that found a similar past incident")
+                .tag("use", "context")
+                .register(meterRegistry);
+        Gauge.builder("prodpulse.similar.index.size", this, SimilarIncidentService::size)
+                .description("Logs in the similar-incident index")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            logger.info("Similar-incident search disabled");
+            return;
+        }
+        try {
+            index = new SimHashIndex(Path.of(indexFile), capacity);
+            logger.info("Similar-incident index {} ({} of {} entries, direct >= {}, context >= {})",
+                    indexFile, index.size(), capacity, directSimilarity, contextSimilarity);
+        } catch (IOException e) {
+            // An unusable disk must not take the API down - analyses just skip the lookup
+            logger.warn("Could not open similar-incident index {}, search disabled: {}", indexFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Fill a new index with the newest reusable analyses (oldest first, so the newest stay in the ring)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (index == null || index.isReopened() || rebuildLimit <= 0) {
+            return;
+        }
+
+        List<IncidentLog> logs = analysisHistoryRepository
+                .findBySourceInAndCreatedAtAfterAndLogFingerprintIsNotNullOrderByCreatedAtDesc(
+                        REUSABLE_SOURCES, LocalDateTime.now().minusDays(maxAgeDays),
+                        PageRequest.of(0, Math.min(rebuildLimit, capacity)));
+
+        int added = 0;
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            IncidentLog log = logs.get(i);
+            if (index.add(SimHash.of(logNormalizer.normalize(log.getLogInput())), log.getLogFingerprint())) {
+                added++;
+            }
+        }
+        index.flush();
+
+        logger.info("Similar-incident index rebuilt with {} logs from the last {} days", added, maxAgeDays);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    /**
+     * Past incident similar enough to reuse its diagnosis as is
+     *
+     * @param logs The log text
+     * @return The incident, with its cached diagnosis
+     */
+    public Optional<SimilarIncident> findDiagnosis(String logs) {
+        SimHashIndex.Match match = nearest(logs, directSimilarity);
+        if (match == null) {
+            return Optional.empty();
+        }
+        String diagnosis = diagnosisCache.get(match.getFingerprint());
+        if (diagnosis == null) {
+            return Optional.empty();
+        }
+        directMatches.increment();
+        return Optional.of(new SimilarIncident(match.getFingerprint(), SimHash.similarity(match.getDistance()), diagnosis));
+    }
+
+    /**
+     * Past incident similar enough to help the AI as context
+     *
+     * @param logs The log text
+     * @return The incident, with a diagnosis no older than max-age-days
+     */
+    public Optional<SimilarIncident> findContext(String logs) {
+        SimHashIndex.Match match = nearest(logs, contextSimilarity);
+        if (match == null) {
+            return Optional.empty();
+        }
+
+        Optional<String> diagnosis;
+        try {
+            diagnosis = analysisHistoryRepository
+                    .findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(
+                            match.getFingerprint(), REUSABLE_SOURCES, LocalDateTime.now().minusDays(maxAgeDays))
+                    .map(StoredDiagnosis::getDiagnosis);
+        } catch (DataAccessException e) {
+            // Context is optional - the analysis goes ahead without it
+            logger.warn("Could not load similar incident {}: {}", match.getFingerprint(), e.getMessage());
+            return Optional.empty();
+        }
+        diagnosis.ifPresent(found -> contextMatches.increment());
+        return diagnosis.map(found -> new SimilarIncident(match.getFingerprint(),
+                SimHash.similarity(match.getDistance()), found));
+    }
+
+    /**
+     * Index a log whose diagnosis may be reused (call once its analysis is stored)
+     *
+     * @param logs The log text
+     * @param fingerprint Normalized log fingerprint
+     */
+    public void add(String logs, String fingerprint) {
+        if (index != null) {
+            index.add(SimHash.of(logNormalizer.normalize(logs)), fingerprint);
+        }
+    }
+
+    /**
+     * Logs in the index
+     */
+    public int size() {
+        return index != null ? index.size() : 0;
+    }
+
+    private SimHashIndex.Match nearest(String logs, double minSimilarity) {
+        if (index == null || index.size() == 0) {
+            return null;
+        }
+        long hash = SimHash.of(logNormalizer.normalize(logs));
+        return searchTimer.record(() -> index.nearest(hash, SimHash.maxDistance(minSimilarity)));
+    }
+}
@@ -0,0 +1,166 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolling retention for analysis_history
+ *
+ * Rows older than app.history.retention.days are moved to analysis_history_archive
+ * (mode "archive") or deleted (mode "delete"), in batches with one short transaction each,
+ * so the hot table - and with it the rate-limit and cache indexes - stays the size of the
+ * retention window no matter how long the service runs.
+ * Retention must stay longer than the rate-limit window and the diagnosis cache TTL.
+ * Removed rows are evicted from the second-level cache, which does not see these JDBC deletes.
+ */
+@Component
+public class AnalysisHistoryArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisHistoryArchiver.class);
+
+    private static final String ARCHIVE_TABLE = "analysis_history_archive";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.history.retention.mode:off}")
+    private String mode;
+
+    @Value("${app.history.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${app.history.retention.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Columns copied to the archive (those both tables have)
+     */
+    private String archiveColumns;
+
+    @Scheduled(cron = "${app.history.retention.cron:0 30 3 * * *}")
+    public void archiveOldRows() {
+        if (!"archive".equals(mode) && !"delete".equals(mode)) {
+            return;
+        }
+        archive(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Move (or delete) every row created before the cutoff
+     *
+     * @param cutoff Rows created before this time are removed from analysis_history
+     * @return Number of rows removed
+     */
+    public long archive(LocalDateTime cutoff) {
+        boolean copy = "archive".equals(mode);
+        if (copy) {
+            ensureArchiveTable();
+        }
+
+        long removed = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM analysis_history WHERE created_at < ? ORDER BY created_at LIMIT ?",
+                    Long.class, cutoff, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (copy) {
+                    namedParameterJdbcTemplate.update("INSERT INTO " + ARCHIVE_TABLE + " (" + archiveColumns + ") "
+                            + "SELECT " + archiveColumns + " FROM analysis_history WHERE id IN (:ids)", params);
+                }
+                namedParameterJdbcTemplate.update("DELETE FROM analysis_history WHERE id IN (:ids)", params);
+            });
+            ids.forEach(id -> entityManagerFactory.getCache().evict(AnalysisHistory.class, id));
+            removed += ids.size();
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (removed > 0) {
+            logger.info("{} {} analyses created before {}", copy ? "Archived" : "Deleted", removed, cutoff);
+        }
+        return removed;
+    }
+
+    /**
+     * Create the archive table on first use (same columns as analysis_history, no secondary indexes)
+     */
+    private synchronized void ensureArchiveTable() {
+        if (archiveColumns != null) {
+            return;
+        }
+
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("MySQL".equalsIgnoreCase(database)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " LIKE analysis_history");
+            // Archived rows are only read by id, by hand - the hot-table indexes would just cost inserts
+            dropIndexIfPresent("idx_analysis_history_ip_created");
+            dropIndexIfPresent("idx_analysis_history_created");
+            dropIndexIfPresent("idx_analysis_history_fingerprint");
+        } else {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE
+                    + " AS SELECT * FROM analysis_history WHERE 1 = 0");
+        }
+
+        // Columns added to analysis_history later are not archived until the archive table gets them too
+        List<String> hot = columnsOf("analysis_history");
+        List<String> common = new ArrayList<>();
+        for (String column : columnsOf(ARCHIVE_TABLE)) {
+            if (hot.contains(column)) {
+                common.add(column);
+            }
+        }
+        archiveColumns = String.join(", ", common);
+    }
+
+    private void dropIndexIfPresent(String index) {
+        Integer present = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics "
+                        + "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, ARCHIVE_TABLE, index);
+        if (present != null && present > 0) {
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " DROP INDEX " + index);
+        }
+    }
+
+    private List<String> columnsOf(String table) {
+        SqlRowSetMetaData metaData = jdbcTemplate.queryForRowSet("SELECT * FROM " + table + " WHERE 1 = 0").getMetaData();
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnName(i).toLowerCase());
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,26 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * JPA converter for large TEXT columns - compresses on write, decompresses on read
+ * Created by Hibernate through Spring's bean container, so TextCompressor is injected
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+
+    @Autowired
+    private TextCompressor textCompressor;
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return textCompressor.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return textCompressor.decode(dbData);
+    }
+}
@@ -0,0 +1,109 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codecs for compressed TEXT columns (app.storage.compression.codec)
+ * JDK built-ins only, so no native library has to ship with the jar
+ */
+public enum CompressionCodec {
+
+    /**
+     * Store values as they are
+     */
+    NONE("plain"),
+
+    /**
+     * GZIP (RFC 1952) - readable with standard tools (base64 -d | zcat)
+     */
+    GZIP("gzip"),
+
+    /**
+     * Raw zlib stream - same ratio as GZIP without the 18-byte header and trailer
+     */
+    DEFLATE("deflate");
+
+    private final String tag;
+
+    CompressionCodec(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Marker stored in front of the encoded value, e.g. "{gzip}"
+     */
+    public String prefix() {
+        return "{" + tag + "}";
+    }
+
+    /**
+     * Compress bytes with this codec
+     *
+     * @param data Uncompressed bytes
+     * @param level Deflate level (1 = fastest, 9 = smallest)
+     * @return Compressed bytes
+     */
+    byte[] compress(byte[] data, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (OutputStream out = openOutput(buffer, level)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decompress bytes written by compress()
+     *
+     * @param data Compressed bytes
+     * @return Uncompressed bytes
+     */
+    byte[] decompress(byte[] data) {
+        try (InputStream in = openInput(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OutputStream openOutput(OutputStream out, int level) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            case DEFLATE -> new DeflaterOutputStream(out, new Deflater(level)) {
+                @Override
+                public void close() throws IOException {
+                    // The Deflater was passed in, so DeflaterOutputStream does not free its native memory
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        };
+    }
+
+    private InputStream openInput(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in);
+            case DEFLATE -> new InflaterInputStream(in);
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compresses analysis_history rows written before compression was enabled
+ *
+ * Runs once per startup on a background thread, walking the table by id in small batches
+ * (keyset, one short transaction per batch) so it never holds a connection for long.
+ * Only rows with a plain value above the threshold are fetched; rows are never updated
+ * after insert, so rewriting them cannot race with the application.
+ */
+@Component
+public class StorageCompressionMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCompressionMigrator.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TextCompressor textCompressor;
+
+    @Value("${app.storage.compression.migrate:true}")
+    private boolean migrate;
+
+    @Value("${app.storage.compression.migration-batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.storage.compression.migration-pause-ms:100}")
+    private long pauseMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!migrate || textCompressor.getCodec() == CompressionCodec.NONE) {
+            return;
+        }
+        Thread.ofVirtual().name("compression-migration").start(() -> {
+            try {
+                migrateAll();
+            } catch (RuntimeException e) {
+                logger.error("Compression migration stopped: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Compress every plain row above the threshold
+     *
+     * @return Number of rows rewritten
+     */
+    public long migrateAll() {
+        String sql = selectSql();
+        int threshold = textCompressor.getThreshold();
+
+        long lastId = 0;
+        long migrated = 0;
+        long charsBefore = 0;
+        long charsAfter = 0;
+
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, lastId, threshold, threshold, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("id")).longValue();
+                String logInput = (String) row.get("log_input");
+                String diagnosis = (String) row.get("diagnosis");
+
+                String newLogInput = textCompressor.needsEncoding(logInput) ? textCompressor.encode(logInput) : logInput;
+                String newDiagnosis = textCompressor.needsEncoding(diagnosis) ? textCompressor.encode(diagnosis) : diagnosis;
+                if (newLogInput.equals(logInput) && (newDiagnosis == null || newDiagnosis.equals(diagnosis))) {
+                    // Did not compress below its own size - leave it plain
+                    continue;
+                }
+
+                updates.add(new Object[]{newLogInput, newDiagnosis, lastId});
+                charsBefore += logInput.length() + (diagnosis != null ? diagnosis.length() : 0);
+                charsAfter += newLogInput.length() + (newDiagnosis != null ? newDiagnosis.length() : 0);
+            }
+
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE analysis_history SET log_input = ?, diagnosis = ? WHERE id = ?", updates);
+                migrated += updates.size();
+            }
+
+            if (rows.size() < batchSize) {
+                break;
+            }
+            pause();
+        }
+
+        if (migrated > 0) {
+            logger.info("Compressed {} existing analyses ({} -> {} chars)", migrated, charsBefore, charsAfter);
+        }
+        return migrated;
+    }
+
+    /**
+     * Next batch of rows with a plain value at or above the threshold
+     * (values with a "{codec}" marker are already compressed or escaped)
+     */
+    private String selectSql() {
+        String notMarked = Arrays.stream(CompressionCodec.values())
+                .map(codec -> "%1$s NOT LIKE '" + codec.prefix() + "%%'")
+                .collect(Collectors.joining(" AND "));
+        String plainAndLarge = "(" + notMarked + " AND CHAR_LENGTH(%1$s) >= ?)";
+
+        return "SELECT id, log_input, diagnosis FROM analysis_history WHERE id > ? AND ("
+                + String.format(plainAndLarge, "log_input") + " OR " + String.format(plainAndLarge, "diagnosis")
+                + ") ORDER BY id LIMIT ?";
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compression migration interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes large TEXT values (log input, HTML diagnoses) for storage
+ *
+ * Values of at least app.storage.compression.threshold characters are compressed with
+ * app.storage.compression.codec and stored as "{codec}" + Base64, so the columns stay
+ * TEXT and no ALTER TABLE is needed. A value is only stored compressed if that is
+ * actually shorter. Values without a marker are returned as they are, so rows written
+ * before compression was enabled (or with another codec) can always be read.
+ */
+@Component
+public class TextCompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextCompressor.class);
+
+    @Value("${app.storage.compression.codec:gzip}")
+    private CompressionCodec codec;
+
+    @Value("${app.storage.compression.threshold:512}")
+    private int threshold;
+
+    @Value("${app.storage.compression.level:6}")
+    private int level;
+
+    @PostConstruct
+    public void init() {
+        if (level < 1 || level > 9) {
+            throw new IllegalStateException("app.storage.compression.level must be between 1 and 9, was " + level);
+        }
+        logger.info("Text column compression: {} (threshold: {} chars, level: {})", codec, threshold, level);
+    }
+
+    /**
+     * Encode a value for storage
+     *
+     * @param value Plain value
+     * @return Stored form: compressed, escaped or unchanged
+     */
+    public String encode(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (codec != CompressionCodec.NONE && value.length() >= threshold) {
+            byte[] compressed = codec.compress(value.getBytes(StandardCharsets.UTF_8), level);
+            String encoded = codec.prefix() + Base64.getEncoder().encodeToString(compressed);
+            if (encoded.length() < value.length()) {
+                return encoded;
+            }
+        }
+
+        // A plain value that happens to start with a marker must not be decoded later
+        return hasMarker(value) ? CompressionCodec.NONE.prefix() + value : value;
+    }
+
+    /**
+     * Decode a stored value
+     *
+     * @param stored Value as read from the column
+     * @return Plain value
+     */
+    public String decode(String stored) {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != '{') {
+            return stored;
+        }
+
+        for (CompressionCodec candidate : CompressionCodec.values()) {
+            String prefix = candidate.prefix();
+            if (stored.startsWith(prefix)) {
+                String body = stored.substring(prefix.length());
+                if (candidate == CompressionCodec.NONE) {
+                    return body;
+                }
+                byte[] compressed = Base64.getDecoder().decode(body);
+                return new String(candidate.decompress(compressed), StandardCharsets.UTF_8);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * True if a stored value is still plain but would be compressed when written now
+     * (used by the background migration; values in another codec stay readable and are left alone)
+     *
+     * @param stored Value as read from the column
+     */
+    public boolean needsEncoding(String stored) {
+        return codec != CompressionCodec.NONE && stored != null && stored.length() >= threshold && !hasMarker(stored);
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    private static boolean hasMarker(String value) {
+        if (value.isEmpty() || value.charAt(0) != '{') {
+            return false;
+        }
+        for (CompressionCodec candidate : CompressionCodec.values()) {
+            if (value.startsWith(candidate.prefix())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.prodpulse.prodpulse_backend.service.AIService;
+import com.prodpulse.prodpulse_backend.service.LogAnalysisService;
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import com.prodpulse.prodpulse_backend.service.scan.LogScan;
+import com.prodpulse.prodpulse_backend.service.scan.LogScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request log handling before the AI call: AIService.determineSeverity and extractTitle,
+ * and LogAnalysisService.validateLogInput (package-private, called through a method handle)
+ * Each invocation takes the next incident of the corpus (see LogCorpus), so a score is the
+ * average over all of its incidents
+ *
+ * Run: mvn -Pbenchmark -DskipTests verify (see BenchmarkRunner), or on its own:
+ *      mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.AnalysisPipelineBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisPipelineBenchmark {
+
+	@Param({LogCorpus.JAVA, LogCorpus.NODE, LogCorpus.PYTHON})
+	private String corpus;
+
+	private String[] incidents;
+
+	private int next;
+
+	private AIService aiService;
+
+	private LogAnalysisService logAnalysisService;
+
+	private MethodHandle validateLogInput;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable {
+		KnownErrorClassifier classifier = new KnownErrorClassifier();
+		ReflectionTestUtils.setField(classifier, "enabled", true);
+		ReflectionTestUtils.setField(classifier, "rulesLocation", new ClassPathResource("rules/known-errors.yml"));
+		classifier.init();
+
+		LogScanner scanner = new LogScanner();
+		ReflectionTestUtils.setField(scanner, "knownErrorClassifier", classifier);
+		scanner.init();
+
+		aiService = new AIService();
+		ReflectionTestUtils.setField(aiService, "logScanner", scanner);
+
+		logAnalysisService = new LogAnalysisService();
+		ReflectionTestUtils.setField(logAnalysisService, "logScanner", scanner);
+		validateLogInput = MethodHandles.privateLookupIn(LogAnalysisService.class, MethodHandles.lookup())
+				.findVirtual(LogAnalysisService.class, "validateLogInput",
+						MethodType.methodType(LogScan.class, String.class));
+
+		incidents = LogCorpus.load(corpus);
+		// Every incident must pass validation, or the benchmark would measure the exception path
+		for (String incident : incidents) {
+			validateLogInput.invoke(logAnalysisService, incident);
+		}
+	}
+
+	@Benchmark
+	public String determineSeverity() {
+		return aiService.determineSeverity(nextIncident());
+	}
+
+	@Benchmark
+	public String extractTitle() {
+		return aiService.extractTitle(nextIncident());
+	}
+
+	@Benchmark
+	public LogScan validateLogInput() throws Throwable {
+		return (LogScan) validateLogInput.invokeExact(logAnalysisService, nextIncident());
+	}
+
+	private String nextIncident() {
+		String incident = incidents[next];
+		next = next + 1 == incidents.length ? 0 : next + 1;
+		return incident;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(AnalysisPipelineBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,116 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the analysis pipeline benchmarks, writes the JMH JSON results and, given a baseline
+ * (an earlier result file), fails when a benchmark got slower than allowed
+ *
+ * System properties:
+ *  benchmark.include                  JMH include regex (default: the pipeline suites)
+ *  benchmark.result                   result file (default: target/jmh-result.json)
+ *  benchmark.baseline                 result file to compare against (optional)
+ *  benchmark.max-regression-percent   allowed slowdown per benchmark (default: 10)
+ *
+ * Run: mvn -Pbenchmark -DskipTests verify -Dbenchmark.baseline=jmh-baseline.json
+ */
+public class BenchmarkRunner {
+
+	private static final String DEFAULT_INCLUDE = "AnalysisPipelineBenchmark|RequestHandlingBenchmark";
+
+	public static void main(String[] args) throws Exception {
+		String include = property("benchmark.include", DEFAULT_INCLUDE);
+		String result = property("benchmark.result", "target/jmh-result.json");
+		String baseline = property("benchmark.baseline", "");
+		double maxRegressionPercent = Double.parseDouble(property("benchmark.max-regression-percent", "10"));
+
+		new File(result).getAbsoluteFile().getParentFile().mkdirs();
+		Collection<RunResult> results = new Runner(new OptionsBuilder()
+				.include(include)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result)
+				.build()).run();
+
+		if (baseline.isEmpty()) {
+			return;
+		}
+		List<String> regressions = compare(results, readBaseline(new File(baseline)), maxRegressionPercent);
+		if (!regressions.isEmpty()) {
+			System.err.println("Benchmarks slower than " + baseline + " by more than " + maxRegressionPercent + "%:");
+			regressions.forEach(regression -> System.err.println("  " + regression));
+			System.exit(1);
+		}
+		System.out.println("No benchmark regressed by more than " + maxRegressionPercent + "% against " + baseline);
+	}
+
+	/**
+	 * @return One line per benchmark that is worse than its baseline score by more than the
+	 *         allowed percentage; benchmarks missing from the baseline are not compared
+	 */
+	static List<String> compare(Collection<RunResult> results, Map<String, Double> baseline, double maxRegressionPercent) {
+		List<String> regressions = new ArrayList<>();
+		for (RunResult result : results) {
+			BenchmarkParams params = result.getParams();
+			Map<String, String> paramValues = new TreeMap<>();
+			for (String key : params.getParamsKeys()) {
+				paramValues.put(key, params.getParam(key));
+			}
+			String key = key(params.getBenchmark(), params.getMode().shortLabel(), paramValues);
+			Double before = baseline.get(key);
+			if (before == null || before == 0) {
+				continue;
+			}
+
+			double score = result.getPrimaryResult().getScore();
+			// Time per operation: lower is better; throughput: higher is better
+			double change = params.getMode() == Mode.Throughput
+					? (before - score) / before * 100
+					: (score - before) / before * 100;
+			if (change > maxRegressionPercent) {
+				regressions.add(String.format("%s: %.3f -> %.3f %s (%+.1f%%)",
+						key, before, score, result.getPrimaryResult().getScoreUnit(), change));
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Scores of a JMH JSON result file, keyed like compare()
+	 */
+	static Map<String, Double> readBaseline(File file) throws Exception {
+		Map<String, Double> scores = new HashMap<>();
+		for (JsonNode run : new ObjectMapper().readTree(file)) {
+			Map<String, String> paramValues = new TreeMap<>();
+			for (Map.Entry<String, JsonNode> param : run.path("params").properties()) {
+				paramValues.put(param.getKey(), param.getValue().asText());
+			}
+			scores.put(key(run.path("benchmark").asText(), run.path("mode").asText(), paramValues),
+					run.path("primaryMetric").path("score").asDouble());
+		}
+		return scores;
+	}
+
+	private static String key(String benchmark, String mode, Map<String, String> params) {
+		return params.isEmpty() ? benchmark + " [" + mode + "]" : benchmark + params + " [" + mode + "]";
+	}
+
+	private static String property(String name, String defaultValue) {
+		String value = System.getProperty(name);
+		return value == null || value.isBlank() ? defaultValue : value;
+	}
+}
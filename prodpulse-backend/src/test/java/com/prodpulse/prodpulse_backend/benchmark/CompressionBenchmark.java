@@ -0,0 +1,150 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.prodpulse.prodpulse_backend.service.storage.CompressionCodec;
+import com.prodpulse.prodpulse_backend.service.storage.TextCompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost per analysis_history row for each compression codec
+ * A row is a log input (up to 2000 chars, the /api/analyze limit) plus an HTML diagnosis.
+ * main() first prints the storage saved over a sample of rows, then runs JMH.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.CompressionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+	private static final int SAMPLE_ROWS = 1000;
+
+	@Param({"NONE", "GZIP", "DEFLATE"})
+	private CompressionCodec codec;
+
+	@Param({"1", "6"})
+	private int level;
+
+	private TextCompressor compressor;
+
+	private String logInput;
+
+	private String diagnosis;
+
+	private String storedLogInput;
+
+	private String storedDiagnosis;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		compressor = compressor(codec, level);
+		Random random = new Random(42);
+		logInput = generateLogInput(random);
+		diagnosis = generateDiagnosis(random);
+		storedLogInput = compressor.encode(logInput);
+		storedDiagnosis = compressor.encode(diagnosis);
+	}
+
+	@Benchmark
+	public String[] encodeRow() {
+		return new String[]{compressor.encode(logInput), compressor.encode(diagnosis)};
+	}
+
+	@Benchmark
+	public String[] decodeRow() {
+		return new String[]{compressor.decode(storedLogInput), compressor.decode(storedDiagnosis)};
+	}
+
+	static TextCompressor compressor(CompressionCodec codec, int level) {
+		TextCompressor compressor = new TextCompressor();
+		ReflectionTestUtils.setField(compressor, "codec", codec);
+		ReflectionTestUtils.setField(compressor, "threshold", 512);
+		ReflectionTestUtils.setField(compressor, "level", level);
+		return compressor;
+	}
+
+	/**
+	 * End of a Spring Boot log, cut to the 2000-char request limit
+	 */
+	static String generateLogInput(Random random) {
+		String log = LogScannerBenchmark.generateLog(4096, random);
+		return log.substring(log.length() - 2000);
+	}
+
+	/**
+	 * Diagnosis in the shape the system prompt asks for, with varying wording
+	 */
+	static String generateDiagnosis(Random random) {
+		String[] causes = {"the payment service refused the connection", "the connection pool was exhausted",
+				"the container ran out of memory", "DATABASE_URL points at localhost inside the container"};
+		String[] steps = {"Check that the service is running and listening on the expected port",
+				"Verify the environment variables in the Railway dashboard",
+				"Increase the pool size or shorten transactions that hold connections",
+				"Add a health check and restart policy to the deployment",
+				"Look at the previous deploy's logs for the first failure"};
+
+		StringBuilder html = new StringBuilder("<div class=\"diagnosis\">\n    <h3>🔍 What Happened:</h3>\n    <p>");
+		html.append("The request failed because ").append(causes[random.nextInt(causes.length)])
+				.append(". Requests after ").append(random.nextInt(60)).append(" seconds kept failing.</p>\n");
+		html.append("\n    <h3>🔧 How to Fix:</h3>\n    <ul>\n");
+		for (int i = 1; i <= 3 + random.nextInt(3); i++) {
+			html.append("        <li>Step ").append(i).append(": ").append(steps[random.nextInt(steps.length)])
+					.append("</li>\n");
+		}
+		html.append("    </ul>\n\n    <h3>💡 Prevention Tips:</h3>\n    <ul>\n");
+		for (int i = 0; i < 2 + random.nextInt(2); i++) {
+			html.append("        <li>").append(steps[random.nextInt(steps.length)]).append("</li>\n");
+		}
+		return html.append("    </ul>\n</div>\n").toString();
+	}
+
+	/**
+	 * Bytes stored per row (UTF-8) over a sample, for each codec at level 6
+	 */
+	static void printStorageSaved() {
+		for (CompressionCodec candidate : CompressionCodec.values()) {
+			TextCompressor compressor = compressor(candidate, 6);
+			Random random = new Random(7);
+			long plainBytes = 0;
+			long storedBytes = 0;
+			for (int i = 0; i < SAMPLE_ROWS; i++) {
+				for (String value : new String[]{generateLogInput(random), generateDiagnosis(random)}) {
+					plainBytes += value.getBytes(StandardCharsets.UTF_8).length;
+					storedBytes += compressor.encode(value).getBytes(StandardCharsets.UTF_8).length;
+				}
+			}
+			System.out.printf("%-8s %,d rows: %,d -> %,d bytes (%.1f%% saved, %,d bytes/row)%n",
+					candidate, SAMPLE_ROWS, plainBytes, storedBytes,
+					100.0 * (plainBytes - storedBytes) / plainBytes, storedBytes / SAMPLE_ROWS);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		printStorageSaved();
+		new Runner(new OptionsBuilder()
+				.include(CompressionBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
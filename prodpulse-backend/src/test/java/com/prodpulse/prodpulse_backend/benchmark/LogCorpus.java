@@ -0,0 +1,59 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Real-world shaped error logs for the benchmarks (src/test/resources/benchmark/corpus)
+ *
+ * One file per stack - java (Spring Boot / Hibernate), node (Express / V8), python (Django,
+ * Celery, FastAPI) - each holding several incidents of API-request size, every incident
+ * starting with a "### description" line.
+ */
+final class LogCorpus {
+
+	static final String JAVA = "java";
+	static final String NODE = "node";
+	static final String PYTHON = "python";
+
+	private LogCorpus() {
+	}
+
+	/**
+	 * @param name java, node or python
+	 * @return The incidents of that corpus, in file order
+	 */
+	static String[] load(String name) {
+		String text;
+		try {
+			text = new ClassPathResource("benchmark/corpus/" + name + ".txt").getContentAsString(StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		List<String> incidents = new ArrayList<>();
+		StringBuilder incident = null;
+		for (String line : text.split("\n")) {
+			if (line.startsWith("### ")) {
+				if (incident != null) {
+					incidents.add(incident.toString());
+				}
+				incident = new StringBuilder();
+			} else if (incident != null) {
+				incident.append(line).append('\n');
+			}
+		}
+		if (incident != null) {
+			incidents.add(incident.toString());
+		}
+		if (incidents.isEmpty()) {
+			throw new IllegalStateException("Empty corpus: " + name);
+		}
+		return incidents.toArray(String[]::new);
+	}
+}
@@ -0,0 +1,188 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import com.prodpulse.prodpulse_backend.service.scan.LogScan;
+import com.prodpulse.prodpulse_backend.service.scan.LogScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pass LogScanner vs. the previous per-feature passes
+ * (toLowerCase + contains for severity, split by line for the title, regex split for
+ * the word count, and toLowerCase + contains per known-error signature)
+ * Logs are Spring Boot style output with INFO noise, a WARN, stack traces and the
+ * interesting error near the end
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.LogScannerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogScannerBenchmark {
+
+	private static final String[] CLASSES = {
+			"c.p.orders.OrderService", "c.p.payments.PaymentClient", "o.s.web.servlet.DispatcherServlet",
+			"c.p.inventory.StockRepository", "o.h.engine.jdbc.spi.SqlExceptionHelper", "c.p.auth.TokenFilter"};
+
+	private static final String[] MESSAGES = {
+			"Processed order %d in %d ms", "Fetched %d items from cache in %d ms",
+			"Completed initialization in %d ms (%d beans)", "Refreshed token for user %d (ttl %d s)"};
+
+	@Param({"2048", "65536", "2097152"})
+	private int size;
+
+	private String logs;
+
+	private LogScanner scanner;
+
+	private List<List<String>> ruleSignatures;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		KnownErrorClassifier classifier = new KnownErrorClassifier();
+		ReflectionTestUtils.setField(classifier, "enabled", true);
+		ReflectionTestUtils.setField(classifier, "rulesLocation", new ClassPathResource("rules/known-errors.yml"));
+		classifier.init();
+
+		scanner = new LogScanner();
+		ReflectionTestUtils.setField(scanner, "knownErrorClassifier", classifier);
+		scanner.init();
+
+		ruleSignatures = classifier.getSignatures();
+		logs = generateLog(size, new Random(42));
+	}
+
+	@Benchmark
+	public void legacyPasses(Blackhole blackhole) {
+		blackhole.consume(logs.trim().split("\\s+").length);
+		blackhole.consume(legacySeverity(logs));
+		blackhole.consume(legacyTitle(logs));
+		blackhole.consume(legacyRule(logs));
+	}
+
+	@Benchmark
+	public void singlePass(Blackhole blackhole) {
+		LogScan scan = scanner.scan(logs);
+		blackhole.consume(scan.getWordCount());
+		blackhole.consume(scan.getSeverity());
+		blackhole.consume(scan.getTitle(logs));
+		blackhole.consume(scan.getRuleIndex());
+	}
+
+	/**
+	 * Copy of the former AIService.determineSeverity
+	 */
+	private static String legacySeverity(String errorLog) {
+		String logLower = errorLog.toLowerCase();
+		if (logLower.contains("fatal") || logLower.contains("outofmemoryerror") || logLower.contains("cannot connect")
+				|| logLower.contains("connection refused") || logLower.contains("segmentation fault")
+				|| logLower.contains("core dumped")) {
+			return "critical";
+		}
+		if (logLower.contains("error") || logLower.contains("exception") || logLower.contains("failed")
+				|| logLower.contains("timeout")) {
+			return "warning";
+		}
+		return "info";
+	}
+
+	/**
+	 * Copy of the former AIService.extractTitle
+	 */
+	private static String legacyTitle(String errorLog) {
+		String[] lines = errorLog.split("\n");
+		for (String line : lines) {
+			if (line.toLowerCase().contains("error") || line.toLowerCase().contains("exception")) {
+				String title = line.trim();
+				return title.length() > 100 ? title.substring(0, 97) + "..." : title;
+			}
+		}
+		for (String line : lines) {
+			String trimmed = line.trim();
+			if (!trimmed.isEmpty()) {
+				return trimmed.length() > 100 ? trimmed.substring(0, 97) + "..." : trimmed;
+			}
+		}
+		return "Production Error Analysis";
+	}
+
+	/**
+	 * Copy of the former KnownErrorClassifier.classify
+	 */
+	private int legacyRule(String logs) {
+		String logLower = logs.toLowerCase();
+		for (int i = 0; i < ruleSignatures.size(); i++) {
+			for (String signature : ruleSignatures.get(i)) {
+				if (logLower.contains(signature.toLowerCase())) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * INFO noise with an occasional WARN, ending in an error with a stack trace
+	 */
+	static String generateLog(int size, Random random) {
+		String failure = """
+				2024-05-01 10:15:02.811 ERROR 1 --- [nio-8080-exec-7] c.p.payments.PaymentClient : Payment request failed
+				org.springframework.web.client.ResourceAccessException: I/O error on POST request for "http://payments:8443/charge": Connection refused
+				\tat org.springframework.web.client.RestTemplate.doExecute(RestTemplate.java:915)
+				\tat org.springframework.web.client.RestTemplate.execute(RestTemplate.java:872)
+				\tat com.prodpulse.payments.PaymentClient.charge(PaymentClient.java:58)
+				\tat com.prodpulse.orders.OrderService.checkout(OrderService.java:131)
+				Caused by: java.net.ConnectException: Connection refused
+				\tat java.base/sun.nio.ch.Net.pollConnect(Native Method)
+				\tat java.base/sun.nio.ch.NioSocketImpl.timedFinishConnect(NioSocketImpl.java:547)
+				""";
+
+		StringBuilder log = new StringBuilder(size + failure.length());
+		int line = 0;
+		while (log.length() < size - failure.length()) {
+			boolean warn = random.nextInt(50) == 0;
+			log.append(String.format("2024-05-01 10:%02d:%02d.%03d %s 1 --- [nio-8080-exec-%d] %s : ",
+					line / 600 % 60, line / 10 % 60, random.nextInt(1000), warn ? " WARN" : " INFO",
+					1 + random.nextInt(10), CLASSES[random.nextInt(CLASSES.length)]));
+			if (warn) {
+				log.append("Slow query took ").append(200 + random.nextInt(800)).append(" ms, consider an index");
+			} else {
+				log.append(String.format(MESSAGES[random.nextInt(MESSAGES.length)],
+						random.nextInt(100_000), random.nextInt(500)));
+			}
+			log.append('\n');
+			line++;
+		}
+		return log.append(failure).toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(LogScannerBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
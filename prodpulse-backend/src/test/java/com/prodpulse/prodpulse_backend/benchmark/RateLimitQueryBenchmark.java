@@ -0,0 +1,118 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Database-mode rate-limit COUNT query as analysis_history grows, with and without
+ * idx_analysis_history_ip_created (ip_address, created_at, source)
+ * Rows are spread over 10k IPs and 90 days (the default retention); the query counts one
+ * IP's last 24 hours. With the index the latency should stay flat as rows grows.
+ * Uses a file-based H2 database in a temp directory, so large tables do not need heap.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.RateLimitQueryBenchmark
+ * (add e.g. "30000000" to the rows parameter for larger tables - each million rows takes a few seconds to load)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitQueryBenchmark {
+
+	private static final int DISTINCT_IPS = 10_000;
+
+	private static final int RETENTION_SECONDS = 90 * 24 * 3600;
+
+	@Param({"100000", "1000000", "10000000"})
+	private int rows;
+
+	@Param({"true", "false"})
+	private boolean indexed;
+
+	private Path directory;
+
+	private Connection connection;
+
+	private PreparedStatement countQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SQLException {
+		directory = Files.createTempDirectory("ratelimit-bench");
+		connection = DriverManager.getConnection(
+				"jdbc:h2:file:" + directory.resolve("db") + ";MODE=MySQL;LOG=0;UNDO_LOG=0", "sa", "");
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE analysis_history (id BIGINT PRIMARY KEY, ip_address VARCHAR(45) NOT NULL, "
+					+ "log_input TEXT NOT NULL, source VARCHAR(20), created_at TIMESTAMP NOT NULL)");
+			statement.execute("INSERT INTO analysis_history SELECT X, CONCAT('10.0.', MOD(X, " + DISTINCT_IPS + ")), "
+					+ "'java.lang.IllegalStateException: worker failed', 'AI', "
+					+ "DATEADD('SECOND', -MOD(X * 7919, " + RETENTION_SECONDS + "), CURRENT_TIMESTAMP) "
+					+ "FROM SYSTEM_RANGE(1, " + rows + ")");
+			if (indexed) {
+				statement.execute("CREATE INDEX idx_analysis_history_ip_created "
+						+ "ON analysis_history (ip_address, created_at, source)");
+			}
+			statement.execute("ANALYZE");
+		}
+
+		countQuery = connection.prepareStatement(
+				"SELECT COUNT(*) FROM analysis_history WHERE ip_address = ? AND created_at > ?");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException, SQLException {
+		connection.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public long countRecentRequests() throws SQLException {
+		countQuery.setString(1, "10.0." + ThreadLocalRandom.current().nextInt(DISTINCT_IPS));
+		countQuery.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusHours(24)));
+		try (ResultSet result = countQuery.executeQuery()) {
+			result.next();
+			return result.getLong(1);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RateLimitQueryBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
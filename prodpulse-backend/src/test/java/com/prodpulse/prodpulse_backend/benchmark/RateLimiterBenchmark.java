@@ -0,0 +1,118 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.prodpulse.prodpulse_backend.ProdPulseBackendApplication;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.ratelimit.DatabaseRateLimiter;
+import com.prodpulse.prodpulse_backend.service.ratelimit.InMemoryRateLimiter;
+import com.prodpulse.prodpulse_backend.service.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory sliding window vs. COUNT-query rate limiting at 10k distinct IPs
+ * Runs against the H2 test database with 3 recorded requests per IP
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.RateLimiterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+	private static final int REQUESTS_PER_IP = 3;
+
+	@Param({"memory", "database"})
+	private String mode;
+
+	@Param({"10000"})
+	private int distinctIps;
+
+	private ConfigurableApplicationContext context;
+
+	private RateLimiter rateLimiter;
+
+	private String[] ips;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(ProdPulseBackendApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("app.rate-limit.max-requests=10")
+				.run();
+
+		ips = new String[distinctIps];
+		List<AnalysisHistory> rows = new ArrayList<>(distinctIps * REQUESTS_PER_IP);
+		for (int i = 0; i < distinctIps; i++) {
+			ips[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+			for (int r = 0; r < REQUESTS_PER_IP; r++) {
+				rows.add(AnalysisHistory.builder()
+						.ipAddress(ips[i])
+						.logInput("java.lang.OutOfMemoryError: Java heap space")
+						.diagnosis("<div class=\"diagnosis\">benchmark</div>")
+						.severity("critical")
+						.title("java.lang.OutOfMemoryError: Java heap space")
+						.build());
+			}
+		}
+		context.getBean(AnalysisHistoryRepository.class).saveAll(rows);
+
+		// Created after seeding so the in-memory limiter rebuilds its windows from the rows above
+		Class<? extends RateLimiter> type = "memory".equals(mode) ? InMemoryRateLimiter.class : DatabaseRateLimiter.class;
+		rateLimiter = context.getAutowireCapableBeanFactory().createBean(type);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean acquireAndRelease() {
+		String ip = ips[ThreadLocalRandom.current().nextInt(ips.length)];
+		boolean allowed = rateLimiter.tryAcquire(ip);
+		if (allowed) {
+			rateLimiter.release(ip);
+		}
+		return allowed;
+	}
+
+	@Benchmark
+	public int remaining() {
+		return rateLimiter.getRemaining(ips[ThreadLocalRandom.current().nextInt(ips.length)]);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RateLimiterBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,141 @@
+package com.prodpulse.prodpulse_backend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodpulse.prodpulse_backend.controller.LogAnalysisController;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request work around the analysis: client IP resolution in LogAnalysisController
+ * (private, called through a method handle) for each header the proxies may send, and
+ * serialization of the DiagnosisResponse body - HTML content vs a structured diagnosis
+ * The ObjectMapper is configured like Spring Boot's (Jackson2ObjectMapperBuilder defaults).
+ *
+ * Run: mvn -Pbenchmark -DskipTests verify (see BenchmarkRunner), or on its own:
+ *      mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.prodpulse.prodpulse_backend.benchmark.RequestHandlingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestHandlingBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private DiagnosisResponse htmlResponse;
+
+	private DiagnosisResponse structuredResponse;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		htmlResponse = DiagnosisResponse.builder()
+				.severity("critical")
+				.title("Database Connection Failure")
+				.content("<div class=\"diagnosis\"><h3>What happened</h3><p>The connection pool ran out of "
+						+ "connections: all 10 were in use and 37 requests waited longer than 30 seconds.</p>"
+						+ "<h3>How to fix</h3><ol><li>Find the slow queries holding connections.</li>"
+						+ "<li>Raise maximum-pool-size only if the database can take it.</li></ol>"
+						+ "<h3>Prevention</h3><ul><li>Alert on pending connections.</li></ul></div>")
+				.timestamp("2024-05-01T10:15:03")
+				.analysisId(8812L)
+				.build();
+		structuredResponse = DiagnosisResponse.builder()
+				.severity("critical")
+				.title("Database Connection Failure")
+				.rootCause("The connection pool ran out of connections: all 10 were in use and 37 requests "
+						+ "waited longer than 30 seconds.")
+				.fixSteps(List.of("Find the slow queries holding connections.",
+						"Raise maximum-pool-size only if the database can take it."))
+				.preventionTips(List.of("Alert on pending connections."))
+				.confidence(0.85)
+				.timestamp("2024-05-01T10:15:03")
+				.analysisId(8812L)
+				.build();
+	}
+
+	@Benchmark
+	public String clientIpAddress(ClientIpState state) throws Throwable {
+		return (String) state.getClientIpAddress.invokeExact(state.controller, state.request);
+	}
+
+	@Benchmark
+	public byte[] serializeHtmlResponse() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(htmlResponse);
+	}
+
+	@Benchmark
+	public byte[] serializeStructuredResponse() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(structuredResponse);
+	}
+
+	/**
+	 * A request carrying one of the client IP headers, kept apart so that only
+	 * clientIpAddress is run per header
+	 */
+	@State(Scope.Benchmark)
+	public static class ClientIpState {
+
+		@Param({"xff-single", "xff-chain", "x-real-ip", "remote-addr"})
+		private String clientIpHeader;
+
+		private LogAnalysisController controller;
+
+		private MethodHandle getClientIpAddress;
+
+		private HttpServletRequest request;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			controller = new LogAnalysisController();
+			getClientIpAddress = MethodHandles.privateLookupIn(LogAnalysisController.class, MethodHandles.lookup())
+					.findVirtual(LogAnalysisController.class, "getClientIpAddress",
+							MethodType.methodType(String.class, HttpServletRequest.class));
+
+			MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/analyze");
+			request.setRemoteAddr("10.0.0.2");
+			switch (clientIpHeader) {
+				case "xff-single" -> request.addHeader("X-Forwarded-For", "203.0.113.7");
+				case "xff-chain" -> request.addHeader("X-Forwarded-For", "203.0.113.7, 198.51.100.20, 10.0.0.3");
+				case "x-real-ip" -> request.addHeader("X-Real-IP", "203.0.113.7");
+				case "remote-addr" -> {
+				}
+				default -> throw new IllegalArgumentException(clientIpHeader);
+			}
+			this.request = request;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RequestHandlingBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
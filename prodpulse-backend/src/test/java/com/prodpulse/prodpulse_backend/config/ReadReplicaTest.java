@@ -0,0 +1,177 @@
+package com.prodpulse.prodpulse_backend.config;
+
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryItem;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryPage;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read-only calls go to the replica, writes to the primary - two in-memory H2 databases,
+ * "replicated" on demand with SCRIPT / RUNSCRIPT - and history details are served from
+ * the second-level cache
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"spring.datasource.url=jdbc:h2:mem:prodpulse-primary;DB_CLOSE_DELAY=-1;MODE=MySQL",
+				"app.datasource.replica.url=" + ReadReplicaTest.REPLICA_URL,
+				"app.rate-limit.mode=database"
+		})
+class ReadReplicaTest {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:prodpulse-replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private DataSource primaryDataSource;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stubLlm.setContent("<div class=\"diagnosis\"><h3>Write failed</h3></div>");
+		replicate();
+	}
+
+	@Test
+	void readOnlyCallsReadTheReplica() throws Exception {
+		String ip = "10.50.0.1";
+		double replicaConnections = connections("replica");
+
+		// Matches no known-error rule: an AI analysis, charged against the rate limit
+		DiagnosisResponse analysis = analyze(ip, "java.io.IOException: Input/output error (writing /var/log/app.log)");
+
+		// Written to the primary only - the replica has not caught up yet
+		assertThat(get("/api/history", ip, HistoryPage.class).getItems()).isEmpty();
+		assertThat(get("/api/rate-limit-status", ip, Map.class).get("remainingRequests")).isEqualTo(10);
+		assertThat(connections("replica")).isGreaterThan(replicaConnections);
+
+		replicate();
+
+		assertThat(get("/api/history?detail=true", ip, HistoryPage.class).getItems())
+				.singleElement()
+				.satisfies(item -> {
+					assertThat(item.getAnalysisId()).isEqualTo(analysis.getAnalysisId());
+					assertThat(item.getContent()).contains("Write failed");
+				});
+		assertThat(get("/api/rate-limit-status", ip, Map.class).get("remainingRequests")).isEqualTo(9);
+	}
+
+	@Test
+	void historyDetailsComeFromTheSecondLevelCache() throws Exception {
+		String ip = "10.50.0.2";
+		DiagnosisResponse analysis = analyze(ip, "java.lang.IllegalStateException: template not found at com.acme.ReportBuilder.render");
+		replicate();
+		entityManagerFactory.getCache().evictAll();
+		double hits = cacheRequests("hit");
+		double misses = cacheRequests("miss");
+
+		HistoryItem first = get("/api/history/" + analysis.getAnalysisId(), ip, HistoryItem.class);
+		HistoryItem second = get("/api/history/" + analysis.getAnalysisId(), ip, HistoryItem.class);
+
+		assertThat(second.getContent()).isEqualTo(first.getContent()).contains("Write failed");
+		assertThat(cacheRequests("miss")).isEqualTo(misses + 1);
+		assertThat(cacheRequests("hit")).isEqualTo(hits + 1);
+		assertThat(meterRegistry.get("prodpulse.db.cache.hit_ratio").gauge().value()).isPositive();
+
+		// Cached or not, other clients' analyses stay invisible
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.50.0.3");
+		assertThat(restTemplate.exchange("/api/history/" + analysis.getAnalysisId(), HttpMethod.GET,
+				new HttpEntity<>(headers), HistoryItem.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	/**
+	 * Copy the primary database to the replica
+	 */
+	private void replicate() throws Exception {
+		Path script = Files.createTempFile("prodpulse-replica", ".sql");
+		try {
+			new JdbcTemplate(primaryDataSource).execute("SCRIPT TO '" + script + "'");
+			JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+			replica.execute("DROP ALL OBJECTS");
+			replica.execute("RUNSCRIPT FROM '" + script + "'");
+		} finally {
+			Files.deleteIfExists(script);
+		}
+	}
+
+	private DiagnosisResponse analyze(String ip, String log) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		ResponseEntity<DiagnosisResponse> response = restTemplate.postForEntity("/api/analyze",
+				new HttpEntity<>(new LogRequest(log), headers), DiagnosisResponse.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response.getBody();
+	}
+
+	private <T> T get(String url, String ip, Class<T> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response.getBody();
+	}
+
+	private double connections(String target) {
+		return meterRegistry.get("prodpulse.db.connections").tag("target", target).counter().count();
+	}
+
+	private double cacheRequests(String result) {
+		return meterRegistry.get("prodpulse.db.cache.requests").tag("result", result).functionCounter().count();
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ZERO);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
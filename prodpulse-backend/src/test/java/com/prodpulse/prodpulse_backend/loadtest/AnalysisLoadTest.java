@@ -0,0 +1,137 @@
+package com.prodpulse.prodpulse_backend.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of /api/analyze against the stub LLM server (long-tailed latency,
+ * paced token generation), one scenario per path through the pipeline:
+ * cache miss, cache hit, streamed miss, rate-limited client and fallback (LLM failing)
+ * Logs one report line per scenario - throughput, p50/p99, DB pool saturation, heap
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				// Measures the pipeline, not load shedding in front of it
+				"app.ai.concurrency.enabled=false",
+				// Miss logs differ only in numbers - they must not be served as similar incidents
+				"app.similar-incidents.enabled=false"
+		})
+class AnalysisLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisLoadTest.class);
+
+	private static final int REQUESTS = 200;
+
+	private static final int CONCURRENCY = 20;
+
+	// app.rate-limit.max-requests in the test properties
+	private static final int RATE_LIMIT = 10;
+
+	private static final String DIAGNOSIS = """
+			<div class="diagnosis"><h3>What happened</h3><p>The worker pool could not start a worker \
+			because its configuration was rejected.</p><h3>How to fix</h3><ol><li>Check the pool \
+			settings in the deployment.</li><li>Restart the service.</li></ol><h3>Prevention</h3>\
+			<ul><li>Validate configuration at startup.</li></ul></div>""";
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void reportsEachScenario() throws Exception {
+		stubLlm.setContent(DIAGNOSIS);
+		stubLlm.setLatency(LatencyDistribution.logNormal(Duration.ofMillis(100), Duration.ofMillis(400)));
+		stubLlm.setTokensPerSecond(400);
+
+		List<LoadDriver.Report> reports = new ArrayList<>();
+		try (LoadDriver driver = new LoadDriver((HikariDataSource) dataSource)) {
+			int llmRequests = stubLlm.getRequests();
+			LoadDriver.Report miss = driver.run("cache-miss", REQUESTS, CONCURRENCY,
+					i -> analyze("/api/analyze", "10.60." + (i / 250) + "." + (i % 250), "worker " + i));
+			reports.add(miss);
+			assertThat(miss.getCount(200)).isEqualTo(REQUESTS);
+			assertThat(stubLlm.getRequests() - llmRequests).isEqualTo(REQUESTS);
+
+			llmRequests = stubLlm.getRequests();
+			LoadDriver.Report hit = driver.run("cache-hit", REQUESTS, CONCURRENCY,
+					i -> analyze("/api/analyze", "10.61." + (i / 250) + "." + (i % 250), "worker 0"));
+			reports.add(hit);
+			assertThat(hit.getCount(200)).isEqualTo(REQUESTS);
+			assertThat(stubLlm.getRequests()).isEqualTo(llmRequests);
+
+			int streamed = stubLlm.getStreamedRequests();
+			LoadDriver.Report stream = driver.run("stream-miss", REQUESTS, CONCURRENCY,
+					i -> analyze("/api/analyze/stream", "10.62." + (i / 250) + "." + (i % 250), "stream " + i));
+			reports.add(stream);
+			assertThat(stream.getCount(200)).isEqualTo(REQUESTS);
+			assertThat(stubLlm.getStreamedRequests() - streamed).isEqualTo(REQUESTS);
+
+			LoadDriver.Report rateLimited = driver.run("rate-limited", REQUESTS, CONCURRENCY,
+					i -> analyze("/api/analyze", "10.63.0.1", "limited " + i));
+			reports.add(rateLimited);
+			assertThat(rateLimited.getCount(200)).isEqualTo(RATE_LIMIT);
+			assertThat(rateLimited.getCount(429)).isEqualTo(REQUESTS - RATE_LIMIT);
+
+			// Last: the failures open the circuit breaker, later calls get the fallback without the LLM
+			stubLlm.setErrorRate(1, 503);
+			LoadDriver.Report fallback = driver.run("fallback", REQUESTS, CONCURRENCY,
+					i -> analyze("/api/analyze", "10.64." + (i / 250) + "." + (i % 250), "fallback " + i));
+			reports.add(fallback);
+			assertThat(fallback.getCount(200)).isEqualTo(REQUESTS);
+			assertThat(stubLlm.getInjectedErrors()).isPositive();
+		} finally {
+			stubLlm.setErrorRate(0, 503);
+			reports.forEach(report -> logger.info("{}", report));
+		}
+	}
+
+	private HttpRequest analyze(String path, String ip, String worker) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(Duration.ofSeconds(60))
+				.header("Content-Type", "application/json")
+				.header("X-Forwarded-For", ip)
+				.POST(HttpRequest.BodyPublishers.ofString(
+						"{\"logs\":\"java.lang.IllegalStateException: " + worker + " failed to start\"}"))
+				.build();
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ZERO);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.prodpulse.prodpulse_backend.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time to first token of a StubLlmServer response, drawn per request
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+	Duration next();
+
+	static LatencyDistribution fixed(Duration latency) {
+		return () -> latency;
+	}
+
+	static LatencyDistribution uniform(Duration min, Duration max) {
+		long minNanos = min.toNanos();
+		long maxNanos = max.toNanos();
+		return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1));
+	}
+
+	/**
+	 * Long-tailed, like real LLM APIs: most calls near the median, a few far slower
+	 *
+	 * @param median Latency of half the calls
+	 * @param p99 Latency exceeded by 1% of the calls
+	 */
+	static LatencyDistribution logNormal(Duration median, Duration p99) {
+		double medianNanos = median.toNanos();
+		// z-score of the 99th percentile of the standard normal distribution
+		double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / 2.326;
+		return () -> Duration.ofNanos((long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+	}
+}
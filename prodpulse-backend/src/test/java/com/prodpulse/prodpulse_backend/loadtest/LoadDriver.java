@@ -0,0 +1,205 @@
+package com.prodpulse.prodpulse_backend.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop HTTP load driver: a fixed number of clients (virtual threads) each send
+ * their next request as soon as the previous one is answered
+ * Reports throughput, latency percentiles and statuses per scenario, plus the DB pool
+ * saturation and heap usage sampled every 10 ms while the scenario runs
+ */
+public class LoadDriver implements AutoCloseable {
+
+	private static final long SAMPLE_INTERVAL_MS = 10;
+
+	private final ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+
+	private final HikariDataSource dataSource;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * @param dataSource Connection pool of the application under test
+	 */
+	public LoadDriver(HikariDataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Send the requests of a scenario and wait for all responses
+	 *
+	 * @param scenario Name in the report
+	 * @param requests Number of requests to send
+	 * @param concurrency Number of clients sending at the same time
+	 * @param request Builds the i-th request (0-based)
+	 * @return What happened
+	 */
+	public Report run(String scenario, int requests, int concurrency, IntFunction<HttpRequest> request)
+			throws InterruptedException {
+		long[] latencies = new long[requests];
+		Map<Integer, Integer> statuses = new ConcurrentHashMap<>();
+		AtomicInteger next = new AtomicInteger();
+
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		AtomicInteger maxActiveConnections = new AtomicInteger();
+		AtomicInteger maxPendingConnections = new AtomicInteger();
+		long heapBefore = memory.getHeapMemoryUsage().getUsed();
+		AtomicLong maxHeap = new AtomicLong(heapBefore);
+
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		sampler.scheduleAtFixedRate(() -> {
+			if (pool != null) {
+				maxActiveConnections.accumulateAndGet(pool.getActiveConnections(), Math::max);
+				maxPendingConnections.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+			}
+			maxHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+		}, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+		long start = System.nanoTime();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < concurrency; c++) {
+				clients.submit(() -> {
+					for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+						long sent = System.nanoTime();
+						int status;
+						try {
+							status = client.send(request.apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+						} catch (Exception e) {
+							// Timeouts and refused connections count as status 0
+							status = 0;
+						}
+						latencies[i] = System.nanoTime() - sent;
+						statuses.merge(status, 1, Integer::sum);
+					}
+					return null;
+				});
+			}
+		} finally {
+			sampler.shutdownNow();
+		}
+		long duration = System.nanoTime() - start;
+		sampler.awaitTermination(1, TimeUnit.SECONDS);
+
+		Arrays.sort(latencies);
+		return new Report(scenario, duration, latencies, new TreeMap<>(statuses),
+				maxActiveConnections.get(), maxPendingConnections.get(), dataSource.getMaximumPoolSize(),
+				heapBefore, maxHeap.get());
+	}
+
+	@Override
+	public void close() {
+		clientExecutor.shutdownNow();
+	}
+
+	/**
+	 * Result of one scenario
+	 */
+	public static class Report {
+
+		private final String scenario;
+		private final long durationNanos;
+		private final long[] sortedLatencies;
+		private final Map<Integer, Integer> statuses;
+		private final int maxActiveConnections;
+		private final int maxPendingConnections;
+		private final int poolSize;
+		private final long heapBefore;
+		private final long maxHeap;
+
+		private Report(String scenario, long durationNanos, long[] sortedLatencies, Map<Integer, Integer> statuses,
+					   int maxActiveConnections, int maxPendingConnections, int poolSize,
+					   long heapBefore, long maxHeap) {
+			this.scenario = scenario;
+			this.durationNanos = durationNanos;
+			this.sortedLatencies = sortedLatencies;
+			this.statuses = statuses;
+			this.maxActiveConnections = maxActiveConnections;
+			this.maxPendingConnections = maxPendingConnections;
+			this.poolSize = poolSize;
+			this.heapBefore = heapBefore;
+			this.maxHeap = maxHeap;
+		}
+
+		public String getScenario() {
+			return scenario;
+		}
+
+		/**
+		 * Responses per second over the whole scenario
+		 */
+		public double getThroughput() {
+			return sortedLatencies.length * 1e9 / durationNanos;
+		}
+
+		/**
+		 * @param percentile 0 to 100
+		 * @return Latency in milliseconds (nearest rank)
+		 */
+		public double getLatencyMs(double percentile) {
+			int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+			return sortedLatencies[Math.max(rank - 1, 0)] / 1e6;
+		}
+
+		/**
+		 * Number of responses with this status (0: no response)
+		 */
+		public int getCount(int status) {
+			return statuses.getOrDefault(status, 0);
+		}
+
+		/**
+		 * Most connections in use at the same time, out of getPoolSize()
+		 */
+		public int getMaxActiveConnections() {
+			return maxActiveConnections;
+		}
+
+		/**
+		 * Most threads waiting for a connection at the same time - above 0 the pool was saturated
+		 */
+		public int getMaxPendingConnections() {
+			return maxPendingConnections;
+		}
+
+		public int getPoolSize() {
+			return poolSize;
+		}
+
+		public long getHeapBeforeBytes() {
+			return heapBefore;
+		}
+
+		public long getMaxHeapBytes() {
+			return maxHeap;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-13s %5d requests %8.1f req/s  p50 %7.1f ms  p99 %7.1f ms  statuses %s  "
+							+ "db pool %d/%d active, %d pending  heap %d -> %d MB",
+					scenario, sortedLatencies.length, getThroughput(), getLatencyMs(50), getLatencyMs(99), statuses,
+					maxActiveConnections, poolSize, maxPendingConnections,
+					heapBefore >> 20, maxHeap >> 20);
+		}
+	}
+}
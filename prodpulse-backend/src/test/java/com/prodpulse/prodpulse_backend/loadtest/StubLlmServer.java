@@ -0,0 +1,275 @@
+package com.prodpulse.prodpulse_backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Local OpenAI-compatible chat completions server for tests
+ * Answers POST /v1/chat/completions - as one JSON body, or as SSE chunks when the request
+ * has "stream": true - and tracks concurrency, so tests can exercise the real HTTP path
+ * without Groq quota
+ *
+ * Shaping, changeable while running:
+ * - latency: time to the first token, fixed or drawn from a LatencyDistribution
+ * - token rate: the content is generated word by word at this rate (0 = all at once)
+ * - error rate: this share of requests gets an OpenAI-style error with the given status
+ */
+public class StubLlmServer implements AutoCloseable {
+
+	private static final String COMPLETION = """
+			{"id":"stub","object":"chat.completion","created":0,"model":"stub",
+			 "choices":[{"index":0,"message":{"role":"assistant","content":"%s"},"finish_reason":"stop"}],
+			 "usage":{"prompt_tokens":%d,"completion_tokens":%d,"total_tokens":%d}}
+			""";
+
+	private static final String CHUNK = """
+			{"id":"stub","object":"chat.completion.chunk","created":0,"model":"stub",\
+			"choices":[{"index":0,"delta":{"role":"assistant","content":"%s"},"finish_reason":null}]}""";
+
+	private static final String LAST_CHUNK = """
+			{"id":"stub","object":"chat.completion.chunk","created":0,"model":"stub",\
+			"choices":[{"index":0,"delta":{},"finish_reason":"stop"}],\
+			"usage":{"prompt_tokens":%d,"completion_tokens":%d,"total_tokens":%d}}""";
+
+	private static final String ERROR = """
+			{"error":{"message":"Injected error (HTTP %d)","type":"stub_error","code":"stub_%d"}}
+			""";
+
+	private static final Pattern STREAM = Pattern.compile("\"stream\"\\s*:\\s*true");
+
+	// A word and the whitespace after it stands in for a token
+	private static final Pattern TOKEN = Pattern.compile("(?<=\\s)(?=\\S)");
+
+	private static final String DEFAULT_CONTENT = "<div class=\"diagnosis\">stub</div>";
+
+	private final HttpServer server;
+
+	// Platform threads on purpose: the JDK HttpServer reads request bodies inside synchronized
+	// methods, which would pin virtual threads and starve the application under test
+	private final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+
+	private volatile LatencyDistribution latency;
+
+	private volatile double tokensPerSecond;
+
+	private volatile double errorRate;
+
+	private volatile int errorStatus = 500;
+
+	private volatile String content = DEFAULT_CONTENT;
+
+	private volatile String lastRequest;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final AtomicInteger streamedRequests = new AtomicInteger();
+
+	private final AtomicInteger injectedErrors = new AtomicInteger();
+
+	public StubLlmServer(Duration latency) throws IOException {
+		this(LatencyDistribution.fixed(latency));
+	}
+
+	public StubLlmServer(LatencyDistribution latency) throws IOException {
+		this.latency = latency;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+		server.createContext("/v1/chat/completions", this::handleCompletion);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Base URL to use as spring.ai.openai.base-url
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Change the latency of requests that arrive from now on
+	 */
+	public void setLatency(Duration latency) {
+		this.latency = LatencyDistribution.fixed(latency);
+	}
+
+	/**
+	 * Draw the latency of each request that arrives from now on
+	 */
+	public void setLatency(LatencyDistribution latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * Generate the content at this many tokens (words) per second after the first token,
+	 * or all at once if 0
+	 */
+	public void setTokensPerSecond(double tokensPerSecond) {
+		this.tokensPerSecond = tokensPerSecond;
+	}
+
+	/**
+	 * Fail this share of the requests that arrive from now on (0 to 1) with an
+	 * OpenAI-style error body, after the latency
+	 *
+	 * @param rate Share of requests to fail, 0 to turn error injection off
+	 * @param status HTTP status of the injected errors (429, 500, 503...)
+	 */
+	public void setErrorRate(double rate, int status) {
+		this.errorStatus = status;
+		this.errorRate = rate;
+	}
+
+	/**
+	 * Change the assistant message of requests that arrive from now on
+	 */
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	/**
+	 * Body of the last request received (JSON)
+	 */
+	public String getLastRequest() {
+		return lastRequest;
+	}
+
+	/**
+	 * Platform threads currently in the stub's handler pool (to tell them apart from the application's)
+	 */
+	public int getHandlerThreads() {
+		return executor.getPoolSize();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	public int getRequests() {
+		return requests.get();
+	}
+
+	public int getStreamedRequests() {
+		return streamedRequests.get();
+	}
+
+	public int getInjectedErrors() {
+		return injectedErrors.get();
+	}
+
+	private void handleCompletion(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		int current = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(current, Math::max);
+		try (exchange) {
+			String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			lastRequest = request;
+			Thread.sleep(latency.next());
+
+			double rate = errorRate;
+			if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+				injectedErrors.incrementAndGet();
+				int status = errorStatus;
+				send(exchange, status, "application/json", ERROR.formatted(status, status));
+				return;
+			}
+
+			String[] tokens = TOKEN.split(content);
+			int promptTokens = request.length() / 4;
+			if (STREAM.matcher(request).find()) {
+				streamedRequests.incrementAndGet();
+				stream(exchange, tokens, promptTokens);
+			} else {
+				generate(tokens.length);
+				send(exchange, 200, "application/json", COMPLETION.formatted(jsonEscape(content),
+						promptTokens, tokens.length, promptTokens + tokens.length));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * One SSE event per token, paced at the token rate, then the usage and [DONE]
+	 */
+	private void stream(HttpExchange exchange, String[] tokens, int promptTokens)
+			throws IOException, InterruptedException {
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = exchange.getResponseBody()) {
+			long start = System.nanoTime();
+			for (int i = 0; i < tokens.length; i++) {
+				if (i > 0) {
+					sleepUntilToken(start, i);
+				}
+				writeEvent(out, CHUNK.formatted(jsonEscape(tokens[i])));
+			}
+			writeEvent(out, LAST_CHUNK.formatted(promptTokens, tokens.length, promptTokens + tokens.length));
+			writeEvent(out, "[DONE]");
+		}
+	}
+
+	/**
+	 * Wait for a whole response to be generated at the token rate
+	 */
+	private void generate(int tokens) throws InterruptedException {
+		if (tokens > 1) {
+			sleepUntilToken(System.nanoTime(), tokens - 1);
+		}
+	}
+
+	/**
+	 * Sleep until the given token is due; due times are absolute, so short sleeps do not drift
+	 */
+	private void sleepUntilToken(long start, int token) throws InterruptedException {
+		double rate = tokensPerSecond;
+		if (rate <= 0) {
+			return;
+		}
+		long remaining = start + (long) (token * 1_000_000_000L / rate) - System.nanoTime();
+		if (remaining > 0) {
+			Thread.sleep(Duration.ofNanos(remaining));
+		}
+	}
+
+	private static void writeEvent(OutputStream out, String data) throws IOException {
+		out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static String jsonEscape(String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+				.replace("\r", "\\r").replace("\t", "\\t");
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,111 @@
+package com.prodpulse.prodpulse_backend.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test: with virtual threads, concurrent in-flight analyses are bounded by the
+ * upstream LLM, not by the Tomcat thread pool
+ * Drives /api/analyze over HTTP against a local stub LLM server with 2s latency
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"server.tomcat.threads.max=" + VirtualThreadLoadTest.TOMCAT_THREADS,
+				"app.rate-limit.max-requests=1000",
+				// Measures raw fan-out to the LLM - load shedding would cap it by design
+				"app.ai.concurrency.enabled=false"
+		})
+class VirtualThreadLoadTest {
+
+	static final int TOMCAT_THREADS = 20;
+
+	private static final int CONCURRENT_REQUESTS = 400;
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	@LocalServerPort
+	private int port;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void inFlightAnalysesFarExceedPlatformThreads() throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		AtomicInteger peakPlatformThreads = new AtomicInteger();
+		ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+
+		try {
+			List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/analyze"))
+						.timeout(Duration.ofSeconds(60))
+						.header("Content-Type", "application/json")
+						.header("X-Forwarded-For", "10.1." + (i / 250) + "." + (i % 250))
+						// Distinct logs so the diagnosis cache cannot short-circuit the LLM
+						.POST(HttpRequest.BodyPublishers.ofString(
+								"{\"logs\":\"java.lang.IllegalStateException: worker " + i + " failed to start\"}"))
+						.build();
+				responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+			}
+
+			// JVM platform threads, minus the stub's handler pool (one platform thread per call it serves).
+			// Stub threads are read first: a thread started in between is counted, never missed
+			while (!CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).isDone()) {
+				int stubThreads = stubLlm.getHandlerThreads();
+				peakPlatformThreads.accumulateAndGet(threads.getThreadCount() - stubThreads, Math::max);
+				Thread.sleep(50);
+			}
+
+			for (CompletableFuture<HttpResponse<String>> response : responses) {
+				assertThat(response.get(60, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+			}
+		} finally {
+			clientExecutor.shutdownNow();
+		}
+
+		assertThat(stubLlm.getRequests()).isEqualTo(CONCURRENT_REQUESTS);
+		// A platform-thread Tomcat could never have more than TOMCAT_THREADS calls in flight
+		assertThat(stubLlm.getMaxInFlight())
+				.isGreaterThan(10 * TOMCAT_THREADS)
+				.isGreaterThan(peakPlatformThreads.get());
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ofSeconds(2));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
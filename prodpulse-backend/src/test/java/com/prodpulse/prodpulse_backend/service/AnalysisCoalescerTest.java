@@ -0,0 +1,66 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A flight that ends with an Error still releases the callers waiting on it
+ */
+class AnalysisCoalescerTest {
+
+	private static final String FINGERPRINT = "d".repeat(64);
+
+	private final AIService aiService = mock(AIService.class);
+
+	private final AnalysisMetrics metrics = mock(AnalysisMetrics.class);
+
+	@Test
+	void errorIsRethrownToWaitingCallers() throws Exception {
+		CountDownLatch callStarted = new CountDownLatch(1);
+		CountDownLatch failCall = new CountDownLatch(1);
+		when(aiService.analyzeLog(anyString())).thenAnswer(invocation -> {
+			callStarted.countDown();
+			failCall.await();
+			throw new StackOverflowError("provider client blew the stack");
+		});
+		AnalysisCoalescer coalescer = coalescer();
+
+		CompletableFuture<Void> leader = CompletableFuture.runAsync(() -> coalescer.analyze(FINGERPRINT, "ERROR first"));
+		assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> coalescer.analyze(FINGERPRINT, "ERROR second"));
+		verify(metrics, timeout(5000)).recordCoalesced();
+
+		failCall.countDown();
+
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(StackOverflowError.class);
+		assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(StackOverflowError.class);
+		assertThat(coalescer.getInFlight()).isZero();
+	}
+
+	private AnalysisCoalescer coalescer() {
+		AnalysisCoalescer coalescer = new AnalysisCoalescer();
+		ReflectionTestUtils.setField(coalescer, "aiService", aiService);
+		ReflectionTestUtils.setField(coalescer, "diagnosisCache", mock(DiagnosisCache.class));
+		ReflectionTestUtils.setField(coalescer, "metrics", metrics);
+		ReflectionTestUtils.setField(coalescer, "enabled", true);
+		return coalescer;
+	}
+}
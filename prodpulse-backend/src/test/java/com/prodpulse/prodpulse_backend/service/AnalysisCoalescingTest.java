@@ -0,0 +1,114 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Identical analyses in flight at the same time share one upstream LLM call,
+ * while every caller still gets its own history row and rate-limit accounting
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.rate-limit.max-requests=10")
+class AnalysisCoalescingTest {
+
+	private static final int CONCURRENT_REQUESTS = 100;
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@Autowired
+	private RateLimiter rateLimiter;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void simultaneousIdenticalRequestsMakeOneUpstreamCall() throws Exception {
+		LocalDateTime start = LocalDateTime.now().minusSeconds(1);
+		ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+
+		try {
+			List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/analyze"))
+						.timeout(Duration.ofSeconds(30))
+						.header("Content-Type", "application/json")
+						.header("X-Forwarded-For", ip(i))
+						// Same error, different timestamps - one fingerprint
+						.POST(HttpRequest.BodyPublishers.ofString("{\"logs\":\"2024-05-01 10:00:" + String.format("%02d", i % 60)
+								+ " ERROR PaymentService charge failed: upstream returned HTTP 502 after 30000ms\"}"))
+						.build();
+				responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+			}
+
+			for (CompletableFuture<HttpResponse<String>> response : responses) {
+				HttpResponse<String> result = response.get(30, TimeUnit.SECONDS);
+				assertThat(result.statusCode()).isEqualTo(200);
+				assertThat(result.body()).contains("stub");
+			}
+		} finally {
+			clientExecutor.shutdownNow();
+		}
+
+		assertThat(stubLlm.getRequests()).isEqualTo(1);
+		for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+			assertThat(analysisHistoryRepository.countByIpAddressAndCreatedAtAfter(ip(i), start)).isEqualTo(1);
+			assertThat(rateLimiter.getRemaining(ip(i))).isEqualTo(9);
+		}
+		assertThat(meterRegistry.get("prodpulse.analyses.coalesced").counter().count()).isPositive();
+	}
+
+	private static String ip(int i) {
+		return "10.20.0." + (i + 1);
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			// Long enough that all requests arrive while the first call is in flight
+			return new StubLlmServer(Duration.ofSeconds(3));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.JobRequest;
+import com.prodpulse.prodpulse_backend.model.dto.JobResponse;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisJob;
+import com.prodpulse.prodpulse_backend.model.entity.JobStatus;
+import com.prodpulse.prodpulse_backend.repository.AnalysisJobRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Async jobs: backpressure when the queue is full, polling, webhook delivery (allowed hosts only)
+ * and resume after restart
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"app.jobs.workers=1", "app.jobs.queue-capacity=1", "app.jobs.callback-allowed-hosts=127.0.0.1"})
+class AnalysisJobTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AnalysisJobRepository analysisJobRepository;
+
+	@Autowired
+	private AnalysisJobService analysisJobService;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void rejectsWhenQueueIsFullAndDeliversResults() throws Exception {
+		CountDownLatch insideLlm = new CountDownLatch(1);
+		CountDownLatch releaseLlm = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			insideLlm.countDown();
+			releaseLlm.await(30, TimeUnit.SECONDS);
+			return new AIDiagnosis("<div class=\"diagnosis\">stubbed</div>", false);
+		}).when(aiService).analyzeLog(anyString());
+
+		CompletableFuture<String> callbackBody = new CompletableFuture<>();
+		HttpServer callbackServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		callbackServer.createContext("/hook", exchange -> {
+			callbackBody.complete(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		callbackServer.start();
+
+		try {
+			String callbackUrl = "http://127.0.0.1:" + callbackServer.getAddress().getPort() + "/hook";
+
+			// 1. First job occupies the only worker
+			ResponseEntity<JobResponse> running = submit("java.lang.IllegalStateException: first job", callbackUrl);
+			assertThat(running.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+			assertThat(running.getHeaders().getLocation()).hasToString("/api/jobs/" + running.getBody().getJobId());
+			assertThat(insideLlm.await(30, TimeUnit.SECONDS)).isTrue();
+
+			// 2. Second job fills the queue, third is rejected
+			ResponseEntity<JobResponse> queued = submit("java.lang.IllegalStateException: second job", null);
+			assertThat(queued.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+			assertThat(submit("java.lang.IllegalStateException: third job", null).getStatusCode())
+					.isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+			assertThat(poll(queued.getBody().getJobId()).getStatus()).isEqualTo("QUEUED");
+
+			// 3. Both complete once the LLM answers
+			releaseLlm.countDown();
+			JobResponse first = awaitFinished(running.getBody().getJobId());
+			JobResponse second = awaitFinished(queued.getBody().getJobId());
+
+			assertThat(first.getStatus()).isEqualTo("COMPLETED");
+			assertThat(first.getDiagnosis().getContent()).contains("stubbed");
+			assertThat(second.getStatus()).isEqualTo("COMPLETED");
+
+			String delivered = callbackBody.get(10, TimeUnit.SECONDS);
+			assertThat(delivered).contains(first.getJobId()).contains("COMPLETED").contains("stubbed");
+		} finally {
+			releaseLlm.countDown();
+			callbackServer.stop(0);
+		}
+	}
+
+	@Test
+	void resumesJobsLeftOverFromPreviousRun() throws Exception {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">resumed</div>", false))
+				.when(aiService).analyzeLog(anyString());
+
+		AnalysisJob leftOver = analysisJobRepository.save(AnalysisJob.builder()
+				.id(UUID.randomUUID().toString())
+				.ipAddress("10.3.0.9")
+				.logInput("java.lang.IllegalStateException: interrupted by restart")
+				.status(JobStatus.RUNNING)
+				.build());
+
+		analysisJobService.resumePendingJobs();
+
+		JobResponse resumed = awaitFinished(leftOver.getId());
+		assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+		assertThat(resumed.getDiagnosis().getContent()).contains("resumed");
+	}
+
+	@Test
+	void rejectsCallbacksToHostsNotAllowed() {
+		assertThat(submit("java.lang.IllegalStateException: metadata job", "http://169.254.169.254/latest/meta-data/")
+				.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(submit("java.lang.IllegalStateException: loopback job", "http://localhost:8080/actuator")
+				.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void unknownJobIsNotFound() {
+		ResponseEntity<String> response = restTemplate.getForEntity("/api/jobs/" + UUID.randomUUID(), String.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	private ResponseEntity<JobResponse> submit(String logs, String callbackUrl) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.3.0.1");
+		return restTemplate.postForEntity("/api/jobs",
+				new HttpEntity<>(new JobRequest(logs, callbackUrl), headers), JobResponse.class);
+	}
+
+	private JobResponse poll(String jobId) {
+		return restTemplate.getForObject("/api/jobs/" + jobId, JobResponse.class);
+	}
+
+	private JobResponse awaitFinished(String jobId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30_000;
+		JobResponse job = poll(jobId);
+		while (("QUEUED".equals(job.getStatus()) || "RUNNING".equals(job.getStatus()))
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+			job = poll(jobId);
+		}
+		return job;
+	}
+}
@@ -0,0 +1,66 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Pipeline metrics are recorded per stage and scraped from /actuator/prometheus
+ * (metrics export is off in Spring Boot tests unless @AutoConfigureObservability turns it on)
+ */
+@AutoConfigureObservability
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.rate-limit.max-requests=1")
+class AnalysisMetricsTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void stagesCountersAndRejectionsAreExported() {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">metrics</div>", false))
+				.when(aiService).analyzeLog(anyString());
+
+		assertThat(analyze("java.lang.IllegalStateException: metrics worker failed").getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+		// Unrelated log (no cache hit, no similar incident) from the same IP: over the limit of 1
+		assertThat(analyze("ERROR InvoiceImporter: java.lang.NumberFormatException: For input string: \"12,50\"")
+				.getStatusCode())
+				.isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+		String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+		for (String stage : new String[]{"validation", "rate_limit", "llm", "extraction", "persistence"}) {
+			assertThat(scrape).contains("prodpulse_analysis_stage_seconds_bucket{")
+					.containsPattern("prodpulse_analysis_stage_seconds_count\\{[^}]*stage=\"" + stage + "\"");
+		}
+		assertThat(scrape).containsPattern("prodpulse_analyses_total\\{[^}]*source=\"AI\"[^}]*} [1-9]");
+		assertThat(scrape).containsPattern("prodpulse_rate_limit_rejections_total(\\{[^}]*})? [1-9]");
+		assertThat(scrape).contains("cache_gets_total{").contains("cache=\"diagnosis\"");
+	}
+
+	private ResponseEntity<DiagnosisResponse> analyze(String logs) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.16.0.1");
+		return restTemplate.postForEntity("/api/analyze", new HttpEntity<>(new LogRequest(logs), headers),
+				DiagnosisResponse.class);
+	}
+}
@@ -0,0 +1,123 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.BatchDiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.BatchItemResult;
+import com.prodpulse.prodpulse_backend.model.dto.BatchLogRequest;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Batch analysis: in-batch dedupe, partial failures and bounded AI parallelism
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.batch.parallelism=" + BatchAnalysisTest.PARALLELISM)
+class BatchAnalysisTest {
+
+	static final int PARALLELISM = 2;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void dedupesIdenticalLogsAndReportsPartialFailures() {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">stubbed</div>", false))
+				.when(aiService).analyzeLog(anyString());
+		doThrow(new IllegalStateException("upstream exploded"))
+				.when(aiService).analyzeLog(contains("worker pool"));
+
+		List<String> logs = List.of(
+				"2024-05-01 10:00:00 ERROR PaymentClient: upstream returned HTTP 502 from 10.0.0.5:8443",
+				// Same error at another time and address - same fingerprint
+				"2024-05-02 11:30:12 ERROR PaymentClient: upstream returned HTTP 502 from 10.0.0.9:8443",
+				"java.lang.NullPointerException: Cannot invoke \"Order.getId()\" because \"order\" is null",
+				"too short",
+				"java.lang.IllegalStateException: worker pool exhausted",
+				// Known-error rule, answered without the AI
+				"java.lang.OutOfMemoryError: Java heap space in batch importer");
+
+		long rowsBefore = analysisHistoryRepository.count();
+		BatchDiagnosisResponse response = analyzeBatch("10.2.0.1", logs).getBody();
+
+		assertThat(response.getTotal()).isEqualTo(6);
+		assertThat(response.getSucceeded()).isEqualTo(4);
+		assertThat(response.getFailed()).isEqualTo(2);
+
+		List<BatchItemResult> results = response.getResults();
+		assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+		assertThat(results).extracting(BatchItemResult::getStatus)
+				.containsExactly("success", "success", "success", "failed", "failed", "success");
+		assertThat(results.get(5).getDiagnosis().getTitle()).isEqualTo("Java OutOfMemoryError");
+
+		assertThat(results.get(1).getDuplicateOf()).isZero();
+		assertThat(results.get(1).getDiagnosis().getAnalysisId())
+				.isEqualTo(results.get(0).getDiagnosis().getAnalysisId());
+		assertThat(results.get(3).getError()).contains("too short");
+		assertThat(results.get(4).getError()).contains("upstream exploded");
+
+		// One AI call per unique valid log without a rule, one row per analyzed log
+		verify(aiService, times(3)).analyzeLog(anyString());
+		assertThat(analysisHistoryRepository.count() - rowsBefore).isEqualTo(3);
+	}
+
+	@Test
+	void limitsConcurrentAiCallsPerBatch() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		doAnswer(invocation -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+				return new AIDiagnosis("<div class=\"diagnosis\">stubbed</div>", false);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}).when(aiService).analyzeLog(anyString());
+
+		List<String> logs = new ArrayList<>();
+		for (String key : List.of("alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel")) {
+			logs.add("java.lang.IllegalArgumentException: invalid configuration key " + key);
+		}
+
+		ResponseEntity<BatchDiagnosisResponse> response = analyzeBatch("10.2.0.2", logs);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().getSucceeded()).isEqualTo(8);
+		verify(aiService, times(8)).analyzeLog(anyString());
+		assertThat(maxInFlight.get()).isEqualTo(PARALLELISM);
+	}
+
+	private ResponseEntity<BatchDiagnosisResponse> analyzeBatch(String ip, List<String> logs) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		return restTemplate.postForEntity("/api/analyze/batch",
+				new HttpEntity<>(new BatchLogRequest(logs), headers), BatchDiagnosisResponse.class);
+	}
+}
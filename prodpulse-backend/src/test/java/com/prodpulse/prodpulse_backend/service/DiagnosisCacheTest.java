@@ -0,0 +1,138 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.prodpulse.prodpulse_backend.model.projection.StoredDiagnosis;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hit/miss counters, TTL expiry, the database fall-through and the negative cache,
+ * on a controllable ticker
+ */
+class DiagnosisCacheTest {
+
+	private static final String KNOWN = "a".repeat(64);
+
+	private static final String STORED = "b".repeat(64);
+
+	private static final String UNKNOWN = "c".repeat(64);
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final AnalysisHistoryRepository repository = mock(AnalysisHistoryRepository.class);
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private DiagnosisCache cache;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(any(), anyList(), any()))
+				.thenReturn(Optional.empty());
+		when(repository.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(STORED), anyList(), any()))
+				.thenReturn(Optional.of(stored(STORED, "<p>stored</p>")));
+
+		cache = new DiagnosisCache();
+		ReflectionTestUtils.setField(cache, "analysisHistoryRepository", repository);
+		ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxSize", 100L);
+		ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+		ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+		ReflectionTestUtils.setField(cache, "ticker", (Ticker) nanos::get);
+		cache.init();
+	}
+
+	@Test
+	void countsHitsAndMisses() {
+		cache.put(KNOWN, "<p>known</p>");
+
+		assertThat(cache.get(KNOWN)).isEqualTo("<p>known</p>");
+		assertThat(cache.get(UNKNOWN)).isNull();
+
+		assertThat(cache.getStats())
+				.containsEntry("hits", 1L)
+				.containsEntry("misses", 1L)
+				.containsEntry("size", 1L);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "diagnosis").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "diagnosis").tag("result", "miss")
+				.functionCounter().count()).isEqualTo(1);
+		verify(repository, never())
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(KNOWN), anyList(), any());
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() {
+		cache.put(KNOWN, "<p>known</p>");
+
+		nanos.addAndGet(TimeUnit.MINUTES.toNanos(59));
+		assertThat(cache.get(KNOWN)).isEqualTo("<p>known</p>");
+
+		nanos.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		assertThat(cache.get(KNOWN)).isNull();
+		verify(repository)
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(KNOWN), anyList(), any());
+	}
+
+	@Test
+	void storedDiagnosisIsLoadedOnceThenServedFromMemory() {
+		assertThat(cache.get(STORED)).isEqualTo("<p>stored</p>");
+		assertThat(cache.get(STORED)).isEqualTo("<p>stored</p>");
+
+		verify(repository)
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(STORED), anyList(), any());
+	}
+
+	@Test
+	void missesAreRememberedUntilTheNegativeTtlExpires() {
+		assertThat(cache.get(UNKNOWN)).isNull();
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		assertThat(cache.get(UNKNOWN)).isNull();
+		verify(repository, times(1))
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(UNKNOWN), anyList(), any());
+
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertThat(cache.get(UNKNOWN)).isNull();
+		verify(repository, times(2))
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(UNKNOWN), anyList(), any());
+
+		// A new diagnosis replaces the remembered miss
+		cache.put(UNKNOWN, "<p>new</p>");
+		assertThat(cache.get(UNKNOWN)).isEqualTo("<p>new</p>");
+		verify(repository, times(2))
+				.findFirstByLogFingerprintAndSourceInAndCreatedAtAfterOrderByCreatedAtDesc(eq(UNKNOWN), anyList(), any());
+	}
+
+	private static StoredDiagnosis stored(String fingerprint, String diagnosis) {
+		return new StoredDiagnosis() {
+			@Override
+			public String getLogFingerprint() {
+				return fingerprint;
+			}
+
+			@Override
+			public String getDiagnosis() {
+				return diagnosis;
+			}
+		};
+	}
+}
@@ -0,0 +1,101 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * After a restart, stored fingerprints are found in the database and warm-up preloads
+ * the most frequent recent ones, never from fallback rows
+ * (own H2 database, so other tests' rows do not change the ranking)
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:prodpulse-warmup;DB_CLOSE_DELAY=-1;MODE=MySQL")
+class DiagnosisCacheWarmUpTest {
+
+	private static final String FREQUENT = "1".repeat(64);
+
+	private static final String LESS_FREQUENT = "2".repeat(64);
+
+	private static final String RARE = "3".repeat(64);
+
+	private static final String FALLBACK_ONLY = "4".repeat(64);
+
+	private static final String OLD = "5".repeat(64);
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void warmUpPreloadsTheMostFrequentReusableDiagnoses() {
+		seed(FREQUENT, "<p>old answer</p>", DiagnosisSource.AI, 90);
+		seed(FREQUENT, "<p>latest answer</p>", DiagnosisSource.AI, 30);
+		seed(FREQUENT, "<p>old answer</p>", DiagnosisSource.CACHE, 60);
+		seed(FREQUENT, "<p>fallback</p>", DiagnosisSource.FALLBACK, 10);
+		seed(LESS_FREQUENT, "<p>less frequent</p>", DiagnosisSource.AI, 120);
+		seed(LESS_FREQUENT, "<p>less frequent</p>", DiagnosisSource.CACHE, 110);
+		seed(RARE, "<p>rare</p>", DiagnosisSource.AI, 100);
+		for (int i = 0; i < 5; i++) {
+			seed(FALLBACK_ONLY, "<p>fallback</p>", DiagnosisSource.FALLBACK, 50 + i);
+			seed(OLD, "<p>old</p>", DiagnosisSource.AI, (int) Duration.ofDays(8).toMinutes() + i);
+		}
+
+		// A restarted instance, limited to the 2 most frequent fingerprints
+		DiagnosisCache cache = restartedCache(2);
+		cache.warmUp();
+
+		assertThat(cache.getStats()).containsEntry("size", 2L);
+		assertThat(cache.get(FREQUENT)).isEqualTo("<p>latest answer</p>");
+		assertThat(cache.get(LESS_FREQUENT)).isEqualTo("<p>less frequent</p>");
+		assertThat(cache.getStats()).containsEntry("hits", 2L).containsEntry("misses", 0L);
+
+		// Not preloaded, but still found in the database on the first request
+		assertThat(cache.get(RARE)).isEqualTo("<p>rare</p>");
+		assertThat(cache.get(FALLBACK_ONLY)).isNull();
+		assertThat(cache.getStats()).containsEntry("misses", 2L).containsEntry("size", 3L);
+	}
+
+	private DiagnosisCache restartedCache(int warmupLimit) {
+		DiagnosisCache cache = new DiagnosisCache();
+		ReflectionTestUtils.setField(cache, "analysisHistoryRepository", analysisHistoryRepository);
+		ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxSize", 100L);
+		ReflectionTestUtils.setField(cache, "ttlMinutes", 1440L);
+		ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+		ReflectionTestUtils.setField(cache, "warmupDays", 7);
+		ReflectionTestUtils.setField(cache, "warmupLimit", warmupLimit);
+		cache.init();
+		return cache;
+	}
+
+	/**
+	 * Store an analysis created the given number of minutes ago
+	 */
+	private void seed(String fingerprint, String diagnosis, DiagnosisSource source, int minutesAgo) {
+		AnalysisHistory saved = analysisHistoryRepository.save(AnalysisHistory.builder()
+				.ipAddress("10.40.4.1")
+				.logInput("java.lang.IllegalStateException: seeded")
+				.logFingerprint(fingerprint)
+				.diagnosis(diagnosis)
+				.severity("warning")
+				.title("IllegalStateException")
+				.source(source)
+				.build());
+		jdbcTemplate.update("UPDATE analysis_history SET created_at = ? WHERE id = ?",
+				LocalDateTime.now().minusMinutes(minutesAgo), saved.getId());
+	}
+}
@@ -0,0 +1,111 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.HistoryItem;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * History API: keyset pages in (created_at, id) order, detail on demand, records scoped to the caller's IP
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HistoryApiTest {
+
+	private static final String IP = "10.14.0.1";
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DELETE FROM analysis_history WHERE ip_address IN (?, ?)", IP, "10.14.0.2");
+
+		LocalDateTime base = LocalDateTime.of(2026, 1, 10, 12, 0);
+		insert(920_001, IP, base.minusHours(3));
+		// Same timestamp - the id breaks the tie
+		insert(920_002, IP, base.minusHours(2));
+		insert(920_003, IP, base.minusHours(2));
+		insert(920_004, IP, base.minusHours(1));
+		insert(920_005, IP, base);
+		insert(920_006, "10.14.0.2", base);
+	}
+
+	@Test
+	void pagesThroughHistoryNewestFirst() {
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			HistoryPage page = get("/api/history?limit=2" + (cursor != null ? "&cursor=" + cursor : ""), IP,
+					HistoryPage.class).getBody();
+			page.getItems().forEach(item -> {
+				assertThat(item.getLogInput()).isNull();
+				assertThat(item.getContent()).isNull();
+				seen.add(item.getAnalysisId());
+			});
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).containsExactly(920_005L, 920_004L, 920_003L, 920_002L, 920_001L);
+	}
+
+	@Test
+	void detailIncludesLogAndDiagnosis() {
+		HistoryPage page = get("/api/history?limit=1&detail=true", IP, HistoryPage.class).getBody();
+
+		assertThat(page.getItems()).singleElement().satisfies(item -> {
+			assertThat(item.getAnalysisId()).isEqualTo(920_005L);
+			assertThat(item.getLogInput()).isEqualTo("log 920005");
+			assertThat(item.getContent()).isEqualTo("<div class=\"diagnosis\">920005</div>");
+			assertThat(item.getSource()).isEqualTo("AI");
+		});
+	}
+
+	@Test
+	void singleRecordIsOnlyVisibleToItsOwner() {
+		ResponseEntity<HistoryItem> own = get("/api/history/920003", IP, HistoryItem.class);
+		assertThat(own.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(own.getBody().getLogInput()).isEqualTo("log 920003");
+
+		assertThat(get("/api/history/920006", IP, String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	void rejectsForgedCursor() {
+		assertThat(get("/api/history?cursor=not-a-cursor", IP, String.class).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	private void insert(long id, String ip, LocalDateTime createdAt) {
+		jdbcTemplate.update("INSERT INTO analysis_history (id, ip_address, log_input, diagnosis, severity, title, "
+						+ "source, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+				id, ip, "log " + id, "<div class=\"diagnosis\">" + id + "</div>", "warning", "Error " + id,
+				"AI", createdAt);
+	}
+
+	private <T> ResponseEntity<T> get(String path, String ip, Class<T> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), type);
+	}
+}
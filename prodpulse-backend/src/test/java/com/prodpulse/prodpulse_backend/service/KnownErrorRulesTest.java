@@ -0,0 +1,76 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Known-error rules: textbook errors are answered locally, everything else still goes to the AI
+ */
+@SpringBootTest
+class KnownErrorRulesTest {
+
+	@Autowired
+	private LogAnalysisService logAnalysisService;
+
+	@Autowired
+	private KnownErrorClassifier knownErrorClassifier;
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void knownErrorsSkipTheAi() {
+		DiagnosisResponse response = logAnalysisService.analyzeLogs(
+				new LogRequest("Error: listen EADDRINUSE: address already in use :::3000"), "10.4.0.1");
+
+		verify(aiService, never()).analyzeLog(anyString());
+		assertThat(response.getTitle()).isEqualTo("Port Already in Use");
+		assertThat(response.getSeverity()).isEqualTo("critical");
+		assertThat(response.getContent()).contains("PORT");
+		assertThat(analysisHistoryRepository.findById(response.getAnalysisId()))
+				.hasValueSatisfying(history -> assertThat(history.getSource()).isEqualTo(DiagnosisSource.RULE));
+	}
+
+	@Test
+	void unknownErrorsGoToTheAiAndAreCounted() {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">stubbed</div>", false))
+				.when(aiService).analyzeLog(anyString());
+		long checksBefore = (long) knownErrorClassifier.getStats().get("checks");
+		long hitsBefore = (long) knownErrorClassifier.getStats().get("hits");
+
+		logAnalysisService.analyzeLogs(
+				new LogRequest("com.acme.InvoiceException: invoice 42 has no line items"), "10.4.0.2");
+		logAnalysisService.analyzeLogs(
+				new LogRequest("FATAL ERROR: Reached heap limit Allocation failed - JavaScript heap out of memory"),
+				"10.4.0.2");
+
+		verify(aiService, times(1)).analyzeLog(anyString());
+
+		Map<String, Object> stats = knownErrorClassifier.getStats();
+		assertThat((long) stats.get("checks") - checksBefore).isEqualTo(2);
+		assertThat((long) stats.get("hits") - hitsBefore).isEqualTo(1);
+		@SuppressWarnings("unchecked")
+		Map<String, Long> hitsByRule = (Map<String, Long>) stats.get("hitsByRule");
+		assertThat(hitsByRule.get("node-heap-oom")).isPositive();
+	}
+}
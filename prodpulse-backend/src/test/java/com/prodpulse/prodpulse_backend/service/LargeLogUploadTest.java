@@ -0,0 +1,198 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.UploadDiagnosisResponse;
+import com.prodpulse.prodpulse_backend.service.ingest.LogReducer;
+import com.prodpulse.prodpulse_backend.service.ingest.LogReduction;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Large-log uploads: streaming reduction, map-reduce over chunks and the size limit
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"app.ingest.max-size=8MB", "app.ingest.max-reduced-chars=40000", "app.ingest.chunk-chars=6000"})
+class LargeLogUploadTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private LogAnalysisService logAnalysisService;
+
+	@Autowired
+	private LogReducer logReducer;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void condensesLargeLogAndSummarizesInChunks() {
+		doAnswer(invocation -> "- PaymentClient failed: Connection refused")
+				.when(aiService).summarizeChunk(anyString(), anyInt(), anyInt());
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">large</div>", false))
+				.when(aiService).analyzeLog(anyString());
+
+		// ~6 MB, generated while it is read
+		UploadDiagnosisResponse response = logAnalysisService.analyzeUpload(new GeneratedLog(60_000), "10.4.0.1");
+
+		assertThat(response.getInputLines()).isGreaterThan(60_000);
+		assertThat(response.getKeptLines()).isLessThan(response.getInputLines() / 10);
+		assertThat(response.getRepeatedLines()).isPositive();
+		assertThat(response.getCollapsedFrames()).isPositive();
+		assertThat(response.getDiagnosis().getContent()).contains("large");
+		assertThat(response.getDiagnosis().getSeverity()).isEqualTo("critical");
+
+		// Map over the chunks, then one diagnosis of the summaries
+		verify(aiService, atLeast(2)).summarizeChunk(anyString(), anyInt(), anyInt());
+		ArgumentCaptor<String> reduceInput = ArgumentCaptor.forClass(String.class);
+		verify(aiService, times(1)).analyzeLog(reduceInput.capture());
+		assertThat(reduceInput.getValue()).contains("Part 1/").contains("Connection refused");
+	}
+
+	@Test
+	void keepsLastErrorWithinSizeLimit() throws Exception {
+		LogReduction reduction;
+		try (InputStream in = new GeneratedLog(60_000)) {
+			reduction = logReducer.reduce(in);
+		}
+
+		String text = reduction.getText();
+		assertThat(text.length()).isLessThan(40_000 + 2_000);
+		assertThat(text).contains("lines omitted to stay within the size limit");
+		// The final failure survives, with its cause and a cut stack trace
+		assertThat(text).contains("Shutting down after fatal error in checkout")
+				.contains("Caused by: java.net.ConnectException: Connection refused")
+				.contains("more frames omitted")
+				.contains("[previous line repeated");
+		// INFO noise only survives as context around errors
+		assertThat(text.lines().filter(line -> line.contains("Processed order")).count())
+				.isLessThan(reduction.getInputLines() / 100);
+	}
+
+	@Test
+	void acceptsMultipartFileAndRejectsOversizedBody() {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">small</div>", false))
+				.when(aiService).analyzeLog(anyString());
+
+		// 1. Small multipart file: one prompt, no map step
+		byte[] small = """
+				2024-05-01 10:00:00 INFO Starting OrderService
+				2024-05-01 10:00:05 ERROR OrderService: checkout failed
+				java.lang.IllegalStateException: cart is locked
+				\tat com.shop.OrderService.checkout(OrderService.java:42)
+				""".getBytes(StandardCharsets.UTF_8);
+		MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+		parts.add("file", new ByteArrayResource(small) {
+			@Override
+			public String getFilename() {
+				return "app.log";
+			}
+		});
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.4.0.2");
+		headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+		ResponseEntity<UploadDiagnosisResponse> ok = restTemplate.postForEntity("/api/analyze/upload",
+				new HttpEntity<>(parts, headers), UploadDiagnosisResponse.class);
+
+		assertThat(ok.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(ok.getBody().getErrorWindows()).isEqualTo(1);
+		assertThat(ok.getBody().getDiagnosis().getTitle()).isEqualTo("2024-05-01 10:00:05 ERROR OrderService: checkout failed");
+		verify(aiService, times(0)).summarizeChunk(anyString(), anyInt(), anyInt());
+
+		// 2. Raw body over app.ingest.max-size
+		HttpHeaders rawHeaders = new HttpHeaders();
+		rawHeaders.set("X-Forwarded-For", "10.4.0.3");
+		rawHeaders.setContentType(MediaType.TEXT_PLAIN);
+		byte[] oversized = "x".repeat(9 * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+
+		ResponseEntity<String> tooLarge = restTemplate.postForEntity("/api/analyze/upload",
+				new HttpEntity<>(oversized, rawHeaders), String.class);
+
+		assertThat(tooLarge.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+	}
+
+	/**
+	 * Spring Boot style log produced on the fly: INFO noise, a burst of identical warnings,
+	 * a failure with a deep stack trace every 2000 lines, and a final fatal error
+	 */
+	private static class GeneratedLog extends InputStream {
+
+		private final int lines;
+		private int line;
+		private byte[] current = new byte[0];
+		private int position;
+
+		private GeneratedLog(int lines) {
+			this.lines = lines;
+		}
+
+		@Override
+		public int read() {
+			if (position == current.length) {
+				if (line > lines) {
+					return -1;
+				}
+				current = nextBlock().getBytes(StandardCharsets.UTF_8);
+				position = 0;
+			}
+			return current[position++];
+		}
+
+		private String nextBlock() {
+			int n = line++;
+			String timestamp = String.format("2024-05-01 %02d:%02d:%02d.%03d", n / 3600 % 24, n / 60 % 60, n % 60, n % 1000);
+			if (n == lines) {
+				return timestamp + " ERROR 1 --- [main] c.s.Application : Shutting down after fatal error in checkout\n"
+						+ failure();
+			}
+			if (n % 2000 == 1999) {
+				return timestamp + " ERROR 1 --- [exec-" + n % 7 + "] c.s.PaymentClient : Payment request " + n + " failed\n"
+						+ failure();
+			}
+			if (n % 2000 < 20) {
+				return timestamp + " WARN 1 --- [exec-1] c.s.Pool : Connection pool at 95% (" + n + " waiting)\n";
+			}
+			return timestamp + " INFO 1 --- [exec-" + n % 7 + "] c.s.OrderService : Processed order " + n * 31
+					+ " in " + n % 97 + " ms for customer " + (char) ('a' + n % 26) + "\n";
+		}
+
+		private static String failure() {
+			StringBuilder trace = new StringBuilder(
+					"org.springframework.web.client.ResourceAccessException: I/O error on POST request\n");
+			for (int frame = 0; frame < 40; frame++) {
+				// Distinct without digits, so frames are not folded as repeats
+				trace.append("\tat com.shop.").append((char) ('a' + frame % 26)).append((char) ('a' + frame / 26))
+						.append(".Handler.handle(Handler.java:").append(10 + frame).append(")\n");
+			}
+			return trace.append("Caused by: java.net.ConnectException: Connection refused\n")
+					.append("\tat java.base/sun.nio.ch.Net.pollConnect(Native Method)\n")
+					.toString();
+		}
+	}
+}
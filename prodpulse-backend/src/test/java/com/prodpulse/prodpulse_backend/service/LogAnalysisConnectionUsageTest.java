@@ -0,0 +1,99 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Verifies that slow AI calls do not pin database connections
+ * N analyses are parked inside a stubbed LLM call at the same time, with a pool smaller than N
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.hikari.maximum-pool-size=" + LogAnalysisConnectionUsageTest.POOL_SIZE)
+class LogAnalysisConnectionUsageTest {
+
+	static final int POOL_SIZE = 4;
+
+	private static final int CONCURRENT_REQUESTS = 20;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void slowLlmCallsDoNotHoldConnections() throws Exception {
+		CountDownLatch allInsideLlm = new CountDownLatch(CONCURRENT_REQUESTS);
+		CountDownLatch releaseLlm = new CountDownLatch(1);
+
+		doAnswer(invocation -> {
+			allInsideLlm.countDown();
+			releaseLlm.await(30, TimeUnit.SECONDS);
+			return new AIDiagnosis("<div class=\"diagnosis\">stubbed</div>", false);
+		}).when(aiService).analyzeLog(anyString());
+
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+		List<Future<ResponseEntity<DiagnosisResponse>>> responses = new ArrayList<>();
+		try {
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				String ip = "10.0.0." + i;
+				int worker = i;
+				responses.add(clients.submit(() -> analyze(ip, worker)));
+			}
+
+			// Every request is now waiting on the "LLM" at the same time
+			assertThat(allInsideLlm.await(30, TimeUnit.SECONDS)).isTrue();
+
+			int activeConnections = ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections();
+			assertThat(activeConnections).isZero();
+
+			releaseLlm.countDown();
+
+			for (Future<ResponseEntity<DiagnosisResponse>> response : responses) {
+				ResponseEntity<DiagnosisResponse> result = response.get(30, TimeUnit.SECONDS);
+				assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+				assertThat(result.getBody().getAnalysisId()).isNotNull();
+			}
+		} finally {
+			releaseLlm.countDown();
+			clients.shutdownNow();
+		}
+	}
+
+	private ResponseEntity<DiagnosisResponse> analyze(String ip, int worker) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		// Distinct per request: identical logs would be coalesced into one LLM call.
+		// Not the IP - the normalizer masks IPs, so the fingerprints would still match
+		LogRequest request = new LogRequest("java.lang.IllegalStateException: connection pool exhausted in worker " + worker);
+		return restTemplate.postForEntity("/api/analyze", new HttpEntity<>(request, headers), DiagnosisResponse.class);
+	}
+}
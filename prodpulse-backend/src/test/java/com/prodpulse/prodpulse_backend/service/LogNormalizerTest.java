@@ -0,0 +1,52 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repeats of one failure normalize to the same fingerprint, different failures do not
+ */
+class LogNormalizerTest {
+
+	private static final String CONNECT_FAILED = """
+			2026-03-01T12:00:01.123Z ERROR [req 3f2b8c1e-9a4d-4e2f-8b1a-0c9d8e7f6a5b] Connection to 10.0.0.5:5432 failed
+				at com.acme.db.Pool.connect(Pool.java:42) pool@1b6d3586 container 4f9a3b2c1d0e""";
+
+	// Same failure: other timestamp format, request id, host, port, line, object and container id
+	private static final String CONNECT_FAILED_AGAIN = """
+			2026-03-02 08:15:59,004 ERROR [req 77aa0c1e-1111-4e2f-8b1a-abcdefabcdef] Connection to 192.168.1.20:3306 failed
+			    at com.acme.db.Pool.connect(Pool.java:57) pool@7a81197d container 9e8d7c6b5a4f""";
+
+	private final LogNormalizer normalizer = new LogNormalizer();
+
+	@Test
+	void masksVolatilePartsAndWhitespace() {
+		assertThat(normalizer.normalize(CONNECT_FAILED)).isEqualTo(
+				"<ts> ERROR [req <uuid>] Connection to <ip>:<port> failed "
+						+ "at com.acme.db.Pool.connect(Pool.java:<n>) pool<hex> container <hex>");
+		assertThat(normalizer.normalize("File \"app.py\", line 12, in handler: segfault at 0x7ffe12ab"))
+				.isEqualTo("File \"app.py\", line <n>, in handler: segfault at <hex>");
+		assertThat(normalizer.normalize("10:23:45 request took 1712345678901 ms"))
+				.isEqualTo("<ts> request took <ts> ms");
+	}
+
+	@Test
+	void repeatsShareAFingerprint() {
+		String fingerprint = normalizer.fingerprint(CONNECT_FAILED);
+
+		assertThat(fingerprint).hasSize(64).matches("[0-9a-f]+");
+		assertThat(normalizer.fingerprint(CONNECT_FAILED_AGAIN)).isEqualTo(fingerprint);
+		assertThat(normalizer.fingerprint("  " + CONNECT_FAILED.replace("\n", "\n\n") + "\n")).isEqualTo(fingerprint);
+	}
+
+	@Test
+	void differentMessagesDoNot() {
+		String fingerprint = normalizer.fingerprint(CONNECT_FAILED);
+
+		assertThat(normalizer.fingerprint(CONNECT_FAILED.replace("Connection to", "Query on"))).isNotEqualTo(fingerprint);
+		assertThat(normalizer.fingerprint(CONNECT_FAILED.replace("Pool.connect", "Pool.borrow"))).isNotEqualTo(fingerprint);
+		// Plain numbers are not masked: a different count is a different message
+		assertThat(normalizer.fingerprint("Retried 3 times")).isNotEqualTo(normalizer.fingerprint("Retried 5 times"));
+	}
+}
@@ -0,0 +1,106 @@
+package com.prodpulse.prodpulse_backend.service;
+
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A streamed analysis is charged once when it completes; one that times out
+ * gives its rate-limit slot back
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.stream.timeout-ms=1000")
+class StreamingAnalysisTest {
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterEach
+	void resetStub() {
+		stubLlm.setTokensPerSecond(0);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void completedStreamIsChargedOnce() {
+		stubLlm.setContent("<div class=\"diagnosis\"><h3>Queue consumer stalled</h3></div>");
+
+		String events = stream("10.70.0.1", "ERROR QueueConsumer: no message acknowledged for 300 s on orders-queue");
+
+		assertThat(events).contains("event:meta").contains("event:chunk").contains("event:done")
+				.contains("Queue consumer stalled")
+				.doesNotContain("AI Service Temporarily Unavailable");
+		assertThat(remaining("10.70.0.1")).isEqualTo(9);
+	}
+
+	@Test
+	void timedOutStreamGivesTheSlotBack() {
+		// 40 words at 4 per second: far longer than the 1 s stream timeout
+		stubLlm.setContent(String.join(" ", Collections.nCopies(40, "slow")));
+		stubLlm.setTokensPerSecond(4);
+
+		String events = stream("10.70.0.2", "ERROR ReportExporter: export of monthly invoices stopped responding");
+
+		assertThat(events).contains("event:meta").doesNotContain("event:done");
+		assertThat(remaining("10.70.0.2")).isEqualTo(10);
+	}
+
+	/**
+	 * Post a streaming analysis and read the events until the server ends the response
+	 */
+	private String stream(String ip, String log) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+		ResponseEntity<String> response = restTemplate.exchange("/api/analyze/stream", HttpMethod.POST,
+				new HttpEntity<>(new LogRequest(log), headers), String.class);
+		return response.getBody() != null ? response.getBody() : "";
+	}
+
+	private int remaining(String ip) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		Map<?, ?> status = restTemplate.exchange("/api/rate-limit-status", HttpMethod.GET,
+				new HttpEntity<>(headers), Map.class).getBody();
+		return ((Number) status.get("remainingRequests")).intValue();
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ZERO);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.prodpulse.prodpulse_backend.service.diagnosis;
+
+import com.prodpulse.prodpulse_backend.exception.InvalidDiagnosisException;
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.HistoryItem;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.dto.StructuredDiagnosis;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Structured output: the model's JSON is validated and stored, the API returns typed fields,
+ * and HTML is rendered server-side (and cached) only when the client asks for it
+ */
+@SpringBootTest(
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.ai.output.structured=true")
+class StructuredOutputTest {
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	private static final String ANSWER = """
+			```json
+			{"rootCause":"The <proxy> in front of the payment gateway returned 502",
+			 "fixSteps":["Check the proxy health","Raise the upstream timeout"],
+			 "preventionTips":["Alert on 5xx from the gateway"],
+			 "confidence":0.8,
+			 "notInSchema":true}
+			```""";
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private StructuredDiagnosisParser parser;
+
+	@Autowired
+	private DiagnosisRenderer renderer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void returnsTypedFieldsAndRendersHtmlOnlyOnRequest() {
+		stubLlm.setContent(ANSWER);
+		String log = "2024-05-01 10:00:00 ERROR CheckoutService: payment gateway answered HTTP 502 Bad Gateway";
+
+		DiagnosisResponse json = analyze("10.30.0.1", log, "json");
+
+		assertThat(stubLlm.getLastRequest()).contains("json_object");
+		assertThat(json.getRootCause()).isEqualTo("The <proxy> in front of the payment gateway returned 502");
+		assertThat(json.getFixSteps()).containsExactly("Check the proxy health", "Raise the upstream timeout");
+		assertThat(json.getPreventionTips()).containsExactly("Alert on 5xx from the gateway");
+		assertThat(json.getConfidence()).isEqualTo(0.8);
+		assertThat(json.getContent()).isNull();
+
+		// Same log again - served from the cache, which holds the compact JSON
+		int requests = stubLlm.getRequests();
+		DiagnosisResponse html = analyze("10.30.0.2", log, "html");
+
+		assertThat(stubLlm.getRequests()).isEqualTo(requests);
+		assertThat(html.getRootCause()).isEqualTo(json.getRootCause());
+		assertThat(html.getContent())
+				.contains("<div class=\"diagnosis\">")
+				.contains("The &lt;proxy&gt; in front")
+				.contains("<li>Raise the upstream timeout</li>")
+				.contains("Confidence: 80%");
+
+		// History always shows HTML
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.30.0.1");
+		ResponseEntity<HistoryItem> history = restTemplate.exchange("/api/history/" + json.getAnalysisId(),
+				HttpMethod.GET, new HttpEntity<>(headers), HistoryItem.class);
+		assertThat(history.getBody().getContent()).isEqualTo(html.getContent());
+	}
+
+	@Test
+	void streamedDiagnosisIsStoredAsJson() {
+		stubLlm.setContent(ANSWER);
+		String log = "2024-05-01 10:00:00 ERROR ShippingService: carrier API answered HTTP 502 Bad Gateway";
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", "10.30.0.4");
+		headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+		String events = restTemplate.exchange("/api/analyze/stream", HttpMethod.POST,
+				new HttpEntity<>(new LogRequest(log), headers), String.class).getBody();
+
+		assertThat(stubLlm.getLastRequest()).contains("json_object");
+		assertThat(events).contains("event:chunk").contains("The &lt;proxy&gt; in front").contains("event:done");
+
+		// A structured request for the same log reads the cached JSON
+		int requests = stubLlm.getRequests();
+		DiagnosisResponse json = analyze("10.30.0.5", log, "json");
+
+		assertThat(stubLlm.getRequests()).isEqualTo(requests);
+		assertThat(json.getRootCause()).isEqualTo("The <proxy> in front of the payment gateway returned 502");
+		assertThat(json.getFixSteps()).containsExactly("Check the proxy health", "Raise the upstream timeout");
+	}
+
+	@Test
+	void invalidAnswerGetsTheFallback() {
+		stubLlm.setContent("{\"rootCause\":\"Disk full\",\"fixSteps\":[],\"confidence\":2}");
+		double invalidBefore = meterRegistry.counter("prodpulse.ai.structured.invalid").count();
+
+		DiagnosisResponse response = analyze("10.30.0.3",
+				"java.lang.IllegalStateException: inventory reservation failed for order 42", null);
+
+		assertThat(response.getRootCause()).isNull();
+		assertThat(response.getContent()).contains("AI Service Temporarily Unavailable");
+		assertThat(meterRegistry.counter("prodpulse.ai.structured.invalid").count()).isEqualTo(invalidBefore + 1);
+	}
+
+	@Test
+	void validatesSchemaAndCachesRenderedHtml() {
+		assertThatThrownBy(() -> parser.parse("{\"rootCause\":\"x\",\"fixSteps\":[\"a\"]}"))
+				.isInstanceOf(InvalidDiagnosisException.class)
+				.hasMessageContaining("confidence");
+		assertThatThrownBy(() -> parser.parse("{\"rootCause\":\" \",\"fixSteps\":[\"a\"],\"confidence\":1}"))
+				.isInstanceOf(InvalidDiagnosisException.class)
+				.hasMessageContaining("rootCause");
+		assertThatThrownBy(() -> parser.parse("<div>not json</div>"))
+				.isInstanceOf(InvalidDiagnosisException.class);
+
+		StructuredDiagnosis diagnosis = parser.parse(ANSWER);
+		assertThat(diagnosis.getPreventionTips()).hasSize(1);
+		assertThat(parser.toJson(diagnosis)).doesNotContain("notInSchema").doesNotContain("\n");
+
+		StructuredDiagnosis equal = parser.parse(parser.toJson(diagnosis));
+		assertThat(renderer.render(equal)).isSameAs(renderer.render(diagnosis));
+		assertThat(renderer.toHtml("<p>stored html</p>")).isEqualTo("<p>stored html</p>");
+	}
+
+	private DiagnosisResponse analyze(String ip, String log, String format) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		String url = format != null ? "/api/analyze?format=" + format : "/api/analyze";
+		ResponseEntity<DiagnosisResponse> response = restTemplate.postForEntity(url,
+				new HttpEntity<>(new LogRequest(log), headers), DiagnosisResponse.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response.getBody();
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ZERO);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
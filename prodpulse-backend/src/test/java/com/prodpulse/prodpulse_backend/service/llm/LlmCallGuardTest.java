@@ -0,0 +1,130 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import com.prodpulse.prodpulse_backend.exception.AiOverloadedException;
+import com.prodpulse.prodpulse_backend.exception.CircuitOpenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Circuit breaker opens on failures and recovers through trial calls;
+ * the concurrency limit sheds load and adapts to latency
+ */
+class LlmCallGuardTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void breakerOpensAtFailureRateAndClosesAfterTrialCalls() {
+		// Window 10, at least 4 calls, 50% failures, open 30s, 2 trial calls
+		CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, 0, 30 * SECOND, 2, clock::get);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(breaker.tryAcquire()).isTrue();
+			breaker.onError();
+		}
+		// 3 of 3 failed, but below minimum-calls
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onSuccess(SECOND);
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onError();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		// Fails fast while open
+		assertThat(breaker.tryAcquire()).isFalse();
+		assertThat(breaker.getRejected()).isEqualTo(1);
+
+		// After the open duration: 2 trial calls, a third has to wait
+		clock.addAndGet(30 * SECOND);
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).isFalse();
+
+		breaker.onSuccess(SECOND);
+		breaker.onSuccess(SECOND);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedTrialCallReopensAndSlowCallsCountAsFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(4, 2, 50, 10 * SECOND, 30 * SECOND, 1, clock::get);
+
+		// Two successful but slow calls
+		breaker.tryAcquire();
+		breaker.onSuccess(11 * SECOND);
+		breaker.tryAcquire();
+		breaker.onSuccess(12 * SECOND);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		clock.addAndGet(30 * SECOND);
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onError();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void limiterShedsAtLimitAndAdaptsToLatency() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 8, 0.5, 2.0);
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+		}
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getRejected()).isEqualTo(1);
+
+		// Fast calls while the limit is in use: additive increase
+		limiter.onSuccess(SECOND);
+		limiter.onSuccess(SECOND);
+		assertThat(limiter.getLimit()).isEqualTo(6);
+
+		// A call 3x slower than the baseline: multiplicative decrease
+		limiter.onSuccess(3 * SECOND);
+		assertThat(limiter.getLimit()).isEqualTo(3);
+
+		// Errors back off too, but never below the minimum
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void guardFailsFastAndReleasesUnusedBreakerPermits() {
+		LlmCallGuard guard = new LlmCallGuard();
+		ReflectionTestUtils.setField(guard, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(guard, "circuitBreakerEnabled", true);
+		ReflectionTestUtils.setField(guard, "windowSize", 2);
+		ReflectionTestUtils.setField(guard, "minimumCalls", 2);
+		ReflectionTestUtils.setField(guard, "failureRateThreshold", 50);
+		ReflectionTestUtils.setField(guard, "openDurationMs", 60000L);
+		ReflectionTestUtils.setField(guard, "halfOpenCalls", 1);
+		ReflectionTestUtils.setField(guard, "concurrencyLimitEnabled", true);
+		ReflectionTestUtils.setField(guard, "initialLimit", 1);
+		ReflectionTestUtils.setField(guard, "minLimit", 1);
+		ReflectionTestUtils.setField(guard, "maxLimit", 1);
+		ReflectionTestUtils.setField(guard, "backoffRatio", 0.9);
+		ReflectionTestUtils.setField(guard, "latencyTolerance", 2.0);
+		guard.init();
+
+		LlmCallGuard.Permit permit = guard.acquire();
+		assertThatThrownBy(guard::acquire).isInstanceOf(AiOverloadedException.class);
+		permit.onError();
+		// Reporting twice has no effect
+		permit.onError();
+
+		guard.acquire().onError();
+		assertThat(guard.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(guard::acquire).isInstanceOf(CircuitOpenException.class);
+	}
+}
@@ -0,0 +1,96 @@
+package com.prodpulse.prodpulse_backend.service.llm;
+
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.service.AIService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Router fails over from a dead provider, prefers the fastest one and hedges its slow calls
+ * Three providers: "down" (nothing listening), "slow" and "fast" (local stub servers)
+ */
+@SpringBootTest(properties = {
+		"app.ai.retry.max-attempts=1",
+		"app.ai.routing.min-samples=1",
+		"app.ai.routing.explore-percent=0",
+		"app.ai.routing.hedge.enabled=true",
+		"app.ai.routing.hedge.min-delay-ms=200",
+		"app.ai.routing.hedge.budget-percent=100"
+})
+class LlmRoutingTest {
+
+	private static final StubLlmServer slowLlm = startStub(Duration.ofMillis(300));
+
+	private static final StubLlmServer fastLlm = startStub(Duration.ofMillis(50));
+
+	@Autowired
+	private AIService aiService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		// All in one property source - Boot binds an indexed list from a single source
+		registry.add("app.ai.providers[0].name", () -> "down");
+		registry.add("app.ai.providers[0].base-url", () -> "http://127.0.0.1:9");
+		registry.add("app.ai.providers[1].name", () -> "slow");
+		registry.add("app.ai.providers[1].base-url", slowLlm::getBaseUrl);
+		registry.add("app.ai.providers[2].name", () -> "fast");
+		registry.add("app.ai.providers[2].base-url", fastLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		slowLlm.close();
+		fastLlm.close();
+	}
+
+	@Test
+	void failsOverPrefersFastProviderAndHedgesItsTail() {
+		// 1. Unmeasured providers go in configured order: "down" fails, "slow" answers
+		assertThat(analyze(1).isFallback()).isFalse();
+		assertThat(slowLlm.getRequests()).isEqualTo(1);
+
+		// 2. "fast" is still unmeasured, 3. then it has the lowest p95
+		assertThat(analyze(2).isFallback()).isFalse();
+		assertThat(analyze(3).isFallback()).isFalse();
+		assertThat(fastLlm.getRequests()).isEqualTo(2);
+		assertThat(slowLlm.getRequests()).isEqualTo(1);
+
+		// 4. "fast" stalls: after 200ms the call is hedged to "slow", which wins
+		fastLlm.setLatency(Duration.ofSeconds(5));
+		long start = System.nanoTime();
+		assertThat(analyze(4).isFallback()).isFalse();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+		assertThat(fastLlm.getRequests()).isEqualTo(3);
+		assertThat(slowLlm.getRequests()).isEqualTo(2);
+		assertThat(meterRegistry.get("prodpulse.llm.hedges").tag("result", "sent").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("prodpulse.llm.hedges").tag("result", "won").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("prodpulse.llm.provider.calls").tag("provider", "down").tag("outcome", "error")
+				.timer().count()).isEqualTo(1);
+	}
+
+	private AIDiagnosis analyze(int worker) {
+		return aiService.analyzeLog("java.lang.IllegalStateException: worker " + worker + " failed to start");
+	}
+
+	private static StubLlmServer startStub(Duration latency) {
+		try {
+			return new StubLlmServer(latency);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.prodpulse.prodpulse_backend.service.persistence;
+
+import com.prodpulse.prodpulse_backend.ProdPulseBackendApplication;
+import com.prodpulse.prodpulse_backend.model.dto.AIDiagnosis;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import com.prodpulse.prodpulse_backend.service.AIService;
+import com.prodpulse.prodpulse_backend.service.LogAnalysisService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Write-behind persistence: ids come back before the INSERT, rows are flushed in batches
+ * and the queue is drained on shutdown; it refuses to run with the database rate limiter
+ */
+@SpringBootTest(properties = {
+		"app.persistence.mode=write-behind",
+		"app.persistence.batch-size=20",
+		"app.persistence.flush-interval-ms=50"
+})
+class WriteBehindPersistenceTest {
+
+	@Autowired
+	private LogAnalysisService logAnalysisService;
+
+	@Autowired
+	private AnalysisWriter analysisWriter;
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@MockitoSpyBean
+	private AIService aiService;
+
+	@Test
+	void analysisIsAnsweredWithItsIdAndWrittenShortlyAfter() throws InterruptedException {
+		doAnswer(invocation -> new AIDiagnosis("<div class=\"diagnosis\">write-behind</div>", false))
+				.when(aiService).analyzeLog(anyString());
+
+		DiagnosisResponse response = logAnalysisService.analyzeLogs(
+				new LogRequest("java.lang.IllegalStateException: write-behind worker failed"), "10.15.0.1");
+
+		assertThat(response.getAnalysisId()).isNotNull();
+		assertThat(analysisWriter.findById(response.getAnalysisId()))
+				.hasValueSatisfying(history -> assertThat(history.getDiagnosis()).contains("write-behind"));
+
+		AnalysisHistory stored = awaitRow(response.getAnalysisId());
+		assertThat(stored.getDiagnosis()).isEqualTo("<div class=\"diagnosis\">write-behind</div>");
+		assertThat(stored.getSource()).isEqualTo(DiagnosisSource.AI);
+		assertThat(stored.getCreatedAt()).isNotNull();
+		assertThat(analysisWriter.getStats()).containsEntry("mode", "write-behind").containsKey("queueDepth");
+	}
+
+	@Test
+	@DirtiesContext
+	void shutdownDrainsTheQueue() throws InterruptedException {
+		List<AnalysisHistory> rows = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			rows.add(AnalysisHistory.builder()
+					.ipAddress("10.15.0.2")
+					.logInput("java.lang.IllegalStateException: row " + i)
+					.diagnosis("<div class=\"diagnosis\">" + i + "</div>")
+					.source(DiagnosisSource.AI)
+					.build());
+		}
+
+		List<AnalysisHistory> saved = analysisWriter.saveAll(rows);
+		((WriteBehindAnalysisWriter) analysisWriter).shutdown();
+
+		assertThat(saved).extracting(AnalysisHistory::getId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(analysisHistoryRepository.findAllById(saved.stream().map(AnalysisHistory::getId).toList()))
+				.hasSize(250);
+	}
+
+	@Test
+	void refusesToStartWithDatabaseRateLimiting() {
+		// Queued rows are not counted yet, so a client could exceed max-requests by the queue depth
+		SpringApplicationBuilder application = new SpringApplicationBuilder(ProdPulseBackendApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:prodpulse-write-behind;DB_CLOSE_DELAY=-1;MODE=MySQL",
+						"app.persistence.mode=write-behind",
+						"app.rate-limit.mode=database");
+
+		assertThatThrownBy(application::run)
+				.rootCause()
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("app.rate-limit.mode=database");
+	}
+
+	private AnalysisHistory awaitRow(Long id) throws InterruptedException {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			Optional<AnalysisHistory> row = analysisHistoryRepository.findById(id);
+			if (row.isPresent()) {
+				return row.get();
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("Analysis " + id + " was not written");
+	}
+}
@@ -0,0 +1,116 @@
+package com.prodpulse.prodpulse_backend.service.prompt;
+
+import com.prodpulse.prodpulse_backend.service.metrics.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Logs are compacted to the token budget and the system prompt is sent as a stable SystemMessage
+ */
+class PromptCompactionTest {
+
+	private static final String TRACE = """
+			\u001B[31m2024-05-01 10:00:01 ERROR Request failed\u001B[0m
+			2024-05-01 10:00:02 ERROR Request failed
+			2024-05-01 10:00:03 ERROR Request failed
+
+			java.lang.IllegalStateException: boom
+				at org.springframework.web.Dispatcher.dispatch(Dispatcher.java:10)
+				at org.springframework.web.Dispatcher.handle(Dispatcher.java:11)
+				at com.acme.OrderService.place(OrderService.java:42)
+				at java.base/java.lang.Thread.run(Thread.java:1583)
+			Caused by: java.io.IOException: disk full
+				at com.acme.Disk.write(Disk.java:3)
+				at com.acme.OrderService.place(OrderService.java:42)
+				at java.base/java.lang.Thread.run(Thread.java:1583)
+			""";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private LogCompactor compactor;
+
+	private PromptBuilder promptBuilder;
+
+	@BeforeEach
+	void setUp() {
+		compactor = new LogCompactor();
+		ReflectionTestUtils.setField(compactor, "frameworkPackages", List.of("java.", "org.springframework."));
+
+		AnalysisMetrics metrics = new AnalysisMetrics();
+		ReflectionTestUtils.setField(metrics, "meterRegistry", meterRegistry);
+		metrics.init();
+
+		promptBuilder = new PromptBuilder();
+		ReflectionTestUtils.setField(promptBuilder, "logCompactor", compactor);
+		ReflectionTestUtils.setField(promptBuilder, "metrics", metrics);
+		ReflectionTestUtils.setField(promptBuilder, "compactionEnabled", true);
+		ReflectionTestUtils.setField(promptBuilder, "maxLogTokens", 100);
+	}
+
+	@Test
+	void foldsRepeatsNoiseAndFrameworkOrSeenFrames() {
+		CompactedLog compacted = compactor.compact(TRACE, 0);
+
+		assertThat(compacted.getText()).isEqualTo("""
+				2024-05-01 10:00:01 ERROR Request failed [repeated 2 more times]
+				java.lang.IllegalStateException: boom
+					at org.springframework.web.Dispatcher.dispatch(Dispatcher.java:10)
+					... 1 frame omitted
+					at com.acme.OrderService.place(OrderService.java:42)
+					... 1 frame omitted
+				Caused by: java.io.IOException: disk full
+					at com.acme.Disk.write(Disk.java:3)
+					... 2 frames omitted""");
+		assertThat(compacted.isTruncated()).isFalse();
+		assertThat(compacted.getTokensSaved()).isPositive();
+	}
+
+	@Test
+	void keepsBeginningAndEndWithinBudget() {
+		StringBuilder log = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			log.append("worker-").append((char) ('a' + i % 26)).append(" step ").append(i % 3 == 0 ? "started" : "waiting")
+					.append('\n');
+		}
+		log.append("java.lang.OutOfMemoryError: Java heap space\n");
+
+		CompactedLog compacted = compactor.compact(log.toString(), 200);
+
+		assertThat(compacted.isTruncated()).isTrue();
+		assertThat(compacted.getCompactedTokens()).isLessThanOrEqualTo(200);
+		assertThat(compacted.getText())
+				.startsWith("worker-a step started")
+				.contains("lines omitted to fit the prompt")
+				.endsWith("java.lang.OutOfMemoryError: Java heap space");
+	}
+
+	@Test
+	void systemPromptIsIdenticalAcrossRequestsAndSavingsAreRecorded() {
+		List<Message> first = promptBuilder.diagnosisMessages(TRACE);
+		List<Message> second = promptBuilder.diagnosisMessages("ECONNREFUSED 127.0.0.1:5432");
+
+		assertThat(first.get(0)).isInstanceOf(SystemMessage.class);
+		assertThat(first.get(0).getText()).isEqualTo(second.get(0).getText());
+		assertThat(first.get(1)).isInstanceOf(UserMessage.class);
+		assertThat(first.get(1).getText()).contains("... 2 frames omitted").doesNotContain("\u001B");
+
+		assertThat(meterRegistry.get("prodpulse.prompt.tokens.saved").summary().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("prodpulse.prompt.tokens.saved").summary().totalAmount()).isPositive();
+	}
+
+	@Test
+	void estimatesTokensLikeABpeTokenizer() {
+		assertThat(TokenEstimator.estimate("")).isZero();
+		// java . lang . OutOfMemoryError : Java heap space - about a dozen BPE tokens
+		assertThat(TokenEstimator.estimate("java.lang.OutOfMemoryError: Java heap space")).isBetween(10, 16);
+	}
+}
@@ -0,0 +1,124 @@
+package com.prodpulse.prodpulse_backend.service.ratelimit;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The database limiter counts persisted rows in a window that slides with the clock,
+ * plus the slots reserved by analyses still running
+ */
+class DatabaseRateLimiterTest {
+
+	private static final String IP = "10.62.0.1";
+
+	private static final List<DiagnosisSource> LOCAL_SOURCES = List.of(DiagnosisSource.CACHE, DiagnosisSource.RULE);
+
+	private final AtomicLong clock = new AtomicLong(Instant.parse("2026-03-01T12:00:00Z").toEpochMilli());
+
+	private final AnalysisHistoryRepository repository = mock(AnalysisHistoryRepository.class);
+
+	@Test
+	void windowStartFollowsTheClock() {
+		DatabaseRateLimiter limiter = limiter(0);
+		LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get()), ZoneId.systemDefault());
+		when(repository.countByIpAddressAndCreatedAtAfterExcludingSources(eq(IP), any(), eq(LOCAL_SOURCES)))
+				.thenReturn(0L);
+
+		limiter.getRemaining(IP);
+		clock.addAndGet(TimeUnit.HOURS.toMillis(1));
+		limiter.getRemaining(IP);
+
+		ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(repository, atLeastOnce())
+				.countByIpAddressAndCreatedAtAfterExcludingSources(eq(IP), since.capture(), eq(LOCAL_SOURCES));
+		assertThat(since.getAllValues()).containsExactly(now.minusHours(24), now.minusHours(23));
+	}
+
+	@Test
+	void reservationsCountUntilCommittedOrReleased() {
+		DatabaseRateLimiter limiter = limiter(0);
+		when(repository.countByIpAddressAndCreatedAtAfterExcludingSources(eq(IP), any(), eq(LOCAL_SOURCES)))
+				.thenReturn(1L);
+
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		// 1 stored + 2 running: a third is refused and does not keep its slot
+		assertThat(limiter.tryAcquire(IP)).isFalse();
+		assertThat(limiter.getRemaining(IP)).isZero();
+
+		limiter.release(IP);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+
+		// Committed: the slot is replaced by the stored row
+		when(repository.countByIpAddressAndCreatedAtAfterExcludingSources(eq(IP), any(), eq(LOCAL_SOURCES)))
+				.thenReturn(2L);
+		limiter.commit(IP);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(limiter, "reservedSlots")).isEmpty();
+
+		// One COUNT per check when cache hits are free
+		verify(repository, never()).countByIpAddressAndCreatedAtAfter(anyString(), any());
+		verify(repository, never()).countByIpAddressAndCreatedAtAfterAndSourceIn(anyString(), any(), anyList());
+	}
+
+	@Test
+	void cacheHitsAreFreeByDefault() {
+		DatabaseRateLimiter limiter = limiter(0);
+
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void everyNthCacheHitCountsAsOneRequest() {
+		DatabaseRateLimiter limiter = limiter(2);
+		// 1 AI analysis and 3 cache hits stored: 1 + 3/2 = 2 requests charged
+		when(repository.countByIpAddressAndCreatedAtAfter(eq(IP), any())).thenReturn(4L);
+		when(repository.countByIpAddressAndCreatedAtAfterAndSourceIn(eq(IP), any(), eq(LOCAL_SOURCES)))
+				.thenReturn(3L);
+
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+		// The 4th hit completes a request: 1 + 4/2 = 3
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquireCached(IP)).isFalse();
+
+		limiter.release(IP);
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+	}
+
+	private DatabaseRateLimiter limiter(int cacheHitsPerRequest) {
+		DatabaseRateLimiter limiter = new DatabaseRateLimiter();
+		ReflectionTestUtils.setField(limiter, "analysisHistoryRepository", repository);
+		ReflectionTestUtils.setField(limiter, "maxRequests", 3);
+		ReflectionTestUtils.setField(limiter, "windowHours", 24);
+		ReflectionTestUtils.setField(limiter, "cacheHitsPerRequest", cacheHitsPerRequest);
+		ReflectionTestUtils.setField(limiter, "clock", (LongSupplier) clock::get);
+		return limiter;
+	}
+}
@@ -0,0 +1,219 @@
+package com.prodpulse.prodpulse_backend.service.ratelimit;
+
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.model.projection.RequestTimestamp;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sliding window, reservations, the cache-hit discount, idle-key eviction and the paged
+ * startup rebuild of the in-memory limiter, on a controllable clock
+ */
+class InMemoryRateLimiterTest {
+
+	private static final String IP = "10.60.0.1";
+
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+	private final AtomicLong clock = new AtomicLong(Instant.parse("2026-03-01T12:00:00Z").toEpochMilli());
+
+	private final AnalysisHistoryRepository repository = mock(AnalysisHistoryRepository.class);
+
+	private InMemoryRateLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findByCreatedAtAfterOrderByCreatedAtAscIdAsc(any(), any())).thenReturn(List.of());
+		limiter = limiter(0);
+	}
+
+	@Test
+	void requestsExpireAfterTheWindow() {
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		clock.addAndGet(10 * MINUTE);
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquire(IP)).isFalse();
+		assertThat(limiter.getRemaining(IP)).isZero();
+		assertThat(limiter.getRemaining("10.60.0.2")).isEqualTo(3);
+
+		// The first request leaves the window after exactly one hour
+		clock.addAndGet(50 * MINUTE - 1);
+		assertThat(limiter.tryAcquire(IP)).isFalse();
+		clock.incrementAndGet();
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+
+		clock.addAndGet(10 * MINUTE);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(2);
+	}
+
+	@Test
+	void releaseGivesTheSlotBackAndCommitKeepsIt() {
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+
+		limiter.release(IP);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(2);
+
+		limiter.commit(IP);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(2);
+
+		// Releasing an unknown key is a no-op
+		limiter.release("10.60.0.9");
+		assertThat(limiter.getRemaining("10.60.0.9")).isEqualTo(3);
+	}
+
+	@Test
+	void cacheHitsAreFreeByDefault() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		}
+		assertThat(limiter.getRemaining(IP)).isEqualTo(3);
+		assertThat(windowCount()).isZero();
+	}
+
+	@Test
+	void everyNthCacheHitCountsAsOneRequest() {
+		limiter = limiter(2);
+
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		assertThat(limiter.getRemaining(IP)).isEqualTo(3);
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		assertThat(limiter.getRemaining(IP)).isEqualTo(2);
+
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		assertThat(limiter.tryAcquire(IP)).isTrue();
+		// Quota used up: the hit that would complete a request is refused, a partial one is not
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		assertThat(limiter.tryAcquireCached(IP)).isFalse();
+
+		clock.addAndGet(60 * MINUTE);
+		assertThat(limiter.tryAcquireCached(IP)).isTrue();
+		assertThat(limiter.getRemaining(IP)).isEqualTo(2);
+	}
+
+	@Test
+	void idleKeysAreEvictedOnceTheirRequestsExpire() {
+		limiter.tryAcquire("10.60.1.1");
+		clock.addAndGet(30 * MINUTE);
+		limiter.tryAcquire("10.60.1.2");
+		assertThat(windowCount()).isEqualTo(2);
+
+		limiter.evictIdleKeys();
+		assertThat(windowCount()).isEqualTo(2);
+
+		clock.addAndGet(30 * MINUTE);
+		limiter.evictIdleKeys();
+		assertThat(windowCount()).isEqualTo(1);
+
+		clock.addAndGet(30 * MINUTE);
+		limiter.evictIdleKeys();
+		assertThat(windowCount()).isZero();
+		assertThat(limiter.getRemaining("10.60.1.2")).isEqualTo(3);
+	}
+
+	@Test
+	void windowsAreRebuiltPageByPageAtStartup() {
+		LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get()), ZoneId.systemDefault());
+
+		// A full first page: 3 AI rows and a free cache hit for IP, the rest from other clients
+		List<RequestTimestamp> firstPage = new ArrayList<>();
+		firstPage.add(row(1, IP, now.minusMinutes(50), DiagnosisSource.AI));
+		firstPage.add(row(2, IP, now.minusMinutes(40), DiagnosisSource.CACHE));
+		firstPage.add(row(3, IP, now.minusMinutes(30), null));
+		for (int id = 4; id <= 5000; id++) {
+			firstPage.add(row(id, "10.61." + (id / 256) + "." + (id % 256), now.minusMinutes(20), DiagnosisSource.AI));
+		}
+		List<RequestTimestamp> secondPage = List.of(row(5001, IP, now.minusMinutes(10), DiagnosisSource.FALLBACK));
+		LocalDateTime lastCreatedAt = now.minusMinutes(20);
+
+		when(repository.findByCreatedAtAfterOrderByCreatedAtAscIdAsc(any(), any())).thenReturn(firstPage);
+		when(repository.findRequestTimestampsAfter(any(), eq(lastCreatedAt), eq(5000L), any())).thenReturn(secondPage);
+		clearInvocations(repository);
+		limiter = limiter(0);
+
+		ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+		ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+		verify(repository).findByCreatedAtAfterOrderByCreatedAtAscIdAsc(since.capture(), page.capture());
+		assertThat(since.getValue()).isEqualTo(now.minusHours(1));
+		assertThat(page.getValue().getPageSize()).isEqualTo(5000);
+		verify(repository).findRequestTimestampsAfter(eq(now.minusHours(1)), eq(lastCreatedAt), eq(5000L), any());
+
+		assertThat(limiter.getRemaining(IP)).isZero();
+		assertThat(limiter.getRemaining("10.61.0.4")).isEqualTo(2);
+
+		// Rebuilt timestamps keep their original age
+		clock.addAndGet(10 * MINUTE);
+		assertThat(limiter.getRemaining(IP)).isEqualTo(1);
+	}
+
+	private InMemoryRateLimiter limiter(int cacheHitsPerRequest) {
+		InMemoryRateLimiter limiter = new InMemoryRateLimiter();
+		ReflectionTestUtils.setField(limiter, "analysisHistoryRepository", repository);
+		ReflectionTestUtils.setField(limiter, "maxRequests", 3);
+		ReflectionTestUtils.setField(limiter, "windowHours", 1);
+		ReflectionTestUtils.setField(limiter, "cacheHitsPerRequest", cacheHitsPerRequest);
+		ReflectionTestUtils.setField(limiter, "clock", (LongSupplier) clock::get);
+		limiter.init();
+		return limiter;
+	}
+
+	/**
+	 * Keys currently held across all stripes
+	 */
+	private int windowCount() {
+		int count = 0;
+		for (Object stripe : (Object[]) ReflectionTestUtils.getField(limiter, "stripes")) {
+			count += ((Map<?, ?>) ReflectionTestUtils.getField(stripe, "windows")).size();
+		}
+		return count;
+	}
+
+	private static RequestTimestamp row(long id, String ipAddress, LocalDateTime createdAt, DiagnosisSource source) {
+		return new RequestTimestamp() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getIpAddress() {
+				return ipAddress;
+			}
+
+			@Override
+			public LocalDateTime getCreatedAt() {
+				return createdAt;
+			}
+
+			@Override
+			public DiagnosisSource getSource() {
+				return source;
+			}
+		};
+	}
+}
@@ -0,0 +1,108 @@
+package com.prodpulse.prodpulse_backend.service.scan;
+
+import com.prodpulse.prodpulse_backend.service.rules.KnownErrorClassifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-pass scan gives the same answers as the separate passes it replaced
+ */
+class LogScannerTest {
+
+	private LogScanner scanner;
+
+	@BeforeEach
+	void setUp() {
+		KnownErrorClassifier classifier = new KnownErrorClassifier();
+		ReflectionTestUtils.setField(classifier, "enabled", true);
+		ReflectionTestUtils.setField(classifier, "rulesLocation", new ClassPathResource("rules/known-errors.yml"));
+		classifier.init();
+
+		scanner = new LogScanner();
+		ReflectionTestUtils.setField(scanner, "knownErrorClassifier", classifier);
+		scanner.init();
+	}
+
+	@Test
+	void findsOverlappingKeywordsInOnePass() {
+		String logs = "  2024-05-01 INFO starting\r\n\tException in thread \"main\" java.lang.OutOfMemoryError: Java heap space\n";
+
+		LogScan scan = scanner.scan(logs);
+
+		// "outofmemoryerror" contains "error" - both must be reported
+		assertThat(scan.getSignatures()).contains("outofmemoryerror", "error", "exception", "java.lang.OutOfMemoryError");
+		assertThat(scan.getSeverity()).isEqualTo("critical");
+		assertThat(scan.getTitle(logs))
+				.isEqualTo("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space");
+		assertThat(scan.getRuleIndex()).isEqualTo(1);
+		assertThat(scan.getWordCount()).isEqualTo(logs.trim().split("\\s+").length);
+		assertThat(scan.getContentLength()).isEqualTo(logs.trim().length());
+	}
+
+	@Test
+	void matchesPreviousSeverityTitleAndWordCount() {
+		List<String> logs = List.of(
+				"Build succeeded in 42s",
+				"WARN request TIMEOUT after 30s\nretrying",
+				"first line\n\n   " + "x".repeat(150) + " Error at the end",
+				"Segmentation FAULT (core dumped)",
+				"ümlaut prefix: Connection Refused by peer",
+				"   \n  leading blank lines\n",
+				"FATAL: password authentication failed for user \"app\"");
+
+		for (String log : logs) {
+			LogScan scan = scanner.scan(log);
+			assertThat(scan.getSeverity()).as(log).isEqualTo(legacySeverity(log));
+			assertThat(scan.getTitle(log)).as(log).isEqualTo(legacyTitle(log));
+			assertThat(scan.getWordCount()).as(log).isEqualTo(log.trim().split("\\s+").length);
+		}
+	}
+
+	@Test
+	void blankLogHasNoContent() {
+		LogScan scan = scanner.scan(" \t\r\n ");
+
+		assertThat(scan.getContentLength()).isZero();
+		assertThat(scan.getWordCount()).isZero();
+		assertThat(scan.getSeverity()).isEqualTo("info");
+		assertThat(scan.getTitle(" \t\r\n ")).isEqualTo("Production Error Analysis");
+		assertThat(scan.getRuleIndex()).isEqualTo(-1);
+	}
+
+	private static String legacySeverity(String errorLog) {
+		String logLower = errorLog.toLowerCase();
+		if (logLower.contains("fatal") || logLower.contains("outofmemoryerror") || logLower.contains("cannot connect")
+				|| logLower.contains("connection refused") || logLower.contains("segmentation fault")
+				|| logLower.contains("core dumped")) {
+			return "critical";
+		}
+		if (logLower.contains("error") || logLower.contains("exception") || logLower.contains("failed")
+				|| logLower.contains("timeout")) {
+			return "warning";
+		}
+		return "info";
+	}
+
+	private static String legacyTitle(String errorLog) {
+		String[] lines = errorLog.split("\n");
+		for (String line : lines) {
+			if (line.toLowerCase().contains("error") || line.toLowerCase().contains("exception")) {
+				String title = line.trim();
+				return title.length() > 100 ? title.substring(0, 97) + "..." : title;
+			}
+		}
+		for (String line : lines) {
+			String trimmed = line.trim();
+			if (!trimmed.isEmpty()) {
+				return trimmed.length() > 100 ? trimmed.substring(0, 97) + "..." : trimmed;
+			}
+		}
+		return "Production Error Analysis";
+	}
+}
@@ -0,0 +1,154 @@
+package com.prodpulse.prodpulse_backend.service.similar;
+
+import com.prodpulse.prodpulse_backend.loadtest.StubLlmServer;
+import com.prodpulse.prodpulse_backend.model.dto.DiagnosisResponse;
+import com.prodpulse.prodpulse_backend.model.dto.LogRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Near-identical logs reuse a past diagnosis; similar ones get it as prompt context
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SimilarIncidentTest {
+
+	private static final StubLlmServer stubLlm = startStub();
+
+	private static final String POOL_EXHAUSTED = "ERROR OrderService: failed to reserve stock for order 1001 - "
+			+ "connection pool exhausted after waiting 30000 ms for a free connection from HikariPool-1 "
+			+ "(total=10, active=10, idle=0, waiting=25)";
+
+	// Other order and queue length - a different fingerprint, but the same incident
+	private static final String POOL_EXHAUSTED_AGAIN = "ERROR OrderService: failed to reserve stock for order 2002 - "
+			+ "connection pool exhausted after waiting 30000 ms for a free connection from HikariPool-1 "
+			+ "(total=10, active=10, idle=0, waiting=31)";
+
+	// Another operation hitting the same pool - similar, not the same
+	private static final String POOL_EXHAUSTED_ON_RELEASE = "ERROR OrderService: failed to release stock for order 1001 - "
+			+ "connection pool exhausted after waiting 30000 ms for a free connection from HikariPool-1 "
+			+ "(total=10, active=10, idle=0, waiting=25)";
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private SimilarIncidentService similarIncidentService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.ai.openai.base-url", stubLlm::getBaseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stubLlm.close();
+	}
+
+	@Test
+	void reusesOrAddsContextFromSimilarIncidents() {
+		stubLlm.setContent("<div class=\"diagnosis\"><h3>Pool exhausted</h3><p>Raise maximumPoolSize</p></div>");
+		int indexed = similarIncidentService.size();
+
+		DiagnosisResponse first = analyze("10.40.0.1", POOL_EXHAUSTED);
+		int requests = stubLlm.getRequests();
+		assertThat(similarIncidentService.size()).isEqualTo(indexed + 1);
+
+		// Near-identical: served from the past diagnosis without an AI call (but charged as a full request)
+		DiagnosisResponse again = analyze("10.40.0.2", POOL_EXHAUSTED_AGAIN);
+		assertThat(stubLlm.getRequests()).isEqualTo(requests);
+		assertThat(again.getContent()).isEqualTo(first.getContent());
+		assertThat(meterRegistry.counter("prodpulse.similar.matches", "use", "direct").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("prodpulse.analyses", "source", "SIMILAR").count()).isEqualTo(1);
+
+		// Similar: the AI is called, with the past diagnosis in the prompt
+		analyze("10.40.0.3", POOL_EXHAUSTED_ON_RELEASE);
+		assertThat(stubLlm.getRequests()).isEqualTo(requests + 1);
+		assertThat(stubLlm.getLastRequest())
+				.contains("similar past incident")
+				.contains("Raise maximumPoolSize");
+		assertThat(meterRegistry.counter("prodpulse.similar.matches", "use", "context").count()).isEqualTo(1);
+	}
+
+	@Test
+	void simHashSeparatesDifferentErrors() {
+		long pool = SimHash.of(POOL_EXHAUSTED);
+
+		assertThat(SimHash.distance(pool, SimHash.of(POOL_EXHAUSTED_AGAIN))).isLessThanOrEqualTo(SimHash.maxDistance(0.95));
+		assertThat(SimHash.distance(pool, SimHash.of(POOL_EXHAUSTED_ON_RELEASE)))
+				.isGreaterThan(SimHash.maxDistance(0.95))
+				.isLessThanOrEqualTo(SimHash.maxDistance(0.85));
+		assertThat(SimHash.distance(pool, SimHash.of(
+				"java.lang.NullPointerException: Cannot invoke \"String.length()\" because \"name\" is null")))
+				.isGreaterThan(SimHash.maxDistance(0.85));
+	}
+
+	@Test
+	void indexSurvivesReopen(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("similar.idx");
+		String fingerprint = "ab".repeat(32);
+		long hash = SimHash.of(POOL_EXHAUSTED);
+
+		try (SimHashIndex index = new SimHashIndex(file, 4)) {
+			assertThat(index.isReopened()).isFalse();
+			index.add(hash, fingerprint);
+			index.add(hash, fingerprint);
+			assertThat(index.size()).isEqualTo(1);
+		}
+
+		try (SimHashIndex index = new SimHashIndex(file, 4)) {
+			assertThat(index.isReopened()).isTrue();
+			SimHashIndex.Match match = index.nearest(hash ^ 1, 1);
+			assertThat(match.getFingerprint()).isEqualTo(fingerprint);
+			assertThat(match.getDistance()).isEqualTo(1);
+
+			// Full ring: the oldest entry makes room
+			for (int i = 0; i < 4; i++) {
+				index.add(~hash + i, "cd".repeat(32));
+			}
+			assertThat(index.size()).isEqualTo(4);
+			assertThat(index.nearest(hash, 0)).isNull();
+		}
+
+		// Another capacity is another layout - started over
+		try (SimHashIndex index = new SimHashIndex(file, 8)) {
+			assertThat(index.isReopened()).isFalse();
+			assertThat(index.size()).isZero();
+		}
+	}
+
+	private DiagnosisResponse analyze(String ip, String log) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Forwarded-For", ip);
+		ResponseEntity<DiagnosisResponse> response = restTemplate.postForEntity("/api/analyze",
+				new HttpEntity<>(new LogRequest(log), headers), DiagnosisResponse.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response.getBody();
+	}
+
+	private static StubLlmServer startStub() {
+		try {
+			return new StubLlmServer(Duration.ZERO);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rolling retention: old analyses move to the archive table in batches, recent ones stay
+ */
+@SpringBootTest(properties = {
+		"app.history.retention.mode=archive",
+		"app.history.retention.days=30",
+		"app.history.retention.batch-size=2"
+})
+class AnalysisHistoryArchiverTest {
+
+	private static final String IP = "10.13.0.1";
+
+	@Autowired
+	private AnalysisHistoryArchiver archiver;
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void movesRowsOlderThanTheRetentionToTheArchive() {
+		LocalDateTime now = LocalDateTime.now();
+		insert(910_001, now.minusDays(90));
+		insert(910_002, now.minusDays(60));
+		insert(910_003, now.minusDays(31));
+		insert(910_004, now.minusDays(1));
+		insert(910_005, now);
+
+		long archived = archiver.archive(now.minusDays(30));
+
+		assertThat(archived).isEqualTo(3);
+		assertThat(analysisHistoryRepository.findByIpAddressOrderByCreatedAtDesc(IP))
+				.extracting(history -> history.getId())
+				.containsExactly(910_005L, 910_004L);
+		assertThat(jdbcTemplate.queryForList(
+				"SELECT id FROM analysis_history_archive WHERE ip_address = ? ORDER BY id", Long.class, IP))
+				.containsExactly(910_001L, 910_002L, 910_003L);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT log_input FROM analysis_history_archive WHERE id = ?", String.class, 910_001L))
+				.isEqualTo("log 910001");
+
+		// Nothing left to move
+		assertThat(archiver.archive(now.minusDays(30))).isZero();
+	}
+
+	private void insert(long id, LocalDateTime createdAt) {
+		jdbcTemplate.update("INSERT INTO analysis_history (id, ip_address, log_input, source, created_at) "
+				+ "VALUES (?, ?, ?, ?, ?)", id, IP, "log " + id, "AI", createdAt);
+	}
+}
@@ -0,0 +1,116 @@
+package com.prodpulse.prodpulse_backend.service.storage;
+
+import com.prodpulse.prodpulse_backend.model.entity.AnalysisHistory;
+import com.prodpulse.prodpulse_backend.model.entity.DiagnosisSource;
+import com.prodpulse.prodpulse_backend.repository.AnalysisHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compressed log_input/diagnosis columns: transparent to JPA, old plain rows readable and migrated
+ */
+@SpringBootTest(properties = {
+		"app.storage.compression.codec=gzip",
+		"app.storage.compression.threshold=256",
+		"app.storage.compression.migrate=false",
+		"app.storage.compression.migration-batch-size=2",
+		"app.storage.compression.migration-pause-ms=0"
+})
+class CompressedStorageTest {
+
+	private static final String DIAGNOSIS = "<div class=\"diagnosis\">\n"
+			+ "    <h3>What Happened:</h3>\n    <p>The connection pool was exhausted.</p>\n".repeat(20)
+			+ "</div>";
+
+	@Autowired
+	private AnalysisHistoryRepository analysisHistoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TextCompressor textCompressor;
+
+	@Autowired
+	private StorageCompressionMigrator migrator;
+
+	@Test
+	void largeValuesAreStoredCompressedAndReadBackPlain() {
+		AnalysisHistory saved = analysisHistoryRepository.save(AnalysisHistory.builder()
+				.ipAddress("10.12.0.1")
+				.logInput("java.lang.IllegalStateException: short log")
+				.diagnosis(DIAGNOSIS)
+				.severity("warning")
+				.title("IllegalStateException")
+				.source(DiagnosisSource.AI)
+				.build());
+
+		String storedDiagnosis = rawColumn("diagnosis", saved.getId());
+		assertThat(storedDiagnosis).startsWith("{gzip}");
+		assertThat(storedDiagnosis.length()).isLessThan(DIAGNOSIS.length() / 4);
+		// Below the threshold - stored as is
+		assertThat(rawColumn("log_input", saved.getId())).isEqualTo("java.lang.IllegalStateException: short log");
+
+		assertThat(analysisHistoryRepository.findById(saved.getId())).hasValueSatisfying(history -> {
+			assertThat(history.getDiagnosis()).isEqualTo(DIAGNOSIS);
+			assertThat(history.getLogInput()).isEqualTo("java.lang.IllegalStateException: short log");
+		});
+	}
+
+	@Test
+	void plainValuesThatLookCompressedSurviveARoundTrip() {
+		String tricky = "{gzip}not base64 at all";
+
+		assertThat(textCompressor.encode(tricky)).startsWith("{plain}");
+		assertThat(textCompressor.decode(textCompressor.encode(tricky))).isEqualTo(tricky);
+		assertThat(textCompressor.decode(textCompressor.encode(null))).isNull();
+	}
+
+	@Test
+	void valuesWrittenWithAnotherCodecStayReadable() {
+		TextCompressor deflate = new TextCompressor();
+		ReflectionTestUtils.setField(deflate, "codec", CompressionCodec.DEFLATE);
+		ReflectionTestUtils.setField(deflate, "threshold", 256);
+		ReflectionTestUtils.setField(deflate, "level", 6);
+
+		String stored = deflate.encode(DIAGNOSIS);
+
+		assertThat(stored).startsWith("{deflate}");
+		assertThat(textCompressor.decode(stored)).isEqualTo(DIAGNOSIS);
+		assertThat(textCompressor.needsEncoding(stored)).isFalse();
+	}
+
+	@Test
+	void migrationCompressesLegacyRows() {
+		long[] ids = {900_001, 900_002, 900_003};
+		for (long id : ids) {
+			jdbcTemplate.update("INSERT INTO analysis_history (id, ip_address, log_input, diagnosis, created_at) "
+					+ "VALUES (?, ?, ?, ?, ?)", id, "10.12.0.2", "log " + id, DIAGNOSIS, LocalDateTime.now());
+		}
+
+		long migrated = migrator.migrateAll();
+
+		assertThat(migrated).isGreaterThanOrEqualTo(ids.length);
+		for (long id : ids) {
+			assertThat(rawColumn("diagnosis", id)).startsWith("{gzip}");
+			assertThat(analysisHistoryRepository.findById(id)).hasValueSatisfying(history -> {
+				assertThat(history.getDiagnosis()).isEqualTo(DIAGNOSIS);
+				assertThat(history.getLogInput()).isEqualTo("log " + id);
+			});
+		}
+
+		// Nothing left to do on the next run
+		assertThat(migrator.migrateAll()).isZero();
+	}
+
+	private String rawColumn(String column, long id) {
+		return jdbcTemplate.queryForObject("SELECT " + column + " FROM analysis_history WHERE id = ?", String.class, id);
+	}
+}